@@ -0,0 +1,65 @@
+package by.epam.training.solvers.mathematical;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares evaluation of the same expression
+ * by RPN interpreter and by generated bytecode.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BackendBenchmark {
+
+    @Param({"8", "64", "512"})
+    private int terms;
+
+    private CompiledExpression interpreted;
+    private CompiledExpression generated;
+    private double[] values;
+
+    @Setup
+    public void setUp() {
+        StringBuilder builder = new StringBuilder("x0");
+        for (int i = 1; i < terms; i++) {
+            builder.append("+*-".charAt(i % 3)).append('x').append(i % 16);
+        }
+        interpreted = new ReversePolishNotationSolver().compile(builder.toString());
+        generated = interpreted.withGeneratedBytecode();
+        if (!generated.isBytecodeGenerated()) {
+            throw new IllegalStateException("Bytecode was not generated for " + terms + " terms.");
+        }
+        values = new double[interpreted.getVariables().size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i + 0.5;
+        }
+    }
+
+    @Benchmark
+    public double interpreter() {
+        return interpreted.evaluate(values);
+    }
+
+    @Benchmark
+    public double bytecode() {
+        return generated.evaluate(values);
+    }
+}
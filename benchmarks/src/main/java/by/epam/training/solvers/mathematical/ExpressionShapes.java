@@ -0,0 +1,65 @@
+package by.epam.training.solvers.mathematical;
+
+/**
+ * Expressions of different shapes used by benchmarks.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.0
+ */
+final class ExpressionShapes {
+
+    /**
+     * A short expression of a typical formula size.
+     */
+    static final String SHORT = "(51/3)+5/2-56+(2-4)";
+    /**
+     * A long flat expression of 1000 terms.
+     */
+    static final String LONG = buildLong(1000);
+    /**
+     * A deeply nested expression of 200 bracket levels.
+     */
+    static final String NESTED = buildNested(200);
+
+    private ExpressionShapes() {
+    }
+
+    /**
+     * Retrieves an expression by name of its shape.
+     *
+     * @param shape One of {@code short}, {@code long}, {@code nested}.
+     * @return The expression.
+     */
+    static String byName(String shape) {
+        switch (shape) {
+            case "short":
+                return SHORT;
+            case "long":
+                return LONG;
+            case "nested":
+                return NESTED;
+            default:
+                throw new IllegalArgumentException("Unknown shape: " + shape);
+        }
+    }
+
+    private static String buildLong(int terms) {
+        StringBuilder builder = new StringBuilder("1");
+        for (int i = 1; i < terms; i++) {
+            builder.append("+*-/".charAt(i % 4)).append(i % 97 + 1);
+        }
+        return builder.toString();
+    }
+
+    private static String buildNested(int depth) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            builder.append('(').append(i % 9 + 1).append(i % 2 == 0 ? '+' : '*');
+        }
+        builder.append('1');
+        for (int i = 0; i < depth; i++) {
+            builder.append(')');
+        }
+        return builder.toString();
+    }
+}
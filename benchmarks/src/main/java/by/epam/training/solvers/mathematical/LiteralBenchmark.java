@@ -0,0 +1,66 @@
+package by.epam.training.solvers.mathematical;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares conversion of long decimal and scientific literals
+ * by lexer with conversion by {@link Double#parseDouble(String)}.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LiteralBenchmark {
+
+    private static final int LITERALS_COUNT = 1000;
+
+    private String[] literals;
+    private String expression;
+    private ExpressionLexer lexer;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        literals = new String[LITERALS_COUNT];
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < LITERALS_COUNT; i++) {
+            literals[i] = random.nextInt(100_000) + "." + Math.abs(random.nextLong())
+                    + (i % 2 == 0 ? "" : "e" + (random.nextInt(80) - 40));
+            builder.append(i == 0 ? "" : "+").append(literals[i]);
+        }
+        expression = builder.toString();
+        lexer = new ExpressionLexer();
+    }
+
+    @Benchmark
+    public ExpressionLexer tokenize() {
+        lexer.tokenize(expression, OperatorTable.STANDARD);
+        return lexer;
+    }
+
+    @Benchmark
+    public double parseDouble() {
+        double sum = 0;
+        for (String literal : literals) {
+            sum += Double.parseDouble(literal);
+        }
+        return sum;
+    }
+}
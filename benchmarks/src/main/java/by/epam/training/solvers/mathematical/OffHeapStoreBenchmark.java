@@ -0,0 +1,74 @@
+package by.epam.training.solvers.mathematical;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares evaluation of expressions held in an {@link OffHeapExpressionStore}
+ * with evaluation of compiled expressions held on heap.
+ * Expressions are visited in a scattered order, as a lookup by key would do.
+ * Footprint of the store is printed at setup.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+@State(Scope.Thread)
+public class OffHeapStoreBenchmark {
+
+    /**
+     * Step between visited expressions, coprime with counts of expressions.
+     */
+    private static final int STRIDE = 7919;
+
+    @Param({"1000000"})
+    private int count;
+
+    private OffHeapExpressionStore store;
+    private List<CompiledExpression> compiledExpressions;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        ReversePolishNotationSolver solver = new ReversePolishNotationSolver();
+        store = new OffHeapExpressionStore(solver, 16 << 20);
+        compiledExpressions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            CompiledExpression expression = solver.compile("(x + " + i + ") * (y - " + (i % 97) + ") / "
+                    + (i % 13 + 1) + " + sqrt(x * y)");
+            store.add(expression);
+            compiledExpressions.add(expression);
+        }
+        System.out.printf("%nStored %d expressions: %.1f bytes per expression, %d MB off heap%n",
+                store.size(), store.getAverageFootprint(), store.getOffHeapSize() >> 20);
+    }
+
+    @Benchmark
+    public double offHeap() {
+        next = (next + STRIDE) % count;
+        return store.evaluate(next, 3, 4);
+    }
+
+    @Benchmark
+    public double onHeap() {
+        next = (next + STRIDE) % count;
+        return compiledExpressions.get(next).evaluate(3, 4);
+    }
+}
@@ -0,0 +1,72 @@
+package by.epam.training.solvers.mathematical;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how sequential and parallel evaluation scale
+ * with size of a single aggregate expression.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.0
+ * @see ParallelExpression
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class ParallelScalingBenchmark {
+
+    private static final String[] TERMS = {"x * 3", "(y - 1) / 4", "sqrt(x + 2)", "x * y * 0.5", "pow(y, 2) - x"};
+    private static final int[] TERM_TOKENS = {3, 7, 6, 5, 8};
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    private int tokens;
+
+    private String expression;
+    private CompiledExpression compiledExpression;
+    private ParallelExpression parallelExpression;
+    private ReversePolishNotationSolver solver;
+
+    @Setup
+    public void setUp() {
+        StringBuilder builder = new StringBuilder("x");
+        int count = 1;
+        for (int i = 0; count < tokens; i++) {
+            builder.append(i % 3 == 0 ? " - " : " + ").append(TERMS[i % TERMS.length]);
+            count += 1 + TERM_TOKENS[i % TERMS.length];
+        }
+        expression = builder.toString();
+        solver = new ReversePolishNotationSolver();
+        compiledExpression = solver.compile(expression);
+        parallelExpression = compiledExpression.parallel();
+    }
+
+    @Benchmark
+    public double evaluate() {
+        return compiledExpression.evaluate(2, 3);
+    }
+
+    @Benchmark
+    public double evaluateParallel() {
+        return parallelExpression.evaluate(2, 3);
+    }
+
+    @Benchmark
+    public double compileAndEvaluateParallel() {
+        return solver.compile(expression).parallel().evaluate(2, 3);
+    }
+}
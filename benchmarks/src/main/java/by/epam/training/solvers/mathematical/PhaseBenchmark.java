@@ -0,0 +1,83 @@
+package by.epam.training.solvers.mathematical;
+
+import by.epam.training.solvers.validation.MathematicalExpressionValidator;
+import by.epam.training.solvers.validation.TaskValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures each phase of a solution separately:
+ * validation, tokenization, conversion into RPN and evaluation,
+ * as well as the whole solution.
+ * <p>Declared in the package of the library
+ * to reach its package-private phases.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PhaseBenchmark {
+
+    @Param({"short", "long", "nested"})
+    private String shape;
+
+    private String expression;
+    private TaskValidator validator;
+    private ExpressionCompiler compiler;
+    private ExpressionCompiler tokenizedCompiler;
+    private CompiledExpression compiledExpression;
+    private ReversePolishNotationSolver solver;
+
+    @Setup
+    public void setUp() {
+        expression = ExpressionShapes.byName(shape);
+        validator = new MathematicalExpressionValidator();
+        compiler = new ExpressionCompiler();
+        tokenizedCompiler = new ExpressionCompiler();
+        tokenizedCompiler.tokenize(expression);
+        solver = new ReversePolishNotationSolver();
+        compiledExpression = solver.compile(expression);
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return validator.validate(expression);
+    }
+
+    @Benchmark
+    public ExpressionCompiler tokenize() {
+        compiler.tokenize(expression);
+        return compiler;
+    }
+
+    @Benchmark
+    public CompiledExpression convertToReversePolishNotation() {
+        return tokenizedCompiler.compileTokens();
+    }
+
+    @Benchmark
+    public double evaluate() {
+        return compiledExpression.evaluate();
+    }
+
+    @Benchmark
+    public double solve() {
+        return solver.solve(expression);
+    }
+}
@@ -0,0 +1,78 @@
+package by.epam.training.solvers.mathematical;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares ways to obtain a large number of compiled expressions at startup:
+ * compiling them from text and loading them from an archive.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StartupBenchmark {
+
+    @Param({"10000"})
+    private int count;
+
+    private List<String> expressions;
+    private ReversePolishNotationSolver solver;
+    private Path archive;
+
+    @Setup
+    public void setUp() throws IOException {
+        solver = new ReversePolishNotationSolver();
+        expressions = new ArrayList<>(count);
+        List<CompiledExpression> compiledExpressions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String expression = "(x + " + i + ") * (y - " + (i % 97) + ") / " + (i % 13 + 1)
+                    + " + " + ExpressionShapes.SHORT;
+            expressions.add(expression);
+            compiledExpressions.add(solver.compile(expression));
+        }
+        archive = Files.createTempFile("startup", ".rpnx");
+        ExpressionArchive.write(archive, compiledExpressions);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(archive);
+    }
+
+    @Benchmark
+    public List<CompiledExpression> compile() {
+        List<CompiledExpression> compiledExpressions = new ArrayList<>(count);
+        for (String expression : expressions) {
+            compiledExpressions.add(solver.compile(expression));
+        }
+        return compiledExpressions;
+    }
+
+    @Benchmark
+    public List<CompiledExpression> load() throws IOException {
+        return ExpressionArchive.load(archive);
+    }
+}
@@ -0,0 +1,64 @@
+package by.epam.training.solvers.mathematical;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures throughput of solvers shared
+ * by all available processors.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class ThroughputBenchmark {
+
+    @Param({"short", "long"})
+    private String shape;
+
+    private String expression;
+    private ReversePolishNotationSolver solver;
+    private CachingExpressionSolver cachingSolver;
+    private CompiledExpression compiledExpression;
+
+    @Setup
+    public void setUp() {
+        expression = ExpressionShapes.byName(shape);
+        solver = new ReversePolishNotationSolver();
+        cachingSolver = new CachingExpressionSolver();
+        compiledExpression = solver.compile(expression);
+    }
+
+    @Benchmark
+    public double solve() {
+        return solver.solve(expression);
+    }
+
+    @Benchmark
+    public double solveCached() {
+        return cachingSolver.solve(expression);
+    }
+
+    @Benchmark
+    public double evaluateCompiled() {
+        return compiledExpression.evaluate();
+    }
+}
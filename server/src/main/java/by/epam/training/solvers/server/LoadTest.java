@@ -0,0 +1,107 @@
+package by.epam.training.solvers.server;
+
+import by.epam.training.solvers.mathematical.ReversePolishNotationSolver;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of {@link SolverServer} on localhost.
+ * <p>Starts a server on a free loopback port and several clients,
+ * each pipelining requests with a bounded window of requests in flight.
+ * Reports throughput and percentiles of latency, measured from sending
+ * a request to receiving its response.
+ * <p>Arguments, all optional: count of clients (4), requests per client
+ * (200000) and window per client (256).
+ *
+ * @author Baranovsky E. K.
+ * @version 1.0
+ */
+public final class LoadTest {
+
+    private static final int TASKS_COUNT = 1024;
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        int window = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+
+        String[] tasks = createTasks();
+        try (SolverServer server = new SolverServer(new ReversePolishNotationSolver()).start()) {
+            // warm-up with a tenth of the load
+            run(server, tasks, clients, requests / 10, window);
+            long[] latencies = new long[clients * requests];
+            long start = System.nanoTime();
+            run(server, tasks, clients, requests, window, latencies);
+            long elapsed = System.nanoTime() - start;
+
+            Arrays.sort(latencies);
+            System.out.printf("%d clients, %d requests each, window %d%n", clients, requests, window);
+            System.out.printf("Throughput: %.0f requests/s%n", latencies.length / (elapsed / 1e9));
+            System.out.printf("Latency, us: p50 %.1f, p99 %.1f, p99.9 %.1f, max %.1f%n",
+                    percentile(latencies, 0.5), percentile(latencies, 0.99),
+                    percentile(latencies, 0.999), latencies[latencies.length - 1] / 1e3);
+        }
+    }
+
+    private static void run(SolverServer server, String[] tasks, int clients, int requests, int window)
+            throws IOException, InterruptedException {
+        run(server, tasks, clients, requests, window, new long[clients * requests]);
+    }
+
+    /**
+     * Utility method.
+     * Runs clients in parallel and waits until all responses are received.
+     *
+     * @param latencies Array to fill with latencies of all requests in nanoseconds.
+     */
+    private static void run(SolverServer server, String[] tasks, int clients, int requests, int window,
+                            long[] latencies) throws IOException, InterruptedException {
+        Thread[] threads = new Thread[clients];
+        SolverClient[] connections = new SolverClient[clients];
+        for (int c = 0; c < clients; c++) {
+            connections[c] = new SolverClient(server.getAddress());
+            SolverClient client = connections[c];
+            int offset = c * requests;
+            threads[c] = new Thread(() -> {
+                Semaphore inFlight = new Semaphore(window);
+                for (int i = 0; i < requests; i++) {
+                    inFlight.acquireUninterruptibly();
+                    int index = offset + i;
+                    long sent = System.nanoTime();
+                    client.solveAsync(tasks[index % tasks.length]).whenComplete((result, exception) -> {
+                        latencies[index] = System.nanoTime() - sent;
+                        inFlight.release();
+                    });
+                }
+                inFlight.acquireUninterruptibly(window);
+            }, "load-test-client-" + c);
+            threads[c].start();
+        }
+        for (int c = 0; c < clients; c++) {
+            threads[c].join(TimeUnit.MINUTES.toMillis(10));
+            connections[c].close();
+        }
+    }
+
+    private static String[] createTasks() {
+        Random random = new Random(1);
+        String[] tasks = new String[TASKS_COUNT];
+        for (int i = 0; i < TASKS_COUNT; i++) {
+            tasks[i] = "(" + random.nextInt(1000) + " + " + random.nextInt(1000) + ") * "
+                    + (random.nextInt(100) + 1) + " / (" + random.nextInt(50) + " + 0.5) - sqrt("
+                    + random.nextInt(10_000) + ")";
+        }
+        return tasks;
+    }
+
+    private static double percentile(long[] sortedLatencies, double fraction) {
+        return sortedLatencies[(int) Math.min(sortedLatencies.length - 1, fraction * sortedLatencies.length)] / 1e3;
+    }
+}
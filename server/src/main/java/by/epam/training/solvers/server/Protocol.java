@@ -0,0 +1,115 @@
+package by.epam.training.solvers.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Utility class.
+ * Binary protocol between {@link SolverServer} and {@link SolverClient}.
+ * <p>Each message is a frame: 4-byte length of the rest of the frame,
+ * followed by 8-byte identifier of the request chosen by client.
+ * <ul>
+ *     <li>Request: the identifier, then the task as UTF-8 text.
+ *     <li>Response: the identifier, then one status byte: {@link #OK}
+ *     followed by 8-byte result, or {@link #ERROR} followed by
+ *     the message of the error as UTF-8 text.
+ * </ul>
+ * All numbers are big-endian. Client may send any number of requests
+ * without waiting for responses; responses may come in any order.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.0
+ */
+final class Protocol {
+
+    /**
+     * Size of the length field.
+     */
+    static final int LENGTH_SIZE = Integer.BYTES;
+    /**
+     * Maximal length of a frame without its length field.
+     */
+    static final int MAX_FRAME_LENGTH = 1 << 20;
+    static final byte OK = 0;
+    static final byte ERROR = 1;
+
+    private Protocol() {
+    }
+
+    /**
+     * @param taskSize Size of encoded task in bytes.
+     * @return Size of the whole frame of a request.
+     */
+    static int requestSize(int taskSize) {
+        return LENGTH_SIZE + Long.BYTES + taskSize;
+    }
+
+    /**
+     * Writes a request frame.
+     *
+     * @param buffer Buffer with enough room for the frame.
+     * @param id     Identifier of the request.
+     * @param task   Encoded task.
+     */
+    static void putRequest(ByteBuffer buffer, long id, byte[] task) {
+        buffer.putInt(Long.BYTES + task.length).putLong(id).put(task);
+    }
+
+    /**
+     * @param messageSize Size of encoded message of an error, {@code -1} for a result.
+     * @return Size of the whole frame of a response.
+     */
+    static int responseSize(int messageSize) {
+        return LENGTH_SIZE + Long.BYTES + 1 + (messageSize < 0 ? Double.BYTES : messageSize);
+    }
+
+    /**
+     * Writes a response frame with a result.
+     */
+    static void putResult(ByteBuffer buffer, long id, double result) {
+        buffer.putInt(Long.BYTES + 1 + Double.BYTES).putLong(id).put(OK).putDouble(result);
+    }
+
+    /**
+     * Writes a response frame with an error.
+     */
+    static void putError(ByteBuffer buffer, long id, byte[] message) {
+        buffer.putInt(Long.BYTES + 1 + message.length).putLong(id).put(ERROR).put(message);
+    }
+
+    /**
+     * Checks whether a buffer holds a complete frame at its position.
+     *
+     * @param buffer Buffer in read mode.
+     * @return Length of the frame without its length field,
+     * {@code -1} if the frame is incomplete.
+     * @throws IOException if the length is invalid.
+     */
+    static int completeFrameLength(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < LENGTH_SIZE) {
+            return -1;
+        }
+        int length = buffer.getInt(buffer.position());
+        if (length < Long.BYTES || length > MAX_FRAME_LENGTH) {
+            throw new IOException("Invalid length of frame: " + length);
+        }
+        return buffer.remaining() - LENGTH_SIZE >= length ? length : -1;
+    }
+
+    /**
+     * Prepares a buffer for reading the rest of an incomplete frame.
+     *
+     * @param buffer Buffer in read mode, positioned at the incomplete frame
+     *               whose length, if already read, is checked by
+     *               {@link #completeFrameLength(ByteBuffer)}.
+     * @return The same buffer in write mode, or a larger one
+     * if the frame does not fit into it.
+     */
+    static ByteBuffer compact(ByteBuffer buffer) {
+        int required = buffer.remaining() >= LENGTH_SIZE ? LENGTH_SIZE + buffer.getInt(buffer.position()) : 0;
+        if (required > buffer.capacity()) {
+            return ByteBuffer.allocate(required).put(buffer);
+        }
+        return buffer.compact();
+    }
+}
@@ -0,0 +1,207 @@
+package by.epam.training.solvers.server;
+
+import by.epam.training.solvers.exception.SolverException;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Client of {@link SolverServer} over a single connection.
+ * <p>Requests are pipelined: each of them is sent right away,
+ * without waiting for responses to previous ones.
+ * Responses are received by a dedicated thread, which completes
+ * futures of their requests. A batch of tasks passed to
+ * {@link #solveAll(List)} is sent with a single write.
+ * <p>Instances are safe for concurrent use.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.0
+ */
+public class SolverClient implements AutoCloseable {
+
+    private static final int READ_BUFFER_SIZE = 16 << 10;
+
+    private final SocketChannel channel;
+    /**
+     * Futures of requests without responses, by identifiers of requests.
+     */
+    private final Map<Long, CompletableFuture<Double>> pending = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+    private final Object writeLock = new Object();
+    private volatile boolean closed;
+
+    /**
+     * Connects to a server.
+     *
+     * @param address Address of the server.
+     * @throws IOException if the server cannot be reached.
+     */
+    public SolverClient(InetSocketAddress address) throws IOException {
+        channel = SocketChannel.open(address);
+        channel.socket().setTcpNoDelay(true);
+        Thread reader = new Thread(this::receive, "solver-client-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Solves a task on the server and waits for the result.
+     *
+     * @param task String task to solve.
+     * @return Result of solution as a double value.
+     * @throws SolverException if the task cannot be solved
+     *                         or if the connection fails.
+     */
+    public double solve(String task) {
+        try {
+            return solveAsync(task).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof SolverException ? (SolverException) e.getCause()
+                    : new SolverException(e.getCause());
+        }
+    }
+
+    /**
+     * Sends a task to the server.
+     *
+     * @param task String task to solve.
+     * @return Future result of solution. Fails with {@code SolverException}
+     * if the task cannot be solved or if the connection fails.
+     */
+    public CompletableFuture<Double> solveAsync(String task) {
+        return solveAll(Collections.singletonList(task)).get(0);
+    }
+
+    /**
+     * Sends a batch of tasks to the server at once.
+     *
+     * @param tasks String tasks to solve.
+     * @return Future results of solution in order of tasks.
+     * Each of them fails with {@code SolverException} if its task
+     * cannot be solved or if the connection fails.
+     */
+    public List<CompletableFuture<Double>> solveAll(List<String> tasks) {
+        List<CompletableFuture<Double>> futures = new ArrayList<>(tasks.size());
+        byte[][] encodedTasks = new byte[tasks.size()][];
+        long[] ids = new long[tasks.size()];
+        int size = 0;
+        for (int i = 0; i < encodedTasks.length; i++) {
+            CompletableFuture<Double> future = new CompletableFuture<>();
+            futures.add(future);
+            encodedTasks[i] = tasks.get(i).getBytes(StandardCharsets.UTF_8);
+            if (Long.BYTES + encodedTasks[i].length > Protocol.MAX_FRAME_LENGTH) {
+                future.completeExceptionally(new SolverException("Task is too long to be sent."));
+                encodedTasks[i] = null;
+                continue;
+            }
+            ids[i] = nextId.getAndIncrement();
+            pending.put(ids[i], future);
+            size += Protocol.requestSize(encodedTasks[i].length);
+        }
+
+        ByteBuffer requests = ByteBuffer.allocate(size);
+        for (int i = 0; i < encodedTasks.length; i++) {
+            if (encodedTasks[i] != null) {
+                Protocol.putRequest(requests, ids[i], encodedTasks[i]);
+            }
+        }
+        requests.flip();
+        try {
+            synchronized (writeLock) {
+                while (requests.hasRemaining()) {
+                    channel.write(requests);
+                }
+            }
+        } catch (IOException e) {
+            failPending(e);
+        }
+        if (closed) {
+            failPending(null);
+        }
+        return futures;
+    }
+
+    /**
+     * @return Count of requests sent but not answered yet.
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Closes the connection.
+     * Requests without responses fail.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+        failPending(null);
+    }
+
+    /**
+     * Utility method.
+     * Loop of the reader thread.
+     */
+    private void receive() {
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        try {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                int length;
+                while ((length = Protocol.completeFrameLength(buffer)) >= 0) {
+                    buffer.position(buffer.position() + Protocol.LENGTH_SIZE);
+                    long id = buffer.getLong();
+                    byte status = buffer.get();
+                    CompletableFuture<Double> future = pending.remove(id);
+                    if (status == Protocol.OK) {
+                        double result = buffer.getDouble();
+                        if (future != null) {
+                            future.complete(result);
+                        }
+                    } else {
+                        byte[] message = new byte[length - Long.BYTES - 1];
+                        buffer.get(message);
+                        if (future != null) {
+                            future.completeExceptionally(
+                                    new SolverException(new String(message, StandardCharsets.UTF_8)));
+                        }
+                    }
+                }
+                buffer = Protocol.compact(buffer);
+            }
+            failPending(null);
+        } catch (IOException e) {
+            failPending(e);
+        }
+    }
+
+    /**
+     * Utility method.
+     * Fails all requests without responses.
+     *
+     * @param cause Failure of the connection, {@code null} if it is closed.
+     */
+    private void failPending(IOException cause) {
+        for (Long id : pending.keySet()) {
+            CompletableFuture<Double> future = pending.remove(id);
+            if (future != null) {
+                future.completeExceptionally(new SolverException("Connection to solver server is closed.", cause));
+            }
+        }
+    }
+}
@@ -0,0 +1,510 @@
+package by.epam.training.solvers.server;
+
+import by.epam.training.solvers.Solver;
+import by.epam.training.solvers.mathematical.ReversePolishNotationSolver;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service that exposes a {@code Solver} over TCP,
+ * so that several processes share one warmed-up solver.
+ * <p>Messages follow the binary protocol described in {@link Protocol}.
+ * Clients may pipeline requests: a connection is read as long
+ * as it has fewer than {@value #MAX_IN_FLIGHT_PER_CONNECTION}
+ * requests in flight and fewer than {@value #MAX_QUEUED_BYTES_PER_CONNECTION}
+ * bytes of responses not yet written, and responses are sent as soon as they are ready.
+ * A client that does not read its responses is therefore no longer read either.
+ * <p>All sockets are served by a single selector thread,
+ * which never solves tasks itself. Requests decoded during one pass
+ * of the selector over ready connections form a micro-batch,
+ * which is handed to worker pool in chunks of at most
+ * the maximal batch size. A worker solves a whole chunk and
+ * writes responses of each connection into a single buffer,
+ * so handoff between threads and wake-ups of the selector are paid
+ * once per chunk instead of once per request. Batches are never
+ * delayed to accumulate requests: under low load a batch holds
+ * a single request.
+ * <p>A connection that sends an invalid frame is closed.
+ * A task that cannot be solved is answered with an error.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.1
+ * @see SolverClient
+ */
+public class SolverServer implements AutoCloseable {
+
+    /**
+     * Port of the service started from command line by default.
+     */
+    public static final int DEFAULT_PORT = 7070;
+    private static final int DEFAULT_MAX_BATCH_SIZE = 64;
+    private static final int MAX_IN_FLIGHT_PER_CONNECTION = 1024;
+    private static final int MAX_QUEUED_BYTES_PER_CONNECTION = 1 << 20;
+    private static final int READ_BUFFER_SIZE = 16 << 10;
+
+    private final Solver solver;
+    private final InetSocketAddress address;
+    private final Executor executor;
+    /**
+     * Executor created by this server, {@code null} if it was passed in.
+     */
+    private final ExecutorService ownExecutor;
+    private final int maxBatchSize;
+    /**
+     * Connections that have new responses, filled by workers.
+     */
+    private final Queue<Connection> pendingWrites = new ConcurrentLinkedQueue<>();
+    /**
+     * Requests decoded during the current pass of the selector.
+     */
+    private final List<Request> batch = new ArrayList<>();
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread selectorThread;
+    private volatile boolean running;
+
+    /**
+     * Creates a server on a free port of the loopback interface
+     * that solves tasks on a pool with one thread per processor.
+     *
+     * @param solver Solver of tasks, must be safe for concurrent use.
+     */
+    public SolverServer(Solver solver) {
+        this(solver, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    }
+
+    /**
+     * Creates a server that solves tasks on a pool
+     * with one thread per processor.
+     *
+     * @param solver  Solver of tasks, must be safe for concurrent use.
+     * @param address Address to listen on, port {@code 0} for a free port.
+     */
+    public SolverServer(Solver solver, InetSocketAddress address) {
+        this(solver, address, createDefaultExecutor(), DEFAULT_MAX_BATCH_SIZE, true);
+    }
+
+    /**
+     * Creates a server.
+     * The executor is not shut down by {@link #close()}.
+     *
+     * @param solver       Solver of tasks, must be safe for concurrent use.
+     * @param address      Address to listen on, port {@code 0} for a free port.
+     * @param executor     Executor that solves batches of tasks.
+     * @param maxBatchSize Maximal count of tasks solved by a worker at once.
+     * @throws IllegalArgumentException if {@code maxBatchSize} is not positive.
+     */
+    public SolverServer(Solver solver, InetSocketAddress address, Executor executor, int maxBatchSize) {
+        this(solver, address, executor, maxBatchSize, false);
+    }
+
+    private SolverServer(Solver solver, InetSocketAddress address, Executor executor, int maxBatchSize,
+                         boolean ownExecutor) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Maximal size of batch must be positive: " + maxBatchSize);
+        }
+        this.solver = solver;
+        this.address = address;
+        this.executor = executor;
+        this.ownExecutor = ownExecutor ? (ExecutorService) executor : null;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Starts the service on the loopback interface.
+     *
+     * @param args Optional port, {@value #DEFAULT_PORT} by default.
+     * @throws IOException if the port cannot be bound.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        SolverServer server = new SolverServer(new ReversePolishNotationSolver(),
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        server.start();
+        System.out.println("Solver server is listening on " + server.getAddress());
+    }
+
+    /**
+     * Binds the server and starts serving connections on a new thread.
+     *
+     * @return This server.
+     * @throws IOException           if the address cannot be bound.
+     * @throws IllegalStateException if the server is already started.
+     */
+    public synchronized SolverServer start() throws IOException {
+        if (selectorThread != null) {
+            throw new IllegalStateException("Server is already started.");
+        }
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.bind(address);
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            serverChannel.close();
+            selector.close();
+            throw e;
+        }
+        running = true;
+        selectorThread = new Thread(this::serve, "solver-server-selector");
+        selectorThread.start();
+        return this;
+    }
+
+    /**
+     * @return Address the server listens on.
+     * @throws IllegalStateException if the server is not started.
+     */
+    public synchronized InetSocketAddress getAddress() {
+        if (serverChannel == null) {
+            throw new IllegalStateException("Server is not started.");
+        }
+        try {
+            return (InetSocketAddress) serverChannel.getLocalAddress();
+        } catch (IOException e) {
+            throw new IllegalStateException("Server is closed.", e);
+        }
+    }
+
+    /**
+     * Stops accepting and serving connections and closes all of them.
+     * Shuts down the executor if it was created by this server.
+     */
+    @Override
+    public synchronized void close() {
+        running = false;
+        if (selector != null) {
+            selector.wakeup();
+        }
+        if (selectorThread != null && selectorThread != Thread.currentThread()) {
+            try {
+                selectorThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (ownExecutor != null) {
+            ownExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Utility method.
+     * Loop of the selector thread.
+     */
+    private void serve() {
+        try {
+            while (running) {
+                selector.select();
+                flushPendingWrites();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handle(key);
+                }
+                dispatchBatch();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            running = false;
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key);
+            }
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Utility method.
+     * Handles readiness of a channel.
+     * A connection that fails is closed without affecting others.
+     */
+    private void handle(SelectionKey key) {
+        if (!key.isValid()) {
+            return;
+        }
+        if (key.isAcceptable()) {
+            try {
+                accept();
+            } catch (IOException ignored) {
+                // the client has gone before it was accepted
+            }
+            return;
+        }
+        Connection connection = (Connection) key.attachment();
+        try {
+            if (key.isReadable()) {
+                read(connection);
+            }
+            if (key.isValid() && key.isWritable()) {
+                write(connection);
+            }
+        } catch (IOException e) {
+            closeQuietly(key);
+        }
+    }
+
+    /**
+     * Utility method.
+     * Accepts a new connection, if there is one.
+     */
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            key.attach(new Connection(channel, key));
+        } catch (IOException e) {
+            channel.close();
+        }
+    }
+
+    /**
+     * Utility method.
+     * Reads available data of a connection and decodes complete requests.
+     *
+     * @throws IOException if the connection fails or sends an invalid frame.
+     */
+    private void read(Connection connection) throws IOException {
+        if (connection.channel.read(connection.readBuffer) < 0) {
+            closeQuietly(connection.key);
+            return;
+        }
+        ByteBuffer buffer = connection.readBuffer.flip();
+        int length;
+        while ((length = Protocol.completeFrameLength(buffer)) >= 0) {
+            buffer.position(buffer.position() + Protocol.LENGTH_SIZE);
+            long id = buffer.getLong();
+            byte[] task = new byte[length - Long.BYTES];
+            buffer.get(task);
+            batch.add(new Request(connection, id, new String(task, StandardCharsets.UTF_8)));
+            connection.inFlight.incrementAndGet();
+        }
+        connection.readBuffer = Protocol.compact(buffer);
+        updateReadInterest(connection);
+    }
+
+    /**
+     * Utility method.
+     * Writes queued responses of a connection as far as the socket accepts them,
+     * then pauses or resumes reading of the connection.
+     *
+     * @throws IOException if the connection fails.
+     */
+    private void write(Connection connection) throws IOException {
+        while (true) {
+            if (connection.writing == null) {
+                connection.writing = connection.responses.poll();
+                if (connection.writing == null) {
+                    connection.key.interestOps(connection.key.interestOps() & ~SelectionKey.OP_WRITE);
+                    updateReadInterest(connection);
+                    return;
+                }
+            }
+            connection.queuedBytes.addAndGet(-connection.channel.write(connection.writing));
+            if (connection.writing.hasRemaining()) {
+                connection.key.interestOps(connection.key.interestOps() | SelectionKey.OP_WRITE);
+                updateReadInterest(connection);
+                return;
+            }
+            connection.writing = null;
+        }
+    }
+
+    /**
+     * Utility method.
+     * Pauses reading of a connection that has too many requests in flight
+     * or too many unwritten responses, and resumes it once both have halved.
+     */
+    private static void updateReadInterest(Connection connection) {
+        SelectionKey key = connection.key;
+        int inFlight = connection.inFlight.get();
+        long queuedBytes = connection.queuedBytes.get();
+        if (inFlight >= MAX_IN_FLIGHT_PER_CONNECTION || queuedBytes >= MAX_QUEUED_BYTES_PER_CONNECTION) {
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+        } else if (inFlight < MAX_IN_FLIGHT_PER_CONNECTION / 2 && queuedBytes < MAX_QUEUED_BYTES_PER_CONNECTION / 2) {
+            key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * Utility method.
+     * Writes responses prepared by workers.
+     */
+    private void flushPendingWrites() {
+        Connection connection;
+        while ((connection = pendingWrites.poll()) != null) {
+            SelectionKey key = connection.key;
+            if (!key.isValid()) {
+                continue;
+            }
+            try {
+                write(connection);
+            } catch (IOException e) {
+                closeQuietly(key);
+            }
+        }
+    }
+
+    /**
+     * Utility method.
+     * Hands requests decoded during the current pass to workers.
+     */
+    private void dispatchBatch() {
+        for (int from = 0; from < batch.size(); from += maxBatchSize) {
+            Request[] chunk = batch.subList(from, Math.min(from + maxBatchSize, batch.size()))
+                    .toArray(new Request[0]);
+            try {
+                executor.execute(() -> solveBatch(chunk));
+            } catch (RejectedExecutionException e) {
+                for (Request request : chunk) {
+                    closeQuietly(request.connection.key);
+                }
+            }
+        }
+        batch.clear();
+    }
+
+    /**
+     * Utility method.
+     * Solves a batch of requests on a worker and queues their responses.
+     * Requests of one connection are adjacent in a batch,
+     * so their responses are written into one buffer.
+     */
+    private void solveBatch(Request[] requests) {
+        int from = 0;
+        while (from < requests.length) {
+            Connection connection = requests[from].connection;
+            int to = from + 1;
+            while (to < requests.length && requests[to].connection == connection) {
+                to++;
+            }
+
+            double[] results = new double[to - from];
+            byte[][] errors = new byte[to - from][];
+            int size = 0;
+            for (int i = from; i < to; i++) {
+                try {
+                    results[i - from] = solver.solve(requests[i].task);
+                } catch (RuntimeException e) {
+                    errors[i - from] = String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8);
+                }
+                size += Protocol.responseSize(errors[i - from] == null ? -1 : errors[i - from].length);
+            }
+            ByteBuffer responses = ByteBuffer.allocate(size);
+            for (int i = from; i < to; i++) {
+                if (errors[i - from] == null) {
+                    Protocol.putResult(responses, requests[i].id, results[i - from]);
+                } else {
+                    Protocol.putError(responses, requests[i].id, errors[i - from]);
+                }
+            }
+            connection.queuedBytes.addAndGet(responses.flip().remaining());
+            connection.responses.add(responses);
+            connection.inFlight.addAndGet(from - to);
+            pendingWrites.add(connection);
+            from = to;
+        }
+        selector.wakeup();
+    }
+
+    private static void closeQuietly(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Utility method.
+     * Creates a pool of daemon threads, one per processor.
+     */
+    private static ExecutorService createDefaultExecutor() {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "solver-server-worker-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * State of a client connection.
+     */
+    private static final class Connection {
+
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        /**
+         * Encoded responses to write, filled by workers.
+         */
+        private final Queue<ByteBuffer> responses = new ConcurrentLinkedQueue<>();
+        /**
+         * Count of decoded requests without queued responses.
+         */
+        private final AtomicInteger inFlight = new AtomicInteger();
+        /**
+         * Size of queued responses not yet written to the socket.
+         */
+        private final AtomicLong queuedBytes = new AtomicLong();
+        /**
+         * Buffer of incoming data, accessed by the selector thread only.
+         */
+        private ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        /**
+         * Response being written, accessed by the selector thread only.
+         */
+        private ByteBuffer writing;
+
+        Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+    }
+
+    /**
+     * Decoded request.
+     */
+    private static final class Request {
+
+        private final Connection connection;
+        private final long id;
+        private final String task;
+
+        Request(Connection connection, long id, String task) {
+            this.connection = connection;
+            this.id = id;
+            this.task = task;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+import by.epam.training.solvers.exception.SolverException;
+import by.epam.training.solvers.mathematical.ReversePolishNotationSolver;
+import by.epam.training.solvers.server.SolverClient;
+import by.epam.training.solvers.server.SolverServer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+public class SolverServerTest {
+
+    @Test
+    public void solverServer_solveTest() throws IOException {
+        try (SolverServer server = new SolverServer(new ReversePolishNotationSolver()).start();
+             SolverClient client = new SolverClient(server.getAddress())) {
+
+            double result = client.solve("(51/3)+5/2-56+(2-4)");
+
+            Assert.assertEquals(-38.5, result, 0.001);
+        }
+
+    }
+
+    @Test
+    public void solverServer_pipelinedRequestsTest() throws IOException {
+        try (SolverServer server = new SolverServer(new ReversePolishNotationSolver()).start();
+             SolverClient client = new SolverClient(server.getAddress())) {
+            List<String> tasks = new ArrayList<>();
+            for (int i = 0; i < 10_000; i++) {
+                tasks.add(i % 100 == 0 ? "1/(" + i + "-" + i + ")" : i + "*2+1");
+            }
+
+            List<CompletableFuture<Double>> results = client.solveAll(tasks);
+            CompletableFuture<Double> single = client.solveAsync("2+2");
+
+            for (int i = 0; i < tasks.size(); i++) {
+                if (i % 100 == 0) {
+                    try {
+                        results.get(i).join();
+                        Assert.fail();
+                    } catch (CompletionException e) {
+                        Assert.assertTrue(e.getCause() instanceof SolverException);
+                    }
+                } else {
+                    Assert.assertEquals(i * 2 + 1, results.get(i).join(), 0);
+                }
+            }
+            Assert.assertEquals(4, single.join(), 0);
+            Assert.assertEquals(0, client.getPendingCount());
+        }
+
+    }
+
+    @Test
+    public void solverServer_invalidFrameClosesConnectionTest() throws IOException {
+        try (SolverServer server = new SolverServer(new ReversePolishNotationSolver()).start();
+             SolverClient client = new SolverClient(server.getAddress());
+             Socket socket = new Socket(server.getAddress().getAddress(), server.getAddress().getPort())) {
+            DataOutputStream output = new DataOutputStream(socket.getOutputStream());
+
+            output.writeInt(Integer.MAX_VALUE);
+            output.flush();
+
+            Assert.assertEquals(-1, socket.getInputStream().read());
+            Assert.assertEquals(4, client.solve("2*2"), 0);
+        }
+
+    }
+
+    @Test(timeout = 60_000)
+    public void solverServer_clientNotReadingResponsesTest() throws Exception {
+        int count = 200_000;
+        byte[] task = "1+1".getBytes(StandardCharsets.UTF_8);
+        try (SolverServer server = new SolverServer(new ReversePolishNotationSolver()).start();
+             SolverClient client = new SolverClient(server.getAddress());
+             Socket socket = new Socket(server.getAddress().getAddress(), server.getAddress().getPort())) {
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            CompletableFuture<Void> sent = CompletableFuture.runAsync(() -> {
+                try {
+                    for (int i = 0; i < count; i++) {
+                        output.writeInt(Long.BYTES + task.length);
+                        output.writeLong(i);
+                        output.write(task);
+                    }
+                    output.flush();
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            });
+
+            double result = client.solve("2*2");
+            DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            long idSum = 0;
+            for (int i = 0; i < count; i++) {
+                input.readInt();
+                idSum += input.readLong();
+                input.readByte();
+                Assert.assertEquals(2, input.readDouble(), 0);
+            }
+            sent.join();
+
+            Assert.assertEquals(4, result, 0);
+            Assert.assertEquals((long) count * (count - 1) / 2, idSum);
+        }
+
+    }
+}
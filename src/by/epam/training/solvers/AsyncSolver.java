@@ -0,0 +1,369 @@
+package by.epam.training.solvers;
+
+import by.epam.training.solvers.exception.SolverException;
+import by.epam.training.solvers.validation.TaskValidator;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous facade of a {@code Solver}.
+ * <p>Tasks are solved on an executor, by default on virtual threads
+ * if the runtime supports them and on a pool of platform threads
+ * with one thread per processor otherwise.
+ * Results are delivered either as {@link CompletableFuture futures}
+ * or as a stream of {@link Flow.Publisher}.
+ * A {@code SolverException} fails the future of its task
+ * and is never thrown to the caller.
+ * <p>Count of tasks in flight is bounded, so that a burst of tasks
+ * cannot exhaust memory:
+ * <ul>
+ *     <li>{@link #solveAsync(String)} blocks the caller while
+ *     the limit is reached;
+ *     <li>{@link #solveAll(Flow.Publisher)} requests tasks from upstream
+ *     only as long as they fit into the limit and into demand of downstream.
+ * </ul>
+ * <p>Delegate solver must be safe for concurrent use.
+ * Instances are safe for concurrent use as well.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.1
+ */
+public class AsyncSolver implements AutoCloseable {
+
+    private static final int DEFAULT_MAX_IN_FLIGHT = 1024;
+
+    private final Solver solver;
+    private final Executor executor;
+    /**
+     * Executor created by this facade, {@code null} if it was passed in.
+     */
+    private final ExecutorService ownExecutor;
+    private final int maxInFlight;
+    /**
+     * Permits of tasks solved by {@link #solveAsync(String)}.
+     */
+    private final Semaphore permits;
+
+    /**
+     * Creates facade that solves tasks on virtual threads, if they are
+     * supported, with at most 1024 tasks in flight.
+     *
+     * @param solver Solver of tasks.
+     */
+    public AsyncSolver(Solver solver) {
+        this(solver, createDefaultExecutor(), DEFAULT_MAX_IN_FLIGHT, true);
+    }
+
+    /**
+     * Creates facade that solves tasks on given executor.
+     * The executor is not shut down by {@link #close()}.
+     *
+     * @param solver      Solver of tasks.
+     * @param executor    Executor that runs solution of each task.
+     * @param maxInFlight Maximal count of tasks submitted but not solved yet.
+     * @throws IllegalArgumentException if {@code maxInFlight} is not positive.
+     */
+    public AsyncSolver(Solver solver, Executor executor, int maxInFlight) {
+        this(solver, executor, maxInFlight, false);
+    }
+
+    private AsyncSolver(Solver solver, Executor executor, int maxInFlight, boolean ownExecutor) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("Maximal count of tasks in flight must be positive: " + maxInFlight);
+        }
+        this.solver = solver;
+        this.executor = executor;
+        this.ownExecutor = ownExecutor ? (ExecutorService) executor : null;
+        this.maxInFlight = maxInFlight;
+        this.permits = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Solves given task asynchronously.
+     * Blocks while maximal count of tasks is in flight.
+     *
+     * @param task String task to solve.
+     * @return Future result of solution. Fails with {@code SolverException}
+     * if the task cannot be solved, if the facade is closed
+     * or if the caller is interrupted while waiting. Fails with
+     * the exception or error thrown by the solver otherwise.
+     */
+    public CompletableFuture<Double> solveAsync(String task) {
+        return solveAsync(task, null);
+    }
+
+    /**
+     * Solves given task asynchronously using custom validator.
+     * Blocks while maximal count of tasks is in flight.
+     *
+     * @param task      String task to solve.
+     * @param validator The validator used to validate the task,
+     *                  {@code null} to use default validation of the solver.
+     * @return Future result of solution. Fails with {@code SolverException}
+     * if the task cannot be solved, if the facade is closed
+     * or if the caller is interrupted while waiting. Fails with
+     * the exception or error thrown by the solver otherwise.
+     * @see Solver#solve(String, TaskValidator)
+     */
+    public CompletableFuture<Double> solveAsync(String task, TaskValidator validator) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(new SolverException("Interrupted while waiting to solve.", e));
+        }
+        CompletableFuture<Double> future = submit(task, validator);
+        future.whenComplete((result, exception) -> permits.release());
+        return future;
+    }
+
+    /**
+     * Solves a stream of tasks.
+     * <p>Each subscriber receives results of all tasks of its own
+     * subscription to {@code tasks}, in order of tasks.
+     * Tasks are solved in parallel, with at most the maximal count
+     * of tasks in flight per subscription, and are requested
+     * from {@code tasks} only when downstream has demanded their results.
+     * <p>The stream fails with the exception of the first task
+     * that cannot be solved, and subscription to tasks is cancelled then.
+     *
+     * @param tasks Publisher of tasks.
+     * @return Publisher of results.
+     */
+    public Flow.Publisher<Double> solveAll(Flow.Publisher<String> tasks) {
+        return subscriber -> tasks.subscribe(new SolvingSubscription(subscriber));
+    }
+
+    /**
+     * Shuts down the executor if it was created by this facade.
+     * Tasks that are already submitted are solved.
+     */
+    @Override
+    public void close() {
+        if (ownExecutor != null) {
+            ownExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Utility method.
+     * Submits solution of a task to the executor.
+     */
+    private CompletableFuture<Double> submit(String task, TaskValidator validator) {
+        CompletableFuture<Double> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(validator == null ? solver.solve(task) : solver.solve(task, validator));
+                } catch (Throwable e) {
+                    // the future must complete in any case, otherwise its permit is never released
+                    future.completeExceptionally(e);
+                    if (e instanceof Error) {
+                        throw (Error) e;
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(new SolverException("Solver is closed.", e));
+        }
+        return future;
+    }
+
+    /**
+     * Utility method.
+     * Creates an executor that starts a virtual thread per task
+     * if the runtime supports virtual threads, or a pool of daemon
+     * platform threads otherwise.
+     * Looked up reflectively, as the library targets runtimes without them.
+     */
+    private static ExecutorService createDefaultExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+                Thread thread = new Thread(runnable, "async-solver");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Subscription that receives tasks from upstream
+     * and delivers their results to downstream in the same order.
+     * <p>All signals to downstream are emitted by a single drain loop,
+     * which is entered by whichever thread changes the state.
+     */
+    private final class SolvingSubscription implements Flow.Subscriber<String>, Flow.Subscription {
+
+        private final Flow.Subscriber<? super Double> downstream;
+        /**
+         * Results of received tasks, in order of tasks.
+         */
+        private final Queue<CompletableFuture<Double>> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        /**
+         * Count of tasks requested from upstream but not received yet.
+         */
+        private final AtomicInteger outstanding = new AtomicInteger();
+        /**
+         * Count of results requested by downstream but not delivered yet.
+         */
+        private final AtomicLong demand = new AtomicLong();
+        /**
+         * Count of requests to run the drain loop.
+         */
+        private final AtomicInteger drainRequests = new AtomicInteger();
+        private volatile Flow.Subscription upstream;
+        private volatile boolean upstreamDone;
+        private volatile Throwable upstreamError;
+        /**
+         * Violation of the rules of {@link Flow.Subscription#request(long)}
+         * by downstream, {@code null} if there is none.
+         */
+        private volatile IllegalArgumentException invalidRequest;
+        private volatile boolean cancelled;
+        private boolean terminated;
+
+        SolvingSubscription(Flow.Subscriber<? super Double> downstream) {
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            upstream = subscription;
+            downstream.onSubscribe(this);
+            drain();
+        }
+
+        @Override
+        public void onNext(String task) {
+            outstanding.decrementAndGet();
+            if (cancelled) {
+                return;
+            }
+            CompletableFuture<Double> future = submit(task, null);
+            pending.add(future);
+            pendingCount.incrementAndGet();
+            future.whenComplete((result, exception) -> drain());
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            upstreamError = throwable;
+            upstreamDone = true;
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            upstreamDone = true;
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Count of requested results must be positive: " + n);
+            } else {
+                demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            Flow.Subscription subscription = upstream;
+            if (subscription != null) {
+                subscription.cancel();
+            }
+        }
+
+        /**
+         * Utility method.
+         * Delivers completed results, terminates downstream
+         * and requests more tasks, as far as the state allows.
+         */
+        private void drain() {
+            if (drainRequests.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                if (!terminated && !cancelled) {
+                    emit();
+                }
+                missed = drainRequests.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        /**
+         * Utility method.
+         * Body of the drain loop.
+         */
+        private void emit() {
+            if (invalidRequest != null) {
+                fail(invalidRequest);
+                return;
+            }
+
+            CompletableFuture<Double> head;
+            while (demand.get() > 0 && (head = pending.peek()) != null && head.isDone()) {
+                pending.poll();
+                pendingCount.decrementAndGet();
+                double result;
+                try {
+                    result = head.join();
+                } catch (CompletionException e) {
+                    fail(e.getCause());
+                    return;
+                }
+                demand.decrementAndGet();
+                downstream.onNext(result);
+            }
+
+            if (upstreamDone && pending.isEmpty()) {
+                terminated = true;
+                if (upstreamError != null) {
+                    downstream.onError(upstreamError);
+                } else {
+                    downstream.onComplete();
+                }
+                return;
+            }
+
+            Flow.Subscription subscription = upstream;
+            if (subscription == null || upstreamDone) {
+                return;
+            }
+            long inFlight = pendingCount.get() + outstanding.get();
+            long wanted = Math.min(maxInFlight, demand.get()) - inFlight;
+            if (wanted > 0) {
+                outstanding.addAndGet((int) wanted);
+                subscription.request(wanted);
+            }
+        }
+
+        /**
+         * Utility method.
+         * Terminates downstream with an error and cancels upstream.
+         */
+        private void fail(Throwable throwable) {
+            terminated = true;
+            cancel();
+            downstream.onError(throwable);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package by.epam.training.solvers;
+
+import by.epam.training.solvers.exception.SolverException;
+
+/**
+ * Results of solving a batch of tasks.
+ * <p>Holds a result for every task that was solved
+ * and an exception for every task that failed.
+ * Failure of one task does not affect others.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.0
+ * @see Solver#solveAllCollectingErrors(java.util.List)
+ */
+public final class BatchSolution {
+
+    private final double[] results;
+    private final SolverException[] errors;
+    private final int errorCount;
+
+    BatchSolution(double[] results, SolverException[] errors) {
+        this.results = results;
+        this.errors = errors;
+        int count = 0;
+        for (SolverException error : errors) {
+            if (error != null) {
+                count++;
+            }
+        }
+        this.errorCount = count;
+    }
+
+    /**
+     * @return Count of tasks in the batch.
+     */
+    public int size() {
+        return results.length;
+    }
+
+    /**
+     * Retrieves result of a task.
+     *
+     * @param index Index of the task in the batch.
+     * @return Result of solution, {@code Double.NaN} if the task failed.
+     */
+    public double getResult(int index) {
+        return results[index];
+    }
+
+    /**
+     * @return Copy of results of all tasks in batch order.
+     * Failed tasks have {@code Double.NaN} as their result.
+     */
+    public double[] getResults() {
+        return results.clone();
+    }
+
+    /**
+     * Retrieves an error of a task.
+     *
+     * @param index Index of the task in the batch.
+     * @return Exception thrown while solving the task,
+     * {@code null} if the task was solved.
+     */
+    public SolverException getError(int index) {
+        return errors[index];
+    }
+
+    /**
+     * @return {@code true} if at least one task failed,
+     * {@code false} otherwise.
+     */
+    public boolean hasErrors() {
+        return errorCount > 0;
+    }
+
+    /**
+     * @return Count of failed tasks.
+     */
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * @return Indices of failed tasks in ascending order.
+     */
+    public int[] getFailedIndices() {
+        int[] indices = new int[errorCount];
+        int count = 0;
+        for (int i = 0; i < errors.length; i++) {
+            if (errors[i] != null) {
+                indices[count++] = i;
+            }
+        }
+        return indices;
+    }
+}
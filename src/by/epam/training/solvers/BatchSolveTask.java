@@ -0,0 +1,71 @@
+package by.epam.training.solvers;
+
+import by.epam.training.solvers.exception.SolverException;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork-join task that solves a range of a batch of tasks.
+ * <p>Splits the range in halves until it is small enough,
+ * then solves tasks of the range one by one.
+ * Result or exception of each task is stored by its index,
+ * so that a task failing in any way does not affect the others.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.1
+ */
+final class BatchSolveTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Count of tasks that is solved without further splitting.
+     */
+    private static final int SEQUENTIAL_THRESHOLD = 256;
+
+    private final transient Solver solver;
+    private final String[] tasks;
+    private final double[] results;
+    /**
+     * Exceptions of failed tasks,
+     * {@code null} if exceptions are not collected.
+     */
+    private final SolverException[] errors;
+    private final int from;
+    private final int to;
+
+    BatchSolveTask(Solver solver, String[] tasks, double[] results,
+                   SolverException[] errors, int from, int to) {
+        this.solver = solver;
+        this.tasks = tasks;
+        this.results = results;
+        this.errors = errors;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= SEQUENTIAL_THRESHOLD) {
+            solveSequentially();
+            return;
+        }
+
+        int middle = (from + to) >>> 1;
+        invokeAll(new BatchSolveTask(solver, tasks, results, errors, from, middle),
+                new BatchSolveTask(solver, tasks, results, errors, middle, to));
+    }
+
+    private void solveSequentially() {
+        for (int i = from; i < to; i++) {
+            try {
+                results[i] = solver.solve(tasks[i]);
+            } catch (RuntimeException e) {
+                results[i] = Double.NaN;
+                if (errors != null) {
+                    errors[i] = e instanceof SolverException ? (SolverException) e : new SolverException(e);
+                }
+            }
+        }
+    }
+}
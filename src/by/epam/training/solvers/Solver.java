@@ -1,12 +1,16 @@
 package by.epam.training.solvers;
 
+import by.epam.training.solvers.exception.SolverException;
 import by.epam.training.solvers.validation.TaskValidator;
 
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * A general interface for all kinds of Solver objects.
  *
  * @author Baranovsky E. K.
- * @version 1.0
+ * @version 1.1
  */
 public interface Solver {
 
@@ -31,4 +35,71 @@ public interface Solver {
      */
     double solve(String task, TaskValidator validator);
 
+    /**
+     * Solves a batch of tasks in parallel
+     * using common fork-join pool.
+     *
+     * @param tasks String tasks to solve.
+     * @return Results of solution in order of tasks.
+     * Failed tasks have {@code Double.NaN} as their result.
+     * @see #solveAll(List, ForkJoinPool)
+     */
+    default double[] solveAll(List<String> tasks) {
+        return solveAll(tasks, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Solves a batch of tasks in parallel.
+     * <p>The batch is split between threads of {@code pool}.
+     * Failure of a task does not abort the batch.
+     * Implementation must be safe for concurrent use.
+     *
+     * @param tasks String tasks to solve.
+     * @param pool  Pool that executes solution.
+     * @return Results of solution in order of tasks.
+     * Failed tasks have {@code Double.NaN} as their result.
+     */
+    default double[] solveAll(List<String> tasks, ForkJoinPool pool) {
+        String[] taskArray = tasks.toArray(new String[0]);
+        double[] results = new double[taskArray.length];
+        pool.invoke(new BatchSolveTask(this, taskArray, results, null, 0, taskArray.length));
+        return results;
+    }
+
+    /**
+     * Solves a batch of tasks in parallel
+     * using common fork-join pool
+     * and collects errors of failed tasks.
+     *
+     * @param tasks String tasks to solve.
+     * @return Results and errors of solution.
+     * @see #solveAllCollectingErrors(List, ForkJoinPool)
+     */
+    default BatchSolution solveAllCollectingErrors(List<String> tasks) {
+        return solveAllCollectingErrors(tasks, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Solves a batch of tasks in parallel
+     * and collects errors of failed tasks.
+     * <p>The batch is split between threads of {@code pool}.
+     * Failure of a task does not abort the batch:
+     * its {@code SolverException} is stored in the solution.
+     * Other runtime exceptions are stored wrapped into {@code SolverException}.
+     * Implementation must be safe for concurrent use.
+     *
+     * @param tasks String tasks to solve.
+     * @param pool  Pool that executes solution.
+     * @return Results and errors of solution.
+     * @see BatchSolution
+     * @see SolverException
+     */
+    default BatchSolution solveAllCollectingErrors(List<String> tasks, ForkJoinPool pool) {
+        String[] taskArray = tasks.toArray(new String[0]);
+        double[] results = new double[taskArray.length];
+        SolverException[] errors = new SolverException[taskArray.length];
+        pool.invoke(new BatchSolveTask(this, taskArray, results, errors, 0, taskArray.length));
+        return new BatchSolution(results, errors);
+    }
+
 }
@@ -0,0 +1,50 @@
+package by.epam.training.solvers.exception;
+
+/**
+ * Exception thrown when a task violates
+ * syntax of a mathematical expression.
+ * <p>Holds position of the first violation in the task.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.2
+ */
+public class ExpressionSyntaxException extends SolverException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int position;
+
+    /**
+     * Creates exception for a syntax violation.
+     *
+     * @param message  Description of the violation.
+     * @param position Position of the violation in the task,
+     *                 {@code -1} if it is unknown.
+     */
+    public ExpressionSyntaxException(String message, int position) {
+        super(position < 0 ? message : message + " at position " + position + ".");
+        this.position = position;
+    }
+
+    /**
+     * Creates exception for a syntax violation that was already reported,
+     * for example by a failed compilation kept in cache.
+     *
+     * @param message  Complete message of the reported exception.
+     * @param position Position of the violation in the task,
+     *                 {@code -1} if it is unknown.
+     * @param cause    Cause of the reported exception, may be {@code null}.
+     */
+    public ExpressionSyntaxException(String message, int position, Throwable cause) {
+        super(message, cause);
+        this.position = position;
+    }
+
+    /**
+     * @return Position of the violation in the task,
+     * {@code -1} if it is unknown.
+     */
+    public int getPosition() {
+        return position;
+    }
+}
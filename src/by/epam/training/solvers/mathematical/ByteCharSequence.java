@@ -0,0 +1,58 @@
+package by.epam.training.solvers.mathematical;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reusable view of a region of a byte buffer as a sequence of chars.
+ * <p>Each byte is read as one Latin-1 char, which covers
+ * all symbols of mathematical expressions. Bytes are not copied:
+ * the view is moved over the buffer with {@link #reset(int, int)}.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.0
+ */
+final class ByteCharSequence implements CharSequence {
+
+    private final ByteBuffer buffer;
+    private int offset;
+    private int length;
+
+    ByteCharSequence(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Moves the view to another region of the buffer.
+     *
+     * @param offset Index of the first byte of the region.
+     * @param length Count of bytes in the region.
+     */
+    void reset(int offset, int length) {
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (buffer.get(offset + index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        StringBuilder builder = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            builder.append(charAt(i));
+        }
+        return builder;
+    }
+
+    @Override
+    public String toString() {
+        return subSequence(0, length).toString();
+    }
+}
@@ -0,0 +1,361 @@
+package by.epam.training.solvers.mathematical;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Generates JVM bytecode for compiled expressions.
+ * <p>An RPN program maps directly onto the operand stack of the JVM:
+ * each instruction becomes one or a few bytecode instructions
+ * of a single straight-line method, which is then defined
+ * as a hidden class implementing {@link ExpressionEvaluator}.
+ * JIT compiler handles such method as hand-written arithmetic.
+ * Calls of functions implemented by methods of {@link Math}
+ * become direct calls of these methods.
+ * <p>Programs with calls of other functions or with registered operators
+ * are not supported, they keep being interpreted.
+ * <p>Generation is refused for programs whose method would be too large
+ * to be compiled by JIT, as interpreting such method in JVM
+ * is slower than interpreting the RPN program itself.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.2
+ */
+final class BytecodeGenerator {
+
+    /**
+     * Maximal size of generated method in bytes.
+     * Larger methods are not compiled by HotSpot JIT by default.
+     */
+    private static final int MAX_CODE_LENGTH = 8000;
+    private static final String CLASS_NAME =
+            BytecodeGenerator.class.getPackageName().replace('.', '/') + "/GeneratedExpression";
+
+    private static final int CLASS_FILE_VERSION = 52;
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    private static final int ICONST_0 = 0x03;
+    private static final int DCONST_0 = 0x0e;
+    private static final int DCONST_1 = 0x0f;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int LDC_W = 0x13;
+    private static final int LDC2_W = 0x14;
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int DALOAD = 0x31;
+    private static final int DADD = 0x63;
+    private static final int DSUB = 0x67;
+    private static final int DMUL = 0x6b;
+    private static final int DRETURN = 0xaf;
+    private static final int RETURN = 0xb1;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKESTATIC = 0xb8;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private final ByteArrayOutputStream constantPoolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream constantPool = new DataOutputStream(constantPoolBytes);
+    private final Map<Object, Integer> constantIndices = new HashMap<>();
+    private int constantPoolCount = 1;
+
+    private BytecodeGenerator() {
+    }
+
+    /**
+     * Generates an evaluator for an RPN program.
+     *
+     * @param instructions  Encoded instructions in RPN order.
+     * @param constants     Constants referenced by instructions.
+     * @param functions     Functions called by instructions.
+     * @param maxStackDepth Maximal depth of calculation stack.
+     * @return Evaluator backed by a hidden class,
+     * {@code null} if the program is too large or not supported
+     * or bytecode cannot be defined.
+     */
+    static ExpressionEvaluator generate(int[] instructions, double[] constants, MathFunction[] functions,
+                                        int maxStackDepth) {
+        try {
+            byte[] classBytes = new BytecodeGenerator().generateClass(instructions, constants, functions,
+                    maxStackDepth);
+            if (classBytes == null) {
+                return null;
+            }
+            MethodHandles.Lookup lookup = MethodHandles.lookup()
+                    .defineHiddenClass(classBytes, true);
+            return instantiate(lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class)));
+        } catch (VerifyError | ClassFormatError e) {
+            // generated bytecode is malformed, which is a bug of the generator
+            throw e;
+        } catch (ReflectiveOperationException | LinkageError | IllegalArgumentException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Utility method.
+     * Creates an instance of a generated evaluator.
+     *
+     * @param constructor Constructor of the evaluator without arguments.
+     * @return New evaluator.
+     */
+    private static ExpressionEvaluator instantiate(MethodHandle constructor) {
+        try {
+            return (ExpressionEvaluator) constructor.invoke();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+
+    /**
+     * Builds class file of the evaluator.
+     *
+     * @return Bytes of the class file, {@code null} if method is too large or not supported.
+     */
+    private byte[] generateClass(int[] instructions, double[] constants, MathFunction[] functions,
+                                 int maxStackDepth) throws IOException {
+        byte[] evaluateCode = generateEvaluateCode(instructions, constants, functions);
+        if (evaluateCode == null) {
+            return null;
+        }
+
+        int thisClass = classConstant(CLASS_NAME);
+        int superClass = classConstant("java/lang/Object");
+        int evaluatorInterface = classConstant(ExpressionEvaluator.class.getName().replace('.', '/'));
+        int objectConstructor = methodConstant("java/lang/Object", "<init>", "()V");
+        int constructorName = utf8Constant("<init>");
+        int constructorDescriptor = utf8Constant("()V");
+        int evaluateName = utf8Constant("evaluate");
+        int evaluateDescriptor = utf8Constant("([D)D");
+        int codeAttributeName = utf8Constant("Code");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0xCAFEBABE);
+        out.writeShort(0);
+        out.writeShort(CLASS_FILE_VERSION);
+        out.writeShort(constantPoolCount);
+        constantPool.flush();
+        constantPoolBytes.writeTo(out);
+        out.writeShort(ACC_FINAL | ACC_SUPER);
+        out.writeShort(thisClass);
+        out.writeShort(superClass);
+        out.writeShort(1);
+        out.writeShort(evaluatorInterface);
+        out.writeShort(0);
+
+        out.writeShort(2);
+        byte[] constructorCode = {
+                (byte) ALOAD_0,
+                (byte) INVOKESPECIAL, (byte) (objectConstructor >> 8), (byte) objectConstructor,
+                (byte) RETURN
+        };
+        writeMethod(out, constructorName, constructorDescriptor, codeAttributeName, 1, 1, constructorCode);
+        // two slots per double value, plus array reference and index of a variable
+        writeMethod(out, evaluateName, evaluateDescriptor, codeAttributeName,
+                maxStackDepth * 2 + 2, 2, evaluateCode);
+
+        out.writeShort(0);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Translates RPN instructions into body of {@code evaluate} method.
+     *
+     * @return Bytecode of the method, {@code null} if it is too large or not supported.
+     */
+    private byte[] generateEvaluateCode(int[] instructions, double[] constants, MathFunction[] functions)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream code = new DataOutputStream(bytes);
+        int divide = methodConstant(MathOperationProvider.class.getName().replace('.', '/'),
+                "divide", "(DD)D");
+
+        for (int instruction : instructions) {
+            int operand = Instructions.operand(instruction);
+
+            switch (Instructions.opcode(instruction)) {
+                case Instructions.PUSH_CONSTANT:
+                    writePushConstant(code, constants[operand]);
+                    break;
+                case Instructions.LOAD_VARIABLE:
+                    code.writeByte(ALOAD_1);
+                    writePushInt(code, operand);
+                    code.writeByte(DALOAD);
+                    break;
+                case Instructions.ADD:
+                    code.writeByte(DADD);
+                    break;
+                case Instructions.SUBTRACT:
+                    code.writeByte(DSUB);
+                    break;
+                case Instructions.MULTIPLY:
+                    code.writeByte(DMUL);
+                    break;
+                case Instructions.DIVIDE:
+                    code.writeByte(INVOKESTATIC);
+                    code.writeShort(divide);
+                    break;
+                case Instructions.CALL_FUNCTION:
+                    MathFunction function = functions[operand];
+                    if (function.mathMethod() == null) {
+                        return null;
+                    }
+                    code.writeByte(INVOKESTATIC);
+                    code.writeShort(methodConstant("java/lang/Math", function.mathMethod(),
+                            "(" + "D".repeat(function.getArity()) + ")D"));
+                    break;
+                default:
+                    return null;
+            }
+
+            if (code.size() > MAX_CODE_LENGTH) {
+                return null;
+            }
+        }
+
+        code.writeByte(DRETURN);
+        return bytes.toByteArray();
+    }
+
+    private void writePushConstant(DataOutputStream code, double value) throws IOException {
+        if (Double.doubleToRawLongBits(value) == 0L) {
+            code.writeByte(DCONST_0);
+        } else if (value == 1.0) {
+            code.writeByte(DCONST_1);
+        } else {
+            code.writeByte(LDC2_W);
+            code.writeShort(doubleConstant(value));
+        }
+    }
+
+    private void writePushInt(DataOutputStream code, int value) throws IOException {
+        if (value <= 5) {
+            code.writeByte(ICONST_0 + value);
+        } else if (value <= Byte.MAX_VALUE) {
+            code.writeByte(BIPUSH);
+            code.writeByte(value);
+        } else if (value <= Short.MAX_VALUE) {
+            code.writeByte(SIPUSH);
+            code.writeShort(value);
+        } else {
+            code.writeByte(LDC_W);
+            code.writeShort(integerConstant(value));
+        }
+    }
+
+    private static void writeMethod(DataOutputStream out, int name, int descriptor, int codeAttributeName,
+                                    int maxStack, int maxLocals, byte[] code) throws IOException {
+        out.writeShort(ACC_PUBLIC);
+        out.writeShort(name);
+        out.writeShort(descriptor);
+        out.writeShort(1);
+        out.writeShort(codeAttributeName);
+        out.writeInt(2 + 2 + 4 + code.length + 2 + 2);
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(code.length);
+        out.write(code);
+        out.writeShort(0);
+        out.writeShort(0);
+    }
+
+    private int utf8Constant(String value) throws IOException {
+        Integer index = constantIndices.get(value);
+        if (index == null) {
+            constantPool.writeByte(CONSTANT_UTF8);
+            constantPool.writeUTF(value);
+            index = addConstant(value, 1);
+        }
+        return index;
+    }
+
+    private int classConstant(String internalName) throws IOException {
+        String key = "Class:" + internalName;
+        Integer index = constantIndices.get(key);
+        if (index == null) {
+            int name = utf8Constant(internalName);
+            constantPool.writeByte(CONSTANT_CLASS);
+            constantPool.writeShort(name);
+            index = addConstant(key, 1);
+        }
+        return index;
+    }
+
+    private int methodConstant(String owner, String name, String descriptor) throws IOException {
+        String key = "Method:" + owner + "." + name + descriptor;
+        Integer index = constantIndices.get(key);
+        if (index != null) {
+            return index;
+        }
+        int ownerClass = classConstant(owner);
+        int methodName = utf8Constant(name);
+        int methodDescriptor = utf8Constant(descriptor);
+
+        constantPool.writeByte(CONSTANT_NAME_AND_TYPE);
+        constantPool.writeShort(methodName);
+        constantPool.writeShort(methodDescriptor);
+        int nameAndType = addConstant(new Object(), 1);
+
+        constantPool.writeByte(CONSTANT_METHODREF);
+        constantPool.writeShort(ownerClass);
+        constantPool.writeShort(nameAndType);
+        return addConstant(key, 1);
+    }
+
+    private int doubleConstant(double value) throws IOException {
+        Long key = Double.doubleToRawLongBits(value);
+        Integer index = constantIndices.get(key);
+        if (index == null) {
+            constantPool.writeByte(CONSTANT_DOUBLE);
+            constantPool.writeDouble(value);
+            index = addConstant(key, 2);
+        }
+        return index;
+    }
+
+    private int integerConstant(int value) throws IOException {
+        Integer index = constantIndices.get(value);
+        if (index == null) {
+            constantPool.writeByte(CONSTANT_INTEGER);
+            constantPool.writeInt(value);
+            index = addConstant(value, 1);
+        }
+        return index;
+    }
+
+    /**
+     * Utility method.
+     * Registers a written constant pool entry.
+     *
+     * @param key   Key used to find the entry again.
+     * @param slots Count of constant pool slots taken by the entry.
+     * @return Index of the entry.
+     */
+    private int addConstant(Object key, int slots) {
+        int index = constantPoolCount;
+        constantPoolCount += slots;
+        constantIndices.put(key, index);
+        return index;
+    }
+}
@@ -0,0 +1,254 @@
+package by.epam.training.solvers.mathematical;
+
+import by.epam.training.solvers.exception.ExpressionSyntaxException;
+import by.epam.training.solvers.exception.SolverException;
+import by.epam.training.solvers.validation.TaskValidator;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decorator of {@code MathematicalExpressionSolver}
+ * that caches compiled expressions by their strings.
+ * <p>The cache is bounded: when it is full, least recently used
+ * expressions are evicted. It is split into independently locked segments,
+ * so it can be safely used from many threads at once.
+ * <p>Expressions that failed to compile are cached as well,
+ * so repeated invalid input is rejected without validating it again.
+ * Such expressions are rejected by throwing a new exception
+ * with the same type, message and cause as the one
+ * thrown by the first attempt.
+ * <p>Expressions compiled with a custom validator are not cached.
+ * <p>Delegate solver must be safe for concurrent use,
+ * as expressions missing in cache are compiled
+ * by calling threads in parallel.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.2
+ */
+public class CachingExpressionSolver implements MathematicalExpressionSolver {
+
+    /**
+     * Maximal count of segments of the cache.
+     */
+    private static final int MAX_SEGMENTS = 16;
+    private static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+    private final MathematicalExpressionSolver delegate;
+    private final Segment[] segments;
+    private final int segmentMask;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * Creates caching solver around {@code ReversePolishNotationSolver}
+     * with default maximal size of the cache.
+     */
+    public CachingExpressionSolver() {
+        this(new ReversePolishNotationSolver(), DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * Creates caching solver.
+     *
+     * @param delegate    Solver that compiles expressions missing in cache.
+     * @param maximumSize Maximal count of cached expressions.
+     * @throws IllegalArgumentException if {@code maximumSize} is not positive.
+     */
+    public CachingExpressionSolver(MathematicalExpressionSolver delegate, int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+        }
+        this.delegate = delegate;
+
+        int segmentsCount = Integer.highestOneBit(Math.min(MAX_SEGMENTS, maximumSize));
+        this.segments = new Segment[segmentsCount];
+        for (int i = 0; i < segmentsCount; i++) {
+            // capacities of segments sum up exactly to maximumSize
+            int segmentCapacity = maximumSize / segmentsCount + (i < maximumSize % segmentsCount ? 1 : 0);
+            segments[i] = new Segment(segmentCapacity, evictionCount);
+        }
+        this.segmentMask = segmentsCount - 1;
+    }
+
+    @Override
+    public double solve(String expression) {
+        return compile(expression).evaluate();
+    }
+
+    @Override
+    public double solve(String expression, TaskValidator validator) {
+        return delegate.solve(expression, validator);
+    }
+
+    /**
+     * Retrieves compiled expression from cache,
+     * or compiles it with delegate solver if it is absent.
+     *
+     * @param expression Expression to compile.
+     * @return Compiled expression.
+     * @throws SolverException if expression is invalid,
+     *                         either now or in a cached previous attempt.
+     */
+    @Override
+    public CompiledExpression compile(String expression) {
+        if (expression == null) {
+            return delegate.compile(null);
+        }
+
+        Segment segment = segments[spread(expression.hashCode()) & segmentMask];
+        Object cached;
+        synchronized (segment) {
+            cached = segment.get(expression);
+        }
+
+        if (cached != null) {
+            hitCount.increment();
+            return unwrap(cached);
+        }
+
+        missCount.increment();
+        Object compiled;
+        SolverException failure = null;
+        try {
+            compiled = delegate.compile(expression);
+        } catch (SolverException e) {
+            failure = e;
+            compiled = new Failure(e);
+        }
+
+        synchronized (segment) {
+            Object raced = segment.putIfAbsent(expression, compiled);
+            if (raced != null) {
+                return unwrap(raced);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return (CompiledExpression) compiled;
+    }
+
+    @Override
+    public CompiledExpression compile(String expression, TaskValidator validator) {
+        return delegate.compile(expression, validator);
+    }
+
+    /**
+     * @return Count of expressions found in cache,
+     * including cached invalid expressions.
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * @return Count of expressions that were absent in cache.
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * @return Count of expressions evicted from cache
+     * because it was full.
+     */
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * @return Current count of cached expressions.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Utility method.
+     * Converts a cache entry into result of compilation.
+     *
+     * @param cached Either compiled expression or failure of compilation.
+     * @return Compiled expression.
+     * @throws SolverException if the entry is a failure.
+     */
+    private static CompiledExpression unwrap(Object cached) {
+        if (cached instanceof Failure) {
+            throw ((Failure) cached).toException();
+        }
+        return (CompiledExpression) cached;
+    }
+
+    /**
+     * Utility method.
+     * Spreads higher bits of hash code to lower ones,
+     * as segment is chosen by lower bits.
+     */
+    private static int spread(int hashCode) {
+        return hashCode ^ (hashCode >>> 16);
+    }
+
+    /**
+     * Failed compilation kept in cache.
+     * Holds what is needed to report the failure again, rather than
+     * the exception itself, so that each rejection throws a new exception
+     * with the stack trace of its caller.
+     */
+    private static final class Failure {
+
+        private final String message;
+        private final Throwable cause;
+        private final boolean syntaxViolation;
+        private final int position;
+
+        Failure(SolverException exception) {
+            this.message = exception.getMessage();
+            this.cause = exception.getCause();
+            this.syntaxViolation = exception instanceof ExpressionSyntaxException;
+            this.position = syntaxViolation ? ((ExpressionSyntaxException) exception).getPosition() : -1;
+        }
+
+        SolverException toException() {
+            return syntaxViolation ? new ExpressionSyntaxException(message, position, cause)
+                    : new SolverException(message, cause);
+        }
+    }
+
+    /**
+     * One independently locked part of the cache.
+     * Keeps entries in access order and evicts
+     * the least recently used one when capacity is exceeded.
+     * Must be accessed only while holding its monitor.
+     */
+    private static final class Segment extends LinkedHashMap<String, Object> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+        private final transient LongAdder evictionCount;
+
+        Segment(int capacity, LongAdder evictionCount) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictionCount = evictionCount;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+            if (size() > capacity) {
+                evictionCount.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
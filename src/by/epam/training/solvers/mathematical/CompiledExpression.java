@@ -0,0 +1,692 @@
+package by.epam.training.solvers.mathematical;
+
+import by.epam.training.solvers.exception.SolverException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Mathematical expression that is already validated
+ * and converted into reverse polish notation (RPN).
+ * <p>Instances are obtained from
+ * {@link MathematicalExpressionSolver#compile(String)}.
+ * A compiled expression is immutable and can be
+ * evaluated any number of times, from any number of threads,
+ * without repeating validation and parsing.
+ * <p>The expression is stored as a program of encoded
+ * instructions (see {@link Instructions}) that is executed
+ * on a primitive calculation stack. The program is optimized
+ * at compile time: constant subexpressions are calculated once
+ * (see {@link ExpressionOptimizer}).
+ * Evaluation does not allocate memory in a steady state.
+ * <p>An expression may contain named variables.
+ * Their values are passed to evaluation by index of a variable,
+ * either one set of values at a time or as columns of values.
+ * <p>Built-in operators are dispatched by a switch over their opcodes,
+ * registered operators (see {@link OperatorRegistry}) are dispatched
+ * by index in the table of operators the expression was compiled with.
+ * Function calls refer directly to functions bound at compile time
+ * (see {@link FunctionRegistry}).
+ * <p>Optionally, evaluation can be backed by bytecode generated
+ * for the expression, see {@link #withGeneratedBytecode()}.
+ * <p>Partial derivatives by variables are calculated together
+ * with the result in a single pass, see {@link #gradient(double...)}.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.9
+ */
+public final class CompiledExpression {
+
+    /**
+     * Count of rows evaluated together in columnar evaluation.
+     */
+    private static final int BLOCK_SIZE = 256;
+    private static final double[] NO_VALUES = new double[0];
+
+    /**
+     * Encoded instructions of an expression in RPN order.
+     */
+    private final int[] instructions;
+    /**
+     * Numerical constants referenced by instructions.
+     */
+    private final double[] constants;
+    /**
+     * Names of variables referenced by instructions.
+     */
+    private final String[] variables;
+    /**
+     * Functions called by instructions.
+     */
+    private final MathFunction[] functions;
+    /**
+     * Maximal count of arguments of called functions.
+     */
+    private final int maxArity;
+    /**
+     * Operators indexed by their opcodes.
+     */
+    private final Operator[] operators;
+    /**
+     * Maximal depth of calculation stack
+     * reached during evaluation.
+     */
+    private final int maxStackDepth;
+    /**
+     * Count of instructions produced from the expression
+     * before optimization.
+     */
+    private final int sourceInstructionCount;
+    /**
+     * Evaluator backed by generated bytecode,
+     * {@code null} if instructions are interpreted.
+     */
+    private final ExpressionEvaluator evaluator;
+
+    /**
+     * Creates compiled expression from RPN program.
+     * Checks that the program forms a complete expression.
+     *
+     * @param instructions Encoded instructions in RPN order.
+     * @param constants    Constants referenced by instructions.
+     * @param variables    Names of variables referenced by instructions.
+     * @param functions    Functions called by instructions.
+     * @param operators    Operators indexed by their opcodes.
+     * @param sourceInstructionCount Count of instructions before optimization.
+     * @throws SolverException if instructions do not form
+     *                         exactly one result.
+     * @see ExpressionOptimizer
+     */
+    CompiledExpression(int[] instructions, double[] constants, String[] variables, MathFunction[] functions,
+                       Operator[] operators, int sourceInstructionCount) {
+        this.maxStackDepth = computeMaxStackDepth(instructions, functions, operators);
+        this.sourceInstructionCount = sourceInstructionCount;
+        this.instructions = instructions;
+        this.constants = constants;
+        this.variables = variables;
+        this.functions = functions;
+        this.maxArity = computeMaxArity(functions);
+        this.operators = operators;
+        this.evaluator = null;
+    }
+
+    private CompiledExpression(CompiledExpression expression, ExpressionEvaluator evaluator) {
+        this.maxStackDepth = expression.maxStackDepth;
+        this.sourceInstructionCount = expression.sourceInstructionCount;
+        this.instructions = expression.instructions;
+        this.constants = expression.constants;
+        this.variables = expression.variables;
+        this.functions = expression.functions;
+        this.maxArity = expression.maxArity;
+        this.operators = expression.operators;
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * Retrieves count of instructions executed per evaluation.
+     * Together with {@link #getSourceInstructionCount()}
+     * shows effect of optimization of the expression.
+     *
+     * @return Count of instructions after optimization.
+     */
+    public int getInstructionCount() {
+        return instructions.length;
+    }
+
+    /**
+     * @return Count of instructions produced from the expression
+     * before optimization.
+     */
+    public int getSourceInstructionCount() {
+        return sourceInstructionCount;
+    }
+
+    /**
+     * @return Encoded instructions of the expression. Must not be modified.
+     */
+    int[] instructions() {
+        return instructions;
+    }
+
+    /**
+     * @return Constants referenced by instructions. Must not be modified.
+     */
+    double[] constants() {
+        return constants;
+    }
+
+    /**
+     * @return Names of variables in order of their indices. Must not be modified.
+     */
+    String[] variableNames() {
+        return variables;
+    }
+
+    /**
+     * @return Functions called by instructions. Must not be modified.
+     */
+    MathFunction[] functions() {
+        return functions;
+    }
+
+    /**
+     * @return Operators indexed by their opcodes. Must not be modified.
+     */
+    Operator[] operators() {
+        return operators;
+    }
+
+    /**
+     * Creates the same expression evaluated by bytecode
+     * generated specifically for it.
+     * <p>Generated code is compiled by JIT just like hand-written arithmetic,
+     * which is faster than interpreting RPN instructions
+     * for frequently evaluated expressions. Generation itself is costly,
+     * so it pays off only for expressions evaluated many times.
+     * <p>If bytecode cannot be generated, for example if
+     * the expression is too large or contains registered operators,
+     * expression keeps being interpreted. Calls of standard functions
+     * are compiled into direct calls of methods of {@link Math},
+     * which JIT compiler may replace with intrinsics.
+     * Columnar evaluation is always interpreted.
+     *
+     * @return Expression backed by generated bytecode if generation succeeded,
+     * {@code this} otherwise.
+     * @see #isBytecodeGenerated()
+     */
+    public CompiledExpression withGeneratedBytecode() {
+        if (evaluator != null) {
+            return this;
+        }
+        ExpressionEvaluator generated = BytecodeGenerator.generate(instructions, constants, functions,
+                maxStackDepth);
+        return generated == null ? this : new CompiledExpression(this, generated);
+    }
+
+    /**
+     * @return {@code true} if evaluation is backed by generated bytecode,
+     * {@code false} if instructions are interpreted.
+     */
+    public boolean isBytecodeGenerated() {
+        return evaluator != null;
+    }
+
+    /**
+     * @return Names of variables of an expression
+     * in order of their indices.
+     */
+    public List<String> getVariables() {
+        return Collections.unmodifiableList(Arrays.asList(variables));
+    }
+
+    /**
+     * Retrieves index of a variable.
+     *
+     * @param name Name of the variable.
+     * @return Index of the variable,
+     * {@code -1} if expression does not contain such variable.
+     */
+    public int getVariableIndex(String name) {
+        for (int i = 0; i < variables.length; i++) {
+            if (variables[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Calculates the result of an expression
+     * that contains no variables.
+     *
+     * @return Result of solution as a double value.
+     * @throws SolverException if division by zero occurs,
+     *                         or if expression contains variables.
+     */
+    public double evaluate() {
+        return evaluate(NO_VALUES);
+    }
+
+    /**
+     * Calculates the result of an expression.
+     *
+     * @param values Values of variables in order of their indices.
+     * @return Result of solution as a double value.
+     * @throws SolverException if division by zero occurs,
+     *                         or if count of values does not match
+     *                         count of variables.
+     * @see #getVariables()
+     */
+    public double evaluate(double... values) {
+        checkVariablesCount(values.length);
+        if (evaluator != null) {
+            return evaluator.evaluate(values);
+        }
+        double[] stack = EvaluationStack.acquire(maxStackDepth);
+        try {
+            return execute(values, stack);
+        } finally {
+            EvaluationStack.release(stack);
+        }
+    }
+
+    /**
+     * Calculates results of an expression for many sets
+     * of variables' values given as columns.
+     * <p>Row {@code i} of the input consists of
+     * {@code columns[0][i]}, {@code columns[1][i]} and so on.
+     * Rows are evaluated in blocks: each instruction is applied
+     * to a whole block of rows at once.
+     *
+     * @param columns Values of variables: one column per variable,
+     *                in order of their indices.
+     * @param results Array to fill with results. Its length defines
+     *                count of rows to evaluate.
+     * @throws SolverException if division by zero occurs in any row,
+     *                         if count of columns does not match
+     *                         count of variables or if a column is too short.
+     */
+    public void evaluate(double[][] columns, double[] results) {
+        checkVariablesCount(columns.length);
+        int rowsCount = results.length;
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].length < rowsCount) {
+                throw new SolverException("Column of variable " + variables[i]
+                        + " contains less than " + rowsCount + " values.");
+            }
+        }
+
+        double[] stack = EvaluationStack.acquire(maxStackDepth * BLOCK_SIZE + maxArity);
+        try {
+            for (int from = 0; from < rowsCount; from += BLOCK_SIZE) {
+                executeBlock(columns, from, Math.min(BLOCK_SIZE, rowsCount - from), stack);
+                System.arraycopy(stack, 0, results, from, Math.min(BLOCK_SIZE, rowsCount - from));
+            }
+        } finally {
+            EvaluationStack.release(stack);
+        }
+    }
+
+    /**
+     * Calculates the result of an expression together with
+     * its partial derivatives by all variables.
+     *
+     * @param values Values of variables in order of their indices.
+     * @return The result and derivatives in order of indices of variables.
+     * @throws SolverException if division by zero occurs,
+     *                         if count of values does not match
+     *                         count of variables, or if the expression
+     *                         contains operators or functions
+     *                         that are not differentiable.
+     * @see #gradient(List, double...)
+     */
+    public Gradient gradient(double... values) {
+        return gradient(Arrays.asList(variables), values);
+    }
+
+    /**
+     * Calculates the result of an expression together with
+     * its partial derivatives by chosen variables.
+     * <p>Uses forward mode automatic differentiation: each value
+     * on the calculation stack is accompanied by its derivatives,
+     * which every instruction updates by the chain rule using
+     * derivatives of its operation. Thus one evaluation
+     * costs about as much as {@code 1 + variables.size()} ordinary ones,
+     * and derivatives are as precise as the result.
+     * <p>Constants are folded at compile time, so an expression
+     * can be differentiated by variables only. A constant whose
+     * influence is of interest is to be written as a variable.
+     * Instructions are always interpreted, even if bytecode
+     * was generated for the expression.
+     *
+     * @param variables Names of variables to differentiate by.
+     * @param values    Values of all variables in order of their indices.
+     * @return The result and derivatives in order of {@code variables}.
+     * @throws SolverException          if division by zero occurs,
+     *                                  if count of values does not match
+     *                                  count of variables, if the expression
+     *                                  contains no such variable, or if it
+     *                                  contains operators or functions
+     *                                  that are not differentiable.
+     * @throws IllegalArgumentException if a variable is chosen twice.
+     * @see #getVariables()
+     */
+    public Gradient gradient(List<String> variables, double... values) {
+        checkVariablesCount(values.length);
+        int[] seeds = new int[this.variables.length];
+        Arrays.fill(seeds, -1);
+        for (int i = 0; i < variables.size(); i++) {
+            int variable = getVariableIndex(variables.get(i));
+            if (variable < 0) {
+                throw new SolverException("Expression does not contain variable '" + variables.get(i) + "'.");
+            }
+            if (seeds[variable] >= 0) {
+                throw new IllegalArgumentException("Variable '" + variables.get(i) + "' is chosen twice.");
+            }
+            seeds[variable] = i;
+        }
+
+        int width = variables.size() + 1;
+        double[] stack = EvaluationStack.acquire(maxStackDepth * width + maxArity);
+        try {
+            executeDual(values, seeds, width, stack);
+            return new Gradient(stack[0], variables.toArray(new String[0]), Arrays.copyOfRange(stack, 1, width));
+        } finally {
+            EvaluationStack.release(stack);
+        }
+    }
+
+    /**
+     * Creates an evaluator that recalculates the result of an expression
+     * when values of variables change one at a time.
+     *
+     * @param values Initial values of variables in order of their indices.
+     * @return New evaluator.
+     * @throws SolverException if division by zero occurs,
+     *                         or if count of values does not match
+     *                         count of variables.
+     * @see IncrementalEvaluator
+     */
+    public IncrementalEvaluator incremental(double... values) {
+        return CompiledExpressionSet.of(Collections.singletonList(this)).incremental(values);
+    }
+
+    /**
+     * Prepares the expression for evaluation in parallel
+     * on the common fork-join pool.
+     * Pays off only for huge expressions, with many thousands of terms.
+     *
+     * @return New parallel expression.
+     * @see ParallelExpression
+     */
+    public ParallelExpression parallel() {
+        return parallel(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Prepares the expression for evaluation in parallel.
+     * Pays off only for huge expressions, with many thousands of terms.
+     *
+     * @param pool Pool that runs tasks of evaluation.
+     * @return New parallel expression.
+     * @see ParallelExpression
+     */
+    public ParallelExpression parallel(ForkJoinPool pool) {
+        return new ParallelExpression(this, pool);
+    }
+
+    /**
+     * Runs instructions of an expression.
+     *
+     * @param values Values of variables.
+     * @param stack  Calculation stack, at least {@code maxStackDepth} deep.
+     * @return Result of solution as a double value.
+     */
+    private double execute(double[] values, double[] stack) {
+        int top = -1;
+
+        for (int instruction : instructions) {
+            int opcode = Instructions.opcode(instruction);
+
+            if (opcode == Instructions.PUSH_CONSTANT) {
+                stack[++top] = constants[Instructions.operand(instruction)];
+            } else if (opcode == Instructions.LOAD_VARIABLE) {
+                stack[++top] = values[Instructions.operand(instruction)];
+            } else if (opcode == Instructions.CALL_FUNCTION) {
+                MathFunction function = functions[Instructions.operand(instruction)];
+                top -= function.getArity() - 1;
+                stack[top] = function.apply(stack, top);
+            } else if (opcode < Instructions.FIRST_CUSTOM_OPCODE) {
+                double secondOperand = stack[top--];
+                stack[top] = MathOperationProvider.calculate(opcode, stack[top], secondOperand);
+            } else if (operators[opcode].isPrefix()) {
+                stack[top] = operators[opcode].apply(stack[top]);
+            } else {
+                double secondOperand = stack[top--];
+                stack[top] = operators[opcode].apply(stack[top], secondOperand);
+            }
+        }
+
+        return stack[0];
+    }
+
+    /**
+     * Runs instructions of an expression on dual numbers.
+     * Each stack slot holds a value followed by its
+     * partial derivatives, {@code width} numbers in total.
+     * The result and its derivatives are left in the first slot.
+     *
+     * @param values Values of variables.
+     * @param seeds  Index of derivative by each variable,
+     *               {@code -1} for variables not differentiated by.
+     * @param width  Count of numbers in a stack slot.
+     * @param stack  Calculation stack, at least
+     *               {@code maxStackDepth * width + maxArity} deep.
+     *               The last {@code maxArity} values are used to gather
+     *               arguments of function calls.
+     * @throws SolverException if an operation is not differentiable.
+     */
+    private void executeDual(double[] values, int[] seeds, int width, double[] stack) {
+        int top = -1;
+        int scratch = maxStackDepth * width;
+
+        for (int instruction : instructions) {
+            int opcode = Instructions.opcode(instruction);
+
+            if (opcode == Instructions.PUSH_CONSTANT) {
+                int slot = ++top * width;
+                stack[slot] = constants[Instructions.operand(instruction)];
+                Arrays.fill(stack, slot + 1, slot + width, 0);
+            } else if (opcode == Instructions.LOAD_VARIABLE) {
+                int variable = Instructions.operand(instruction);
+                int slot = ++top * width;
+                stack[slot] = values[variable];
+                Arrays.fill(stack, slot + 1, slot + width, 0);
+                if (seeds[variable] >= 0) {
+                    stack[slot + 1 + seeds[variable]] = 1;
+                }
+            } else if (opcode == Instructions.CALL_FUNCTION) {
+                MathFunction function = functions[Instructions.operand(instruction)];
+                if (!function.isDifferentiable()) {
+                    throw new SolverException("Function " + function + " is not differentiable.");
+                }
+                int arity = function.getArity();
+                top -= arity - 1;
+                int slot = top * width;
+                for (int argument = 0; argument < arity; argument++) {
+                    stack[scratch + argument] = stack[slot + argument * width];
+                }
+                stack[slot] = function.apply(stack, scratch);
+                if (arity == 0) {
+                    Arrays.fill(stack, slot + 1, slot + width, 0);
+                }
+                for (int argument = 0; argument < arity; argument++) {
+                    double partial = function.partial(stack, scratch, argument);
+                    if (argument == 0) {
+                        scaleDerivatives(stack, slot, width, partial);
+                    } else {
+                        addDerivatives(stack, slot, slot + argument * width, width, partial);
+                    }
+                }
+            } else if (opcode < Instructions.FIRST_CUSTOM_OPCODE) {
+                int secondSlot = top-- * width;
+                int slot = top * width;
+                double operand1 = stack[slot];
+                double operand2 = stack[secondSlot];
+                stack[slot] = MathOperationProvider.calculate(opcode, operand1, operand2);
+                scaleDerivatives(stack, slot, width, MathOperationProvider.firstPartial(opcode, operand1, operand2));
+                addDerivatives(stack, slot, secondSlot, width,
+                        MathOperationProvider.secondPartial(opcode, operand1, operand2));
+            } else {
+                Operator operator = operators[opcode];
+                if (!operator.isDifferentiable()) {
+                    throw new SolverException("Operator " + operator + " is not differentiable.");
+                }
+                if (operator.isPrefix()) {
+                    int slot = top * width;
+                    double operand = stack[slot];
+                    stack[slot] = operator.apply(operand);
+                    scaleDerivatives(stack, slot, width, operator.derivative(operand));
+                } else {
+                    int secondSlot = top-- * width;
+                    int slot = top * width;
+                    double operand1 = stack[slot];
+                    double operand2 = stack[secondSlot];
+                    stack[slot] = operator.apply(operand1, operand2);
+                    scaleDerivatives(stack, slot, width, operator.firstPartial(operand1, operand2));
+                    addDerivatives(stack, slot, secondSlot, width, operator.secondPartial(operand1, operand2));
+                }
+            }
+        }
+    }
+
+    /**
+     * Utility method.
+     * Multiplies derivatives in a stack slot by a partial derivative
+     * of an operation. Zero derivatives stay zero even if the partial
+     * derivative is infinite, so that operands which do not depend on
+     * chosen variables do not turn derivatives into {@code NaN}.
+     *
+     * @param stack   Calculation stack.
+     * @param slot    Index of the slot.
+     * @param width   Count of numbers in a slot.
+     * @param partial Partial derivative of the operation by the operand in the slot.
+     */
+    private static void scaleDerivatives(double[] stack, int slot, int width, double partial) {
+        for (int i = slot + 1; i < slot + width; i++) {
+            stack[i] = stack[i] == 0 ? 0 : stack[i] * partial;
+        }
+    }
+
+    /**
+     * Utility method.
+     * Adds derivatives of an operand, multiplied by a partial derivative
+     * of an operation, to derivatives in another stack slot.
+     * Zero derivatives are skipped the same way as by
+     * {@link #scaleDerivatives(double[], int, int, double)}.
+     *
+     * @param stack      Calculation stack.
+     * @param slot       Index of the slot to add to.
+     * @param sourceSlot Index of the slot of the operand.
+     * @param width      Count of numbers in a slot.
+     * @param partial    Partial derivative of the operation by the operand.
+     */
+    private static void addDerivatives(double[] stack, int slot, int sourceSlot, int width, double partial) {
+        for (int i = 1; i < width; i++) {
+            if (stack[sourceSlot + i] != 0) {
+                stack[slot + i] += stack[sourceSlot + i] * partial;
+            }
+        }
+    }
+
+    /**
+     * Runs instructions of an expression for a block of rows.
+     * Each stack slot holds {@code BLOCK_SIZE} values,
+     * results are left in the first slot.
+     *
+     * @param columns Values of variables as columns.
+     * @param from    Index of the first row of the block.
+     * @param length  Count of rows in the block.
+     * @param stack   Calculation stack, at least
+     *                {@code maxStackDepth * BLOCK_SIZE + maxArity} deep.
+     *                The last {@code maxArity} values are used to gather
+     *                arguments of function calls.
+     */
+    private void executeBlock(double[][] columns, int from, int length, double[] stack) {
+        int top = -1;
+
+        for (int instruction : instructions) {
+            int opcode = Instructions.opcode(instruction);
+
+            if (opcode == Instructions.PUSH_CONSTANT) {
+                int slot = ++top * BLOCK_SIZE;
+                Arrays.fill(stack, slot, slot + length, constants[Instructions.operand(instruction)]);
+            } else if (opcode == Instructions.LOAD_VARIABLE) {
+                System.arraycopy(columns[Instructions.operand(instruction)], from,
+                        stack, ++top * BLOCK_SIZE, length);
+            } else if (opcode == Instructions.CALL_FUNCTION) {
+                MathFunction function = functions[Instructions.operand(instruction)];
+                top -= function.getArity() - 1;
+                function.apply(stack, top * BLOCK_SIZE, BLOCK_SIZE, length, maxStackDepth * BLOCK_SIZE);
+            } else if (opcode < Instructions.FIRST_CUSTOM_OPCODE) {
+                int secondSlot = top-- * BLOCK_SIZE;
+                MathOperationProvider.calculate(opcode, stack, top * BLOCK_SIZE, secondSlot, length);
+            } else if (operators[opcode].isPrefix()) {
+                operators[opcode].apply(stack, top * BLOCK_SIZE, top * BLOCK_SIZE, length);
+            } else {
+                int secondSlot = top-- * BLOCK_SIZE;
+                operators[opcode].apply(stack, top * BLOCK_SIZE, secondSlot, length);
+            }
+        }
+    }
+
+    /**
+     * Utility method.
+     * Checks that values are given for all variables.
+     *
+     * @param valuesCount Count of given values.
+     * @throws SolverException if counts do not match.
+     */
+    private void checkVariablesCount(int valuesCount) {
+        if (valuesCount != variables.length) {
+            throw new SolverException("Expression contains " + variables.length
+                    + " variables " + Arrays.toString(variables)
+                    + ", but " + valuesCount + " values were given.");
+        }
+    }
+
+    /**
+     * Utility method.
+     * Checks that evaluation of instructions
+     * never runs out of operands and
+     * leaves exactly one value in calculation stack.
+     *
+     * @param instructions Encoded instructions in RPN order.
+     * @param functions    Functions called by instructions.
+     * @param operators    Operators indexed by their opcodes.
+     * @return Maximal depth of calculation stack.
+     * @throws SolverException if stack is unbalanced
+     *                         or an opcode is unknown.
+     */
+    static int computeMaxStackDepth(int[] instructions, MathFunction[] functions, Operator[] operators) {
+        int stackSize = 0;
+        int maxStackSize = 0;
+        for (int instruction : instructions) {
+            int opcode = Instructions.opcode(instruction);
+            if (Instructions.isValue(opcode)) {
+                stackSize++;
+            } else if (opcode == Instructions.CALL_FUNCTION) {
+                int arity = functions[Instructions.operand(instruction)].getArity();
+                if (stackSize < arity) {
+                    throw new SolverException("Solution error: function lacks arguments.");
+                }
+                stackSize += 1 - arity;
+            } else if (opcode < operators.length && operators[opcode] != null) {
+                stackSize += 1 - operators[opcode].getArity();
+            } else {
+                throw new SolverException("Solution error: unknown opcode " + opcode + ".");
+            }
+            if (stackSize < 1) {
+                throw new SolverException("Solution error: operator lacks operands.");
+            }
+            maxStackSize = Math.max(maxStackSize, stackSize);
+        }
+
+        if (stackSize != 1) {
+            throw new SolverException("Solution error: end results stack contains " +
+                    stackSize + " values" +
+                    " after solving.");
+        }
+        return maxStackSize;
+    }
+
+    private static int computeMaxArity(MathFunction[] functions) {
+        int maxArity = 0;
+        for (MathFunction function : functions) {
+            maxArity = Math.max(maxArity, function.getArity());
+        }
+        return maxArity;
+    }
+}
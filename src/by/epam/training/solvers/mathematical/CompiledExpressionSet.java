@@ -0,0 +1,478 @@
+package by.epam.training.solvers.mathematical;
+
+import by.epam.training.solvers.exception.SolverException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Several compiled expressions evaluated together.
+ * <p>Expressions of a set are merged into a single graph of subexpressions.
+ * Structurally equal subexpressions, such as the same bracketed term
+ * used by different expressions, are represented by one node
+ * and calculated once per evaluation of the whole set.
+ * Sum and product are treated as commutative when looking for equal nodes.
+ * Calls of the same function with equal arguments are represented by one node too,
+ * as functions are required to be pure.
+ * <p>Variables with the same name are shared by all expressions of a set.
+ * A set is immutable and can be evaluated from any number of threads.
+ * <p>All expressions of a set must be compiled with the same operators,
+ * that is by solvers sharing an {@link OperatorRegistry}.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.4
+ * @see MathematicalExpressionSolver#compileAll(List)
+ */
+public final class CompiledExpressionSet {
+
+    /**
+     * Opcode of each node, as defined in {@link Instructions}.
+     * Nodes are ordered so that operands precede operations.
+     */
+    private final int[] opcodes;
+    /**
+     * Index of the first operand node of an operation,
+     * index of a variable of a variable node,
+     * or offset of arguments of a function call node in {@link #callArguments}.
+     */
+    private final int[] firstOperands;
+    /**
+     * Index of the second operand node of a binary operation,
+     * or index of a function of a function call node.
+     */
+    private final int[] secondOperands;
+    /**
+     * Indices of argument nodes of all function call nodes.
+     */
+    private final int[] callArguments;
+    /**
+     * Functions called by nodes.
+     */
+    private final MathFunction[] functions;
+    /**
+     * Maximal count of arguments of called functions.
+     */
+    private final int maxArity;
+    /**
+     * Value of a constant node.
+     */
+    private final double[] constants;
+    /**
+     * Index of the result node of each expression.
+     */
+    private final int[] roots;
+    private final String[] variables;
+    /**
+     * Operators indexed by their opcodes.
+     */
+    private final Operator[] operators;
+    private final int sourceInstructionCount;
+
+    private CompiledExpressionSet(Builder builder, int[] roots) {
+        int count = builder.count;
+        this.opcodes = Arrays.copyOf(builder.opcodes, count);
+        this.firstOperands = Arrays.copyOf(builder.firstOperands, count);
+        this.secondOperands = Arrays.copyOf(builder.secondOperands, count);
+        this.constants = Arrays.copyOf(builder.constants, count);
+        this.callArguments = builder.callArguments.toArray();
+        this.functions = builder.functions.toArray(new MathFunction[0]);
+        int maxArity = 0;
+        for (MathFunction function : functions) {
+            maxArity = Math.max(maxArity, function.getArity());
+        }
+        this.maxArity = maxArity;
+        this.roots = roots;
+        this.variables = builder.variables.keySet().toArray(new String[0]);
+        this.operators = builder.operators;
+        this.sourceInstructionCount = builder.sourceInstructionCount;
+    }
+
+    /**
+     * Merges compiled expressions into a set.
+     *
+     * @param expressions Compiled expressions.
+     * @return Set of the expressions in the same order.
+     * @throws SolverException if expressions are compiled with different operators.
+     */
+    static CompiledExpressionSet of(List<CompiledExpression> expressions) {
+        Builder builder = new Builder();
+        int[] roots = new int[expressions.size()];
+        for (int i = 0; i < roots.length; i++) {
+            roots[i] = builder.add(expressions.get(i));
+        }
+        return new CompiledExpressionSet(builder, roots);
+    }
+
+    /**
+     * @return Count of expressions in the set.
+     */
+    public int size() {
+        return roots.length;
+    }
+
+    /**
+     * @return Names of variables of all expressions
+     * in order of their indices.
+     */
+    public List<String> getVariables() {
+        return Collections.unmodifiableList(Arrays.asList(variables));
+    }
+
+    /**
+     * Retrieves count of calculations performed per evaluation of the set.
+     * Together with {@link #getSourceInstructionCount()}
+     * shows how much work is saved by sharing subexpressions.
+     *
+     * @return Count of distinct nodes of the set.
+     */
+    public int getNodeCount() {
+        return opcodes.length;
+    }
+
+    /**
+     * @return Total count of instructions of all expressions
+     * evaluated separately.
+     */
+    public int getSourceInstructionCount() {
+        return sourceInstructionCount;
+    }
+
+    /**
+     * Calculates results of all expressions of the set.
+     *
+     * @param values Values of variables in order of their indices.
+     * @return Results of expressions in order of the set.
+     * @throws SolverException if division by zero occurs in any expression,
+     *                         or if count of values does not match
+     *                         count of variables.
+     * @see #getVariables()
+     */
+    public double[] evaluate(double... values) {
+        double[] results = new double[roots.length];
+        evaluate(values, results);
+        return results;
+    }
+
+    /**
+     * Calculates results of all expressions of the set
+     * without allocating memory.
+     *
+     * @param values  Values of variables in order of their indices.
+     * @param results Array to fill with results in order of the set.
+     * @throws SolverException if division by zero occurs in any expression,
+     *                         or if count of values does not match
+     *                         count of variables.
+     */
+    public void evaluate(double[] values, double[] results) {
+        if (values.length != variables.length) {
+            throw new SolverException("Expressions contain " + variables.length
+                    + " variables " + Arrays.toString(variables)
+                    + ", but " + values.length + " values were given.");
+        }
+
+        double[] nodeValues = EvaluationStack.acquire(nodeValuesLength());
+        try {
+            for (int node = 0; node < opcodes.length; node++) {
+                int opcode = opcodes[node];
+
+                if (opcode == Instructions.PUSH_CONSTANT) {
+                    nodeValues[node] = constants[node];
+                } else if (opcode == Instructions.LOAD_VARIABLE) {
+                    nodeValues[node] = values[firstOperands[node]];
+                } else {
+                    nodeValues[node] = calculate(node, nodeValues);
+                }
+            }
+
+            for (int i = 0; i < roots.length; i++) {
+                results[i] = nodeValues[roots[i]];
+            }
+        } finally {
+            EvaluationStack.release(nodeValues);
+        }
+    }
+
+    /**
+     * Creates an evaluator that recalculates results of the set
+     * when values of variables change one at a time.
+     *
+     * @param values Initial values of variables in order of their indices.
+     * @return New evaluator.
+     * @throws SolverException if division by zero occurs in any expression,
+     *                         or if count of values does not match
+     *                         count of variables.
+     * @see IncrementalEvaluator
+     */
+    public IncrementalEvaluator incremental(double... values) {
+        return new IncrementalEvaluator(this, values);
+    }
+
+    /**
+     * Retrieves length of an array of values of nodes:
+     * values of nodes are followed by space to gather arguments of a call.
+     */
+    int nodeValuesLength() {
+        return opcodes.length + maxArity;
+    }
+
+    int opcode(int node) {
+        return opcodes[node];
+    }
+
+    /**
+     * @return Value of a constant node.
+     */
+    double constant(int node) {
+        return constants[node];
+    }
+
+    /**
+     * @return Index of a variable of a variable node.
+     */
+    int variable(int node) {
+        return firstOperands[node];
+    }
+
+    /**
+     * @return Index of the result node of an expression.
+     */
+    int root(int expression) {
+        return roots[expression];
+    }
+
+    /**
+     * @return Count of operand nodes of an operation or function call node.
+     */
+    int operandCount(int node) {
+        int opcode = opcodes[node];
+        if (opcode == Instructions.CALL_FUNCTION) {
+            return functions[secondOperands[node]].getArity();
+        }
+        return opcode >= Instructions.FIRST_CUSTOM_OPCODE && operators[opcode].isPrefix() ? 1 : 2;
+    }
+
+    /**
+     * @return Index of an operand node of an operation or function call node.
+     */
+    int operand(int node, int operand) {
+        if (opcodes[node] == Instructions.CALL_FUNCTION) {
+            return callArguments[firstOperands[node] + operand];
+        }
+        return operand == 0 ? firstOperands[node] : secondOperands[node];
+    }
+
+    /**
+     * Calculates value of an operation or function call node
+     * from values of its operands.
+     *
+     * @param node       Index of the node.
+     * @param nodeValues Values of nodes, {@link #nodeValuesLength()} long.
+     * @return Value of the node.
+     * @throws SolverException if division by zero occurs.
+     */
+    double calculate(int node, double[] nodeValues) {
+        int opcode = opcodes[node];
+
+        if (opcode == Instructions.CALL_FUNCTION) {
+            MathFunction function = functions[secondOperands[node]];
+            for (int argument = 0; argument < function.getArity(); argument++) {
+                nodeValues[opcodes.length + argument] =
+                        nodeValues[callArguments[firstOperands[node] + argument]];
+            }
+            return function.apply(nodeValues, opcodes.length);
+        } else if (opcode < Instructions.FIRST_CUSTOM_OPCODE) {
+            return MathOperationProvider.calculate(opcode,
+                    nodeValues[firstOperands[node]], nodeValues[secondOperands[node]]);
+        } else if (operators[opcode].isPrefix()) {
+            return operators[opcode].apply(nodeValues[firstOperands[node]]);
+        } else {
+            return operators[opcode].apply(
+                    nodeValues[firstOperands[node]], nodeValues[secondOperands[node]]);
+        }
+    }
+
+    /**
+     * Builds graph of subexpressions,
+     * creating each distinct node only once.
+     */
+    private static final class Builder {
+
+        private static final int INITIAL_CAPACITY = 64;
+        /**
+         * Maximal count of nodes, so that indices of operands
+         * fit into 28-bit fields of keys of {@link #operationNodes}.
+         */
+        private static final int MAX_NODES = 1 << 28;
+
+        private int[] opcodes = new int[INITIAL_CAPACITY];
+        private int[] firstOperands = new int[INITIAL_CAPACITY];
+        private int[] secondOperands = new int[INITIAL_CAPACITY];
+        private double[] constants = new double[INITIAL_CAPACITY];
+        private int count;
+        private int sourceInstructionCount;
+        private Operator[] operators = OperatorTable.STANDARD.operators();
+        private final IntStack callArguments = new IntStack();
+        private final List<MathFunction> functions = new ArrayList<>();
+
+        private final Map<Long, Integer> constantNodes = new HashMap<>();
+        /**
+         * Index of a node of each operation by its opcode and indices
+         * of operand nodes, packed into 8, 28 and 28 bits of a key.
+         */
+        private final Map<Long, Integer> operationNodes = new HashMap<>();
+        /**
+         * Index of a node of each function call by index of the function
+         * followed by indices of argument nodes.
+         */
+        private final Map<List<Integer>, Integer> callNodes = new HashMap<>();
+        /**
+         * Index of a node of each variable by its name.
+         */
+        private final Map<String, Integer> variableNodes = new HashMap<>();
+        /**
+         * Index of each variable by its name.
+         */
+        private final Map<String, Integer> variables = new LinkedHashMap<>();
+
+        /**
+         * Adds nodes of an expression.
+         *
+         * @return Index of the result node of the expression.
+         */
+        int add(CompiledExpression expression) {
+            int[] instructions = expression.instructions();
+            double[] expressionConstants = expression.constants();
+            String[] expressionVariables = expression.variableNames();
+            MathFunction[] expressionFunctions = expression.functions();
+            int[] stack = new int[instructions.length];
+            int top = -1;
+            sourceInstructionCount += instructions.length;
+            addOperators(expression.operators());
+            // variables of the first expression keep their indices
+            for (String name : expressionVariables) {
+                variableNode(name);
+            }
+
+            for (int instruction : instructions) {
+                int opcode = Instructions.opcode(instruction);
+                int operand = Instructions.operand(instruction);
+
+                if (opcode == Instructions.PUSH_CONSTANT) {
+                    stack[++top] = constantNode(expressionConstants[operand]);
+                } else if (opcode == Instructions.LOAD_VARIABLE) {
+                    stack[++top] = variableNode(expressionVariables[operand]);
+                } else if (opcode == Instructions.CALL_FUNCTION) {
+                    MathFunction function = expressionFunctions[operand];
+                    top -= function.getArity() - 1;
+                    stack[top] = callNode(function, stack, top);
+                } else if (operators[opcode].isPrefix()) {
+                    stack[top] = operationNode(opcode, stack[top], 0);
+                } else {
+                    int second = stack[top--];
+                    stack[top] = operationNode(opcode, stack[top], second);
+                }
+            }
+            return stack[0];
+        }
+
+        /**
+         * Merges operators of an expression with operators of the set.
+         * Registries only grow, so operators of one registry
+         * taken at different times agree on common opcodes.
+         *
+         * @throws SolverException if an opcode denotes different operators.
+         */
+        private void addOperators(Operator[] expressionOperators) {
+            int common = Math.min(operators.length, expressionOperators.length);
+            for (int opcode = 0; opcode < common; opcode++) {
+                if (operators[opcode] != expressionOperators[opcode]) {
+                    throw new SolverException("Expressions are compiled with different operators.");
+                }
+            }
+            if (expressionOperators.length > operators.length) {
+                operators = expressionOperators;
+            }
+        }
+
+        private int constantNode(double value) {
+            Long key = Double.doubleToRawLongBits(value);
+            Integer node = constantNodes.get(key);
+            if (node == null) {
+                node = addNode(Instructions.PUSH_CONSTANT, 0, 0, value);
+                constantNodes.put(key, node);
+            }
+            return node;
+        }
+
+        private int variableNode(String name) {
+            Integer node = variableNodes.get(name);
+            if (node == null) {
+                int index = variables.size();
+                variables.put(name, index);
+                node = addNode(Instructions.LOAD_VARIABLE, index, 0, 0);
+                variableNodes.put(name, node);
+            }
+            return node;
+        }
+
+        private int operationNode(int opcode, int first, int second) {
+            if ((opcode == Instructions.ADD || opcode == Instructions.MULTIPLY) && first > second) {
+                int swap = first;
+                first = second;
+                second = swap;
+            }
+            Long key = ((long) opcode << 56) | ((long) first << 28) | second;
+            Integer node = operationNodes.get(key);
+            if (node == null) {
+                node = addNode(opcode, first, second, 0);
+                operationNodes.put(key, node);
+            }
+            return node;
+        }
+
+        private int callNode(MathFunction function, int[] stack, int firstArgument) {
+            int functionIndex = functions.indexOf(function);
+            if (functionIndex < 0) {
+                functions.add(function);
+                functionIndex = functions.size() - 1;
+            }
+            List<Integer> key = new ArrayList<>(function.getArity() + 1);
+            key.add(functionIndex);
+            for (int argument = 0; argument < function.getArity(); argument++) {
+                key.add(stack[firstArgument + argument]);
+            }
+            Integer node = callNodes.get(key);
+            if (node == null) {
+                node = addNode(Instructions.CALL_FUNCTION, callArguments.size(), functionIndex, 0);
+                for (int argument = 1; argument < key.size(); argument++) {
+                    callArguments.push(key.get(argument));
+                }
+                callNodes.put(key, node);
+            }
+            return node;
+        }
+
+        private int addNode(int opcode, int first, int second, double constant) {
+            if (count == MAX_NODES) {
+                throw new SolverException("Expressions contain more than " + MAX_NODES + " distinct subexpressions.");
+            }
+            if (count == opcodes.length) {
+                int capacity = count * 2;
+                opcodes = Arrays.copyOf(opcodes, capacity);
+                firstOperands = Arrays.copyOf(firstOperands, capacity);
+                secondOperands = Arrays.copyOf(secondOperands, capacity);
+                constants = Arrays.copyOf(constants, capacity);
+            }
+            opcodes[count] = opcode;
+            firstOperands[count] = first;
+            secondOperands[count] = second;
+            constants[count] = constant;
+            return count++;
+        }
+    }
+}
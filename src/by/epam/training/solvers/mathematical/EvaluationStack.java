@@ -0,0 +1,68 @@
+package by.epam.training.solvers.mathematical;
+
+/**
+ * Utility class.
+ * Provides thread-confined calculation stacks,
+ * so that evaluation of compiled expressions
+ * does not allocate memory in a steady state.
+ * <p>Every stack obtained with {@link #acquire(int)}
+ * must be returned with {@link #release(double[])}.
+ * Nested evaluations on the same thread
+ * receive a fresh stack instead of the shared one,
+ * and so do evaluations that need a stack too large to be retained.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.1
+ */
+final class EvaluationStack {
+
+    private static final int INITIAL_CAPACITY = 64;
+    /**
+     * Count of values above which stacks
+     * are not kept for reuse after evaluation.
+     */
+    private static final int MAX_RETAINED_CAPACITY = 1 << 16;
+
+    /**
+     * Calculation stack of the current thread.
+     */
+    private static final ThreadLocal<EvaluationStack> threadStack =
+            ThreadLocal.withInitial(EvaluationStack::new);
+
+    private double[] values = new double[INITIAL_CAPACITY];
+    private boolean inUse;
+
+    private EvaluationStack() {
+    }
+
+    /**
+     * Acquires calculation stack of the current thread.
+     *
+     * @param depth Required depth of the stack.
+     * @return Stack that holds at least {@code depth} values.
+     * Must not be passed to other threads.
+     */
+    static double[] acquire(int depth) {
+        EvaluationStack stack = threadStack.get();
+        if (stack.inUse || depth > MAX_RETAINED_CAPACITY) {
+            return new double[depth];
+        }
+        if (stack.values.length < depth) {
+            stack.values = new double[Math.min(Math.max(depth, stack.values.length * 2), MAX_RETAINED_CAPACITY)];
+        }
+        stack.inUse = true;
+        return stack.values;
+    }
+
+    /**
+     * Returns calculation stack acquired by the current thread.
+     *
+     * @param values The stack returned by {@link #acquire(int)}.
+     */
+    static void release(double[] values) {
+        EvaluationStack stack = threadStack.get();
+        if (stack.values == values) {
+            stack.inUse = false;
+        }
+    }
+}
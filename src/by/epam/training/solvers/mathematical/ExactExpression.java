@@ -0,0 +1,311 @@
+package by.epam.training.solvers.mathematical;
+
+import by.epam.training.solvers.exception.SolverException;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Expression compiled for exact decimal evaluation.
+ * <p>Unlike {@link CompiledExpression}, which calculates with {@code double},
+ * numbers are never converted to binary floating point: literals
+ * are taken from the expression text as is, values of variables
+ * are passed as {@link BigDecimal}, and every operation
+ * is exact or rounded according to {@link MathContext} of the expression.
+ * For example, {@code 0.1 + 0.2} is exactly {@code 0.3}.
+ * <p>Numbers are kept as scaled {@code long} values while they fit,
+ * so that operations of typical expressions allocate no
+ * {@code BigDecimal} numbers. An operation whose result does not fit
+ * is repeated with {@code BigDecimal}, with the same result.
+ * Calculation stacks are confined to threads and reused between evaluations.
+ * <p>Besides built-in operators, exact evaluation supports
+ * registered {@link Operator#REMAINDER} and {@link Operator#NEGATION}
+ * and function {@link MathFunction#ABS}.
+ * Expressions with other operators or functions are rejected.
+ * <p>Instances are immutable and can be evaluated from any number of threads.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.1
+ * @see ReversePolishNotationSolver#compileExact(String, MathContext)
+ */
+public final class ExactExpression {
+
+    private static final BigDecimal[] NO_VALUES = new BigDecimal[0];
+
+    /**
+     * Opcode of each instruction: {@link Instructions#PUSH_CONSTANT},
+     * {@link Instructions#LOAD_VARIABLE} or an opcode of {@link ExactOperationProvider}.
+     */
+    private final int[] opcodes;
+    /**
+     * Index of a constant or a variable of each instruction that pushes a value.
+     */
+    private final int[] operands;
+    private final BigDecimal[] constants;
+    /**
+     * Unscaled values of constants that fit into {@code long}.
+     */
+    private final long[] unscaledConstants;
+    /**
+     * Scales of constants that fit into {@code long},
+     * {@link Integer#MIN_VALUE} for other constants.
+     */
+    private final int[] constantScales;
+    private final String[] variables;
+    private final MathContext mathContext;
+    private final int maxStackDepth;
+
+    /**
+     * Creates an exact expression from an RPN program.
+     *
+     * @param instructions Encoded instructions in RPN order.
+     * @param constants    Constants referenced by instructions.
+     * @param variables    Names of variables referenced by instructions.
+     * @param functions    Functions referenced by instructions.
+     * @param operators    Operators indexed by their opcodes.
+     * @param mathContext  Precision and rounding of operations.
+     * @throws SolverException if instructions contain an operator or a function
+     *                         without exact counterpart.
+     */
+    ExactExpression(int[] instructions, BigDecimal[] constants, String[] variables,
+                    MathFunction[] functions, Operator[] operators, MathContext mathContext) {
+        this.maxStackDepth = CompiledExpression.computeMaxStackDepth(instructions, functions, operators);
+        this.opcodes = new int[instructions.length];
+        this.operands = new int[instructions.length];
+        for (int i = 0; i < instructions.length; i++) {
+            int opcode = Instructions.opcode(instructions[i]);
+            int operand = Instructions.operand(instructions[i]);
+
+            if (opcode == Instructions.CALL_FUNCTION) {
+                opcodes[i] = ExactOperationProvider.opcode(functions[operand]);
+                if (opcodes[i] < 0) {
+                    throw new SolverException("Function " + functions[operand] + " has no exact implementation.");
+                }
+            } else if (opcode >= Instructions.FIRST_CUSTOM_OPCODE) {
+                opcodes[i] = ExactOperationProvider.opcode(operators[opcode]);
+                if (opcodes[i] < 0) {
+                    throw new SolverException("Operator '" + operators[opcode].getSymbol()
+                            + "' has no exact implementation.");
+                }
+            } else {
+                opcodes[i] = opcode;
+                operands[i] = operand;
+            }
+        }
+
+        this.constants = constants;
+        this.unscaledConstants = new long[constants.length];
+        this.constantScales = new int[constants.length];
+        for (int i = 0; i < constants.length; i++) {
+            constantScales[i] = Integer.MIN_VALUE;
+            if (constants[i].unscaledValue().bitLength() < Long.SIZE) {
+                unscaledConstants[i] = constants[i].unscaledValue().longValue();
+                constantScales[i] = constants[i].scale();
+            }
+        }
+        this.variables = variables;
+        this.mathContext = mathContext;
+    }
+
+    /**
+     * @return Precision and rounding of operations.
+     */
+    public MathContext getMathContext() {
+        return mathContext;
+    }
+
+    /**
+     * @return Names of variables of an expression
+     * in order of their indices.
+     */
+    public List<String> getVariables() {
+        return Collections.unmodifiableList(Arrays.asList(variables));
+    }
+
+    /**
+     * Retrieves index of a variable.
+     *
+     * @param name Name of the variable.
+     * @return Index of the variable,
+     * {@code -1} if expression does not contain such variable.
+     */
+    public int getVariableIndex(String name) {
+        return Arrays.asList(variables).indexOf(name);
+    }
+
+    /**
+     * Calculates the result of an expression
+     * that contains no variables.
+     *
+     * @return Exact result of solution.
+     * @throws SolverException if division by zero occurs,
+     *                         if a quotient cannot be represented exactly
+     *                         with unlimited precision,
+     *                         or if expression contains variables.
+     */
+    public BigDecimal evaluate() {
+        return evaluate(NO_VALUES);
+    }
+
+    /**
+     * Calculates the result of an expression.
+     *
+     * @param values Values of variables in order of their indices.
+     * @return Exact result of solution.
+     * @throws SolverException if division by zero occurs,
+     *                         if a quotient cannot be represented exactly
+     *                         with unlimited precision,
+     *                         or if count of values does not match
+     *                         count of variables.
+     * @see #getVariables()
+     */
+    public BigDecimal evaluate(BigDecimal... values) {
+        if (values.length != variables.length) {
+            throw new SolverException("Expression contains " + variables.length
+                    + " variables " + Arrays.toString(variables)
+                    + ", but " + values.length + " values were given.");
+        }
+
+        DecimalStack stack = DecimalStack.acquire(maxStackDepth);
+        try {
+            return execute(values, stack.unscaled, stack.scales, stack.decimals);
+        } finally {
+            stack.release(maxStackDepth);
+        }
+    }
+
+    /**
+     * Runs instructions of an expression.
+     *
+     * @param values   Values of variables.
+     * @param unscaled Unscaled values of stack entries that fit into {@code long}.
+     * @param scales   Scales of stack entries that fit into {@code long}.
+     * @param decimals Stack entries that do not fit into {@code long},
+     *                 {@code null} for others.
+     * @return Exact result of solution.
+     */
+    private BigDecimal execute(BigDecimal[] values, long[] unscaled, int[] scales, BigDecimal[] decimals) {
+        int precision = mathContext.getPrecision();
+        int top = -1;
+
+        for (int i = 0; i < opcodes.length; i++) {
+            int opcode = opcodes[i];
+
+            if (opcode == Instructions.PUSH_CONSTANT) {
+                int constant = operands[i];
+                top++;
+                if (constantScales[constant] != Integer.MIN_VALUE) {
+                    unscaled[top] = unscaledConstants[constant];
+                    scales[top] = constantScales[constant];
+                    decimals[top] = null;
+                } else {
+                    decimals[top] = constants[constant];
+                }
+            } else if (opcode == Instructions.LOAD_VARIABLE) {
+                store(values[operands[i]], unscaled, scales, decimals, ++top);
+            } else {
+                int second = top;
+                if (ExactOperationProvider.arity(opcode) == 2) {
+                    top--;
+                }
+                if (decimals[top] != null || decimals[second] != null
+                        || !ExactOperationProvider.calculate(opcode, unscaled, scales, top, second, precision)) {
+                    BigDecimal result = ExactOperationProvider.calculate(opcode,
+                            load(unscaled, scales, decimals, top),
+                            load(unscaled, scales, decimals, second), mathContext);
+                    store(result, unscaled, scales, decimals, top);
+                }
+            }
+        }
+
+        return load(unscaled, scales, decimals, 0);
+    }
+
+    /**
+     * Utility method.
+     * Stores a number into an entry of the stack,
+     * as a scaled {@code long} if it fits.
+     */
+    private static void store(BigDecimal value, long[] unscaled, int[] scales, BigDecimal[] decimals, int index) {
+        // up to 18 digits always fit, and precision of a small number is known without allocation
+        if (value.precision() < 19) {
+            unscaled[index] = value.scale() == 0 ? value.longValue() : value.unscaledValue().longValue();
+            scales[index] = value.scale();
+            decimals[index] = null;
+        } else {
+            decimals[index] = value;
+        }
+    }
+
+    /**
+     * Utility method.
+     * Retrieves a number from an entry of the stack.
+     */
+    private static BigDecimal load(long[] unscaled, int[] scales, BigDecimal[] decimals, int index) {
+        return decimals[index] != null ? decimals[index] : BigDecimal.valueOf(unscaled[index], scales[index]);
+    }
+
+    /**
+     * Calculation stack of exact evaluation.
+     * Stack of each thread is reused, the same way as {@link EvaluationStack}:
+     * nested evaluations and evaluations of too deep expressions
+     * receive a fresh stack instead.
+     */
+    private static final class DecimalStack {
+
+        private static final int INITIAL_CAPACITY = 64;
+        /**
+         * Depth above which stacks are not kept for reuse after evaluation.
+         */
+        private static final int MAX_RETAINED_DEPTH = 1 << 14;
+
+        private static final ThreadLocal<DecimalStack> threadStack =
+                ThreadLocal.withInitial(() -> new DecimalStack(INITIAL_CAPACITY));
+
+        private final long[] unscaled;
+        private final int[] scales;
+        private final BigDecimal[] decimals;
+        private boolean inUse;
+
+        private DecimalStack(int depth) {
+            unscaled = new long[depth];
+            scales = new int[depth];
+            decimals = new BigDecimal[depth];
+        }
+
+        /**
+         * Acquires stack of the current thread.
+         *
+         * @param depth Required depth of the stack.
+         * @return Stack that holds at least {@code depth} entries.
+         */
+        static DecimalStack acquire(int depth) {
+            DecimalStack stack = threadStack.get();
+            if (stack.inUse || depth > MAX_RETAINED_DEPTH) {
+                return new DecimalStack(depth);
+            }
+            if (stack.unscaled.length < depth) {
+                stack = new DecimalStack(Math.min(Math.max(depth, stack.unscaled.length * 2), MAX_RETAINED_DEPTH));
+                threadStack.set(stack);
+            }
+            stack.inUse = true;
+            return stack;
+        }
+
+        /**
+         * Returns stack acquired by the current thread.
+         * Drops references to numbers, so that they are not retained.
+         *
+         * @param depth Depth the stack was acquired with.
+         */
+        void release(int depth) {
+            if (threadStack.get() == this) {
+                Arrays.fill(decimals, 0, depth, null);
+                inUse = false;
+            }
+        }
+    }
+}
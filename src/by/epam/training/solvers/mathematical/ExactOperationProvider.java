@@ -0,0 +1,235 @@
+package by.epam.training.solvers.mathematical;
+
+import by.epam.training.solvers.exception.SolverException;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * Utility class.
+ * Used to provide exact decimal operations
+ * based on an operator.
+ * <p>Each operation has two implementations.
+ * The fast one works with decimal numbers represented by
+ * a scaled {@code long}: value {@code unscaled * 10^-scale}.
+ * It gives up when the result does not fit into {@code long}
+ * or needs rounding, and the operation is then repeated
+ * with {@link BigDecimal}. Both give the same results.
+ * <p>Operations are identified by opcodes
+ * defined in {@link Instructions} and by opcodes of this class
+ * for registered operators and functions that have exact counterparts.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.1
+ * @see MathOperationProvider
+ */
+final class ExactOperationProvider {
+
+    /**
+     * Opcode of remainder of division, {@link Operator#REMAINDER}.
+     */
+    static final int REMAINDER = Instructions.FIRST_CUSTOM_OPCODE;
+    /**
+     * Opcode of negation, {@link Operator#NEGATION}.
+     */
+    static final int NEGATE = REMAINDER + 1;
+    /**
+     * Opcode of absolute value, {@link MathFunction#ABS}.
+     */
+    static final int ABSOLUTE = NEGATE + 1;
+
+    /**
+     * Powers of ten that fit into {@code long}.
+     */
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private ExactOperationProvider() {
+    }
+
+    /**
+     * Retrieves opcode of an exact counterpart of a registered operator.
+     *
+     * @param operator The operator.
+     * @return Opcode of the exact operation, {@code -1} if there is none.
+     */
+    static int opcode(Operator operator) {
+        if (operator == Operator.REMAINDER) {
+            return REMAINDER;
+        }
+        if (operator == Operator.NEGATION) {
+            return NEGATE;
+        }
+        return -1;
+    }
+
+    /**
+     * Retrieves opcode of an exact counterpart of a function.
+     *
+     * @param function The function.
+     * @return Opcode of the exact operation, {@code -1} if there is none.
+     */
+    static int opcode(MathFunction function) {
+        return function == MathFunction.ABS ? ABSOLUTE : -1;
+    }
+
+    /**
+     * @return Count of operands of an operation.
+     */
+    static int arity(int opcode) {
+        return opcode == NEGATE || opcode == ABSOLUTE ? 1 : 2;
+    }
+
+    /**
+     * Calculates the result of an operation on scaled {@code long} numbers.
+     * Result replaces the first operand.
+     *
+     * @param opcode    Opcode of the operation.
+     * @param unscaled  Unscaled values of numbers.
+     * @param scales    Scales of numbers.
+     * @param first     Index of the first operand.
+     * @param second    Index of the second operand, ignored by unary operations.
+     * @param precision Maximal count of digits of the result, {@code 0} if unlimited.
+     * @return {@code true} if the result is calculated,
+     * {@code false} if it is not representable, operands are left intact then.
+     * @throws SolverException if division by zero occurs.
+     */
+    static boolean calculate(int opcode, long[] unscaled, int[] scales, int first, int second, int precision) {
+        long operand1 = unscaled[first];
+        int scale1 = scales[first];
+        long result;
+        int scale;
+
+        try {
+            if (arity(opcode) == 1) {
+                result = opcode == NEGATE ? Math.negateExact(operand1) : Math.absExact(operand1);
+                scale = scale1;
+            } else {
+                long operand2 = unscaled[second];
+                int scale2 = scales[second];
+
+                switch (opcode) {
+                    case Instructions.ADD:
+                    case Instructions.SUBTRACT:
+                    case REMAINDER:
+                        scale = Math.max(scale1, scale2);
+                        operand1 = rescale(operand1, scale - scale1);
+                        operand2 = rescale(operand2, scale - scale2);
+                        if (opcode == Instructions.ADD) {
+                            result = Math.addExact(operand1, operand2);
+                        } else if (opcode == Instructions.SUBTRACT) {
+                            result = Math.subtractExact(operand1, operand2);
+                        } else {
+                            checkDivisor(operand2 == 0);
+                            if (precision > 0 && precision < POWERS_OF_TEN.length
+                                    && Math.abs(operand1 / operand2) >= POWERS_OF_TEN[precision]) {
+                                // integer quotient exceeds precision, as BigDecimal#remainder rejects it
+                                return false;
+                            }
+                            result = operand1 % operand2;
+                        }
+                        break;
+                    case Instructions.MULTIPLY:
+                        result = Math.multiplyExact(operand1, operand2);
+                        scale = Math.addExact(scale1, scale2);
+                        break;
+                    case Instructions.DIVIDE:
+                        checkDivisor(operand2 == 0);
+                        if (operand1 % operand2 != 0 || (operand1 == Long.MIN_VALUE && operand2 == -1)) {
+                            return false;
+                        }
+                        result = operand1 / operand2;
+                        scale = Math.subtractExact(scale1, scale2);
+                        break;
+                    default:
+                        throw new SolverException("Unknown opcode: " + opcode);
+                }
+            }
+        } catch (ArithmeticException e) {
+            return false;
+        }
+
+        if (precision > 0 && precision < POWERS_OF_TEN.length
+                && (result >= POWERS_OF_TEN[precision] || result <= -POWERS_OF_TEN[precision])) {
+            // the result must be rounded
+            return false;
+        }
+        unscaled[first] = result;
+        scales[first] = scale;
+        return true;
+    }
+
+    /**
+     * Calculates the result of an operation on {@code BigDecimal} numbers.
+     *
+     * @param opcode      Opcode of the operation.
+     * @param operand1    The first operand.
+     * @param operand2    The second operand, ignored by unary operations.
+     * @param mathContext Precision and rounding of the result.
+     * @return Result of a calculation.
+     * @throws SolverException if division by zero occurs,
+     *                         if a quotient cannot be represented
+     *                         with unlimited precision, or if a result
+     *                         cannot be represented with the precision
+     *                         and rounding of {@code mathContext}.
+     */
+    static BigDecimal calculate(int opcode, BigDecimal operand1, BigDecimal operand2, MathContext mathContext) {
+        try {
+            switch (opcode) {
+                case Instructions.ADD:
+                    return operand1.add(operand2, mathContext);
+                case Instructions.SUBTRACT:
+                    return operand1.subtract(operand2, mathContext);
+                case Instructions.MULTIPLY:
+                    return operand1.multiply(operand2, mathContext);
+                case Instructions.DIVIDE:
+                    checkDivisor(operand2.signum() == 0);
+                    try {
+                        return operand1.divide(operand2, mathContext);
+                    } catch (ArithmeticException e) {
+                        throw new SolverException("Solution error: quotient has no exact representation.", e);
+                    }
+                case REMAINDER:
+                    checkDivisor(operand2.signum() == 0);
+                    return operand1.remainder(operand2, mathContext);
+                case NEGATE:
+                    return operand1.negate(mathContext);
+                case ABSOLUTE:
+                    return operand1.abs(mathContext);
+                default:
+                    throw new SolverException("Unknown opcode: " + opcode);
+            }
+        } catch (ArithmeticException e) {
+            throw new SolverException("Solution error: result cannot be represented with "
+                    + mathContext + ".", e);
+        }
+    }
+
+    /**
+     * Utility method.
+     * Multiplies a number by a power of ten.
+     *
+     * @throws ArithmeticException if the result does not fit into {@code long}.
+     */
+    private static long rescale(long value, int digits) {
+        if (digits == 0) {
+            return value;
+        }
+        if (digits >= POWERS_OF_TEN.length) {
+            throw new ArithmeticException("Scale is too large.");
+        }
+        return Math.multiplyExact(value, POWERS_OF_TEN[digits]);
+    }
+
+    private static void checkDivisor(boolean zero) {
+        if (zero) {
+            throw new SolverException(new ArithmeticException("Division by zero."));
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package by.epam.training.solvers.mathematical;
+
+import by.epam.training.solvers.exception.SolverException;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utility class.
+ * Stores compiled expressions in a compact binary form
+ * and loads them back without parsing.
+ * <p>Expressions can be compiled once, for example at deploy time,
+ * and loaded at startup at the cost of reading their programs:
+ * neither validation nor tokenization nor optimization is repeated.
+ * <p>An archive starts with a header: magic number {@code "RPNX"},
+ * version of the format and count of expressions. Each expression
+ * is stored as its optimized RPN program: one byte per opcode,
+ * operands and counts as variable-length integers, constants as
+ * 8-byte doubles, names of variables and functions as ASCII strings.
+ * All numbers are big-endian.
+ * <p>Functions are stored by name and arity and registered operators
+ * by symbol and arity. On load they are bound to functions and operators
+ * of given registries, so an archive does not depend on order
+ * of registration.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.1
+ */
+public final class ExpressionArchive {
+
+    /**
+     * Magic number {@code "RPNX"} that starts an archive.
+     */
+    private static final int MAGIC = 0x52504E58;
+    /**
+     * Version of the format, increased on incompatible changes.
+     */
+    private static final short VERSION = 1;
+    /**
+     * Mapping of opcodes of built-in operators, {@code 0} for other opcodes.
+     */
+    private static final int[] STANDARD_OPCODES = new int[Instructions.MAX_OPCODE + 1];
+
+    static {
+        for (int opcode = Instructions.ADD; opcode < Instructions.CALL_FUNCTION; opcode++) {
+            STANDARD_OPCODES[opcode] = opcode;
+        }
+    }
+
+    private ExpressionArchive() {
+    }
+
+    /**
+     * Writes compiled expressions into a file.
+     * An existing file is replaced.
+     *
+     * @param file        The file.
+     * @param expressions Compiled expressions.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(Path file, List<CompiledExpression> expressions) throws IOException {
+        try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(file))) {
+            write(output, expressions);
+        }
+    }
+
+    /**
+     * Converts compiled expressions into an archive.
+     *
+     * @param expressions Compiled expressions.
+     * @return The archive.
+     */
+    public static byte[] toBytes(List<CompiledExpression> expressions) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try {
+            write(output, expressions);
+        } catch (IOException e) {
+            throw new AssertionError("Writing into memory failed.", e);
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * Loads expressions from a file with standard operators and functions only.
+     *
+     * @param file The file.
+     * @return Compiled expressions in order of the archive.
+     * @throws IOException     if the file cannot be read.
+     * @throws SolverException if the file is not an archive of a supported version,
+     *                         or if it is corrupted.
+     */
+    public static List<CompiledExpression> load(Path file) throws IOException {
+        return load(file, new OperatorRegistry(), new FunctionRegistry());
+    }
+
+    /**
+     * Loads expressions from a file.
+     * The file is memory-mapped and decoded in place.
+     *
+     * @param file      The file.
+     * @param operators Registry of operators used by expressions.
+     * @param functions Registry of functions called by expressions.
+     * @return Compiled expressions in order of the archive.
+     * @throws IOException     if the file cannot be read.
+     * @throws SolverException if the file is not an archive of a supported version,
+     *                         if it is corrupted, or if an operator
+     *                         or a function is not registered.
+     */
+    public static List<CompiledExpression> load(Path file, OperatorRegistry operators,
+                                                FunctionRegistry functions) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return load(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), operators, functions);
+        }
+    }
+
+    /**
+     * Loads expressions from an archive.
+     *
+     * @param archive   The archive, read from its position.
+     * @param operators Registry of operators used by expressions.
+     * @param functions Registry of functions called by expressions.
+     * @return Compiled expressions in order of the archive.
+     * @throws SolverException if data is not an archive of a supported version,
+     *                         if it is corrupted, or if an operator
+     *                         or a function is not registered.
+     */
+    public static List<CompiledExpression> load(ByteBuffer archive, OperatorRegistry operators,
+                                                FunctionRegistry functions) {
+        OperatorTable operatorTable = operators.table();
+        MathFunction[] registeredFunctions = functions.functions();
+        try {
+            if (archive.getInt() != MAGIC) {
+                throw new SolverException("Data is not an archive of expressions.");
+            }
+            short version = archive.getShort();
+            if (version != VERSION) {
+                throw new SolverException("Unsupported version of archive: " + version);
+            }
+            int count = archive.getInt();
+            List<CompiledExpression> expressions = new ArrayList<>(Math.min(count, 1 << 16));
+            for (int i = 0; i < count; i++) {
+                expressions.add(readExpression(archive, operatorTable, registeredFunctions));
+            }
+            return expressions;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new SolverException("Archive of expressions is corrupted.", e);
+        }
+    }
+
+    /**
+     * Utility method.
+     * Writes header and expressions.
+     */
+    private static void write(OutputStream stream, List<CompiledExpression> expressions) throws IOException {
+        DataOutputStream output = new DataOutputStream(stream);
+        output.writeInt(MAGIC);
+        output.writeShort(VERSION);
+        output.writeInt(expressions.size());
+        for (CompiledExpression expression : expressions) {
+            writeExpression(output, expression);
+        }
+        output.flush();
+    }
+
+    /**
+     * Utility method.
+     * Writes program of an expression along with everything it refers to.
+     */
+    private static void writeExpression(DataOutputStream output, CompiledExpression expression) throws IOException {
+        int[] instructions = expression.instructions();
+        Operator[] operators = expression.operators();
+
+        writeCount(output, expression.getSourceInstructionCount());
+        writeCount(output, expression.variableNames().length);
+        for (String variable : expression.variableNames()) {
+            writeName(output, variable);
+        }
+        writeCount(output, expression.functions().length);
+        for (MathFunction function : expression.functions()) {
+            writeName(output, function.getName());
+            writeCount(output, function.getArity());
+        }
+
+        int registeredCount = 0;
+        for (int opcode = Instructions.FIRST_CUSTOM_OPCODE; opcode < operators.length; opcode++) {
+            registeredCount += usesOpcode(instructions, opcode) ? 1 : 0;
+        }
+        writeCount(output, registeredCount);
+        for (int opcode = Instructions.FIRST_CUSTOM_OPCODE; opcode < operators.length; opcode++) {
+            if (usesOpcode(instructions, opcode)) {
+                output.writeByte(opcode);
+                writeName(output, operators[opcode].getSymbol());
+                output.writeByte(operators[opcode].getArity());
+            }
+        }
+
+        writeCount(output, expression.constants().length);
+        for (double constant : expression.constants()) {
+            output.writeDouble(constant);
+        }
+        writeCount(output, instructions.length);
+        for (int instruction : instructions) {
+            int opcode = Instructions.opcode(instruction);
+            output.writeByte(opcode);
+            if (hasOperand(opcode)) {
+                writeCount(output, Instructions.operand(instruction));
+            }
+        }
+    }
+
+    /**
+     * Utility method.
+     * Reads an expression and binds it to registered operators and functions.
+     */
+    private static CompiledExpression readExpression(ByteBuffer input, OperatorTable operatorTable,
+                                                     MathFunction[] registeredFunctions) {
+        int sourceInstructionCount = readCount(input);
+        String[] variables = new String[readCount(input, 1)];
+        for (int i = 0; i < variables.length; i++) {
+            variables[i] = readName(input);
+        }
+        MathFunction[] functions = new MathFunction[readCount(input, 2)];
+        for (int i = 0; i < functions.length; i++) {
+            String name = readName(input);
+            functions[i] = findFunction(registeredFunctions, name, readCount(input));
+        }
+
+        // opcodes of registered operators in the archive are mapped to opcodes of the registry
+        int registeredCount = readCount(input, 3);
+        int[] opcodes = registeredCount == 0 ? STANDARD_OPCODES : STANDARD_OPCODES.clone();
+        for (int i = 0; i < registeredCount; i++) {
+            int opcode = input.get() & 0xFF;
+            String symbol = readName(input);
+            opcodes[opcode] = findOpcode(operatorTable, symbol, input.get());
+        }
+
+        double[] constants = new double[readCount(input, Double.BYTES)];
+        for (int i = 0; i < constants.length; i++) {
+            constants[i] = input.getDouble();
+        }
+        int[] instructions = new int[readCount(input, 1)];
+        for (int i = 0; i < instructions.length; i++) {
+            int opcode = input.get() & 0xFF;
+            if (hasOperand(opcode)) {
+                int operand = readCount(input);
+                int limit = opcode == Instructions.PUSH_CONSTANT ? constants.length
+                        : opcode == Instructions.LOAD_VARIABLE ? variables.length : functions.length;
+                if (operand >= limit) {
+                    throw new SolverException("Archive of expressions is corrupted.");
+                }
+                instructions[i] = Instructions.encode(opcode, operand);
+            } else {
+                if (opcodes[opcode] == 0) {
+                    throw new SolverException("Archive of expressions is corrupted.");
+                }
+                instructions[i] = Instructions.encode(opcodes[opcode]);
+            }
+        }
+
+        return new CompiledExpression(instructions, constants, variables, functions,
+                operatorTable.operators(), sourceInstructionCount);
+    }
+
+    private static boolean hasOperand(int opcode) {
+        return Instructions.isValue(opcode) || opcode == Instructions.CALL_FUNCTION;
+    }
+
+    private static boolean usesOpcode(int[] instructions, int opcode) {
+        for (int instruction : instructions) {
+            if (Instructions.opcode(instruction) == opcode) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static MathFunction findFunction(MathFunction[] functions, String name, int arity) {
+        for (MathFunction function : functions) {
+            if (function.getArity() == arity && function.getName().equals(name)) {
+                return function;
+            }
+        }
+        throw new SolverException("Function " + name + "/" + arity + " is not registered.");
+    }
+
+    private static int findOpcode(OperatorTable operatorTable, String symbol, int arity) {
+        Operator operator = operatorTable.find(symbol, arity);
+        Operator[] operators = operatorTable.operators();
+        for (int opcode = Instructions.FIRST_CUSTOM_OPCODE; opcode < operators.length; opcode++) {
+            if (operators[opcode] == operator) {
+                return opcode;
+            }
+        }
+        throw new SolverException("Operator '" + symbol + "' of arity " + arity + " is not registered.");
+    }
+
+    /**
+     * Utility method.
+     * Writes a non-negative integer in 7-bit groups, lowest first.
+     * The highest bit of a byte is set if more groups follow.
+     */
+    private static void writeCount(DataOutputStream output, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            output.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte(value);
+    }
+
+    /**
+     * Utility method.
+     * Reads an integer written by {@link #writeCount(DataOutputStream, int)}.
+     */
+    private static int readCount(ByteBuffer input) {
+        int value = 0;
+        for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+            byte part = input.get();
+            value |= (part & 0x7F) << shift;
+            if (part >= 0) {
+                if (value < 0) {
+                    break;
+                }
+                return value;
+            }
+        }
+        throw new SolverException("Archive of expressions is corrupted.");
+    }
+
+    /**
+     * Utility method.
+     * Reads count of elements that follow it, so that arrays are not
+     * allocated for counts that the rest of a corrupted archive cannot hold.
+     *
+     * @param minElementSize Minimal size of an encoded element in bytes.
+     * @throws SolverException if the rest of the archive is too short.
+     */
+    private static int readCount(ByteBuffer input, int minElementSize) {
+        int count = readCount(input);
+        if ((long) count * minElementSize > input.remaining()) {
+            throw new SolverException("Archive of expressions is corrupted.");
+        }
+        return count;
+    }
+
+    private static void writeName(DataOutputStream output, String name) throws IOException {
+        byte[] bytes = name.getBytes(StandardCharsets.US_ASCII);
+        writeCount(output, bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readName(ByteBuffer input) {
+        byte[] bytes = new byte[readCount(input, 1)];
+        input.get(bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,610 @@
+package by.epam.training.solvers.mathematical;
+
+import by.epam.training.solvers.exception.ExpressionSyntaxException;
+import by.epam.training.solvers.exception.SolverException;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Converts expressions into compiled RPN form.
+ * <p>Keeps all intermediate state of a conversion:
+ * tokens, operators' stack and output.
+ * The state is reused between conversions, so instances
+ * are thread-confined: each thread obtains its own
+ * with {@link #acquire()} and returns it with {@link #release()}.
+ * <p>Operators are resolved against an {@link OperatorTable},
+ * so that precedence and associativity of each operator
+ * are defined by the table rather than by the compiler.
+ * Function calls are bound to {@link MathFunction functions}
+ * by name and count of arguments.
+ * <p>Expressions are compiled either for evaluation with {@code double},
+ * or for exact evaluation with {@link BigDecimal}.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.5
+ */
+final class ExpressionCompiler {
+
+    /**
+     * Marks an open bracket in operators' stack.
+     */
+    private static final int OPEN_BRACKET_MARKER = -1;
+    /**
+     * Marks an open bracket of a function call in operators' stack.
+     */
+    private static final int FUNCTION_CALL_MARKER = -2;
+    /**
+     * Count of tokens above which buffers
+     * are not kept for reuse after conversion.
+     */
+    private static final int MAX_RETAINED_TOKENS = 4096;
+
+    /**
+     * Compiler of the current thread.
+     */
+    private static final ThreadLocal<ExpressionCompiler> threadCompiler =
+            ThreadLocal.withInitial(ExpressionCompiler::new);
+
+    /**
+     * Tokenizer that is used to split an expression into components.
+     */
+    private final ExpressionLexer lexer = new ExpressionLexer();
+    /**
+     * A stack that is used for temporary storage of operators.
+     * Each entry is an opcode of one operator or an open bracket marker.
+     */
+    private final IntStack operatorStack = new IntStack();
+    /**
+     * Index of name token of each unclosed function call.
+     */
+    private final IntStack callTokens = new IntStack();
+    /**
+     * Count of arguments met so far in each unclosed function call.
+     */
+    private final IntStack argumentCounts = new IntStack();
+    /**
+     * A stack that is used to store the
+     * notation of an expression in RPN.
+     * Each entry is one encoded instruction.
+     */
+    private final IntStack outputStack = new IntStack();
+    /**
+     * Numerical constants referenced by instructions in output stack.
+     */
+    private double[] constants = new double[16];
+    private int constantsCount;
+    /**
+     * Names of variables referenced by instructions in output stack,
+     * in order of their first occurrence.
+     */
+    private final List<String> variables = new ArrayList<>();
+    /**
+     * Functions referenced by instructions in output stack.
+     */
+    private final List<MathFunction> calledFunctions = new ArrayList<>();
+    /**
+     * The expression that is being converted.
+     */
+    private CharSequence expression;
+    /**
+     * Operators that may occur in the expression.
+     */
+    private OperatorTable operators = OperatorTable.STANDARD;
+    /**
+     * Functions that may be called from the expression.
+     */
+    private MathFunction[] functions = FunctionRegistry.STANDARD_FUNCTIONS;
+    private boolean inUse;
+
+    /**
+     * Creates a compiler that is not bound to any thread.
+     * Prefer {@link #acquire()}, which reuses compiler of the current thread.
+     */
+    ExpressionCompiler() {
+    }
+
+    /**
+     * Acquires compiler of the current thread.
+     * Nested acquisitions on the same thread
+     * receive a fresh compiler.
+     *
+     * @return Compiler that must not be passed to other threads.
+     */
+    static ExpressionCompiler acquire() {
+        ExpressionCompiler compiler = threadCompiler.get();
+        if (compiler.inUse) {
+            return new ExpressionCompiler();
+        }
+        compiler.inUse = true;
+        return compiler;
+    }
+
+    /**
+     * Returns compiler to the current thread.
+     * Drops it if it has grown too large to be retained.
+     */
+    void release() {
+        expression = null;
+        operators = OperatorTable.STANDARD;
+        functions = FunctionRegistry.STANDARD_FUNCTIONS;
+        calledFunctions.clear();
+        if (threadCompiler.get() == this) {
+            inUse = false;
+            if (lexer.count() > MAX_RETAINED_TOKENS) {
+                threadCompiler.remove();
+            }
+        }
+    }
+
+    /**
+     * Converts an expression with built-in operators
+     * and standard functions only into compiled RPN form.
+     *
+     * @param expression The expression.
+     * @return Compiled expression.
+     * @throws ExpressionSyntaxException if syntax of the expression is invalid.
+     */
+    CompiledExpression compile(CharSequence expression) {
+        return compile(expression, OperatorTable.STANDARD, FunctionRegistry.STANDARD_FUNCTIONS);
+    }
+
+    /**
+     * Converts an expression into compiled RPN form.
+     *
+     * @param expression The expression.
+     * @param operators  Operators that may occur in the expression.
+     * @param functions  Functions that may be called from the expression.
+     * @return Compiled expression.
+     * @throws ExpressionSyntaxException if syntax of the expression is invalid.
+     */
+    CompiledExpression compile(CharSequence expression, OperatorTable operators, MathFunction[] functions) {
+        try {
+            tokenize(expression, operators, functions);
+            return compileTokens();
+        } finally {
+            this.expression = null;
+        }
+    }
+
+    /**
+     * Converts an expression into a form evaluated exactly.
+     * The expression is not optimized, as folding constants
+     * with {@code double} would lose precision.
+     *
+     * @param expression  The expression.
+     * @param operators   Operators that may occur in the expression.
+     * @param functions   Functions that may be called from the expression.
+     * @param mathContext Precision and rounding of operations.
+     * @return Exact expression.
+     * @throws ExpressionSyntaxException if syntax of the expression is invalid.
+     * @throws SolverException if the expression contains operators
+     *                         or functions without exact counterparts.
+     */
+    ExactExpression compileExact(CharSequence expression, OperatorTable operators, MathFunction[] functions,
+                                 MathContext mathContext) {
+        try {
+            tokenize(expression, operators, functions);
+            parseTokens();
+
+            // constants are stored in order of number tokens
+            BigDecimal[] exactConstants = new BigDecimal[constantsCount];
+            int constant = 0;
+            for (int token = 0; token < lexer.count(); token++) {
+                if (lexer.kind(token) == ExpressionLexer.NUMBER) {
+                    exactConstants[constant++] = new BigDecimal(
+                            expression.subSequence(lexer.start(token), lexer.end(token)).toString());
+                }
+            }
+            return new ExactExpression(outputStack.toArray(), exactConstants, variables.toArray(new String[0]),
+                    calledFunctions.toArray(new MathFunction[0]), operators.operators(), mathContext);
+        } finally {
+            this.expression = null;
+        }
+    }
+
+    /**
+     * Splits an expression with built-in operators
+     * and standard functions only into tokens.
+     *
+     * @param expression The expression.
+     * @throws ExpressionSyntaxException if the expression contains unknown symbols.
+     */
+    void tokenize(CharSequence expression) {
+        tokenize(expression, OperatorTable.STANDARD, FunctionRegistry.STANDARD_FUNCTIONS);
+    }
+
+    /**
+     * Splits an expression into tokens.
+     * First phase of {@link #compile(CharSequence, OperatorTable, MathFunction[])}.
+     *
+     * @param expression The expression.
+     * @param operators  Operators that may occur in the expression.
+     * @param functions  Functions that may be called from the expression.
+     * @throws ExpressionSyntaxException if the expression contains unknown symbols.
+     */
+    void tokenize(CharSequence expression, OperatorTable operators, MathFunction[] functions) {
+        this.expression = expression;
+        this.operators = operators;
+        this.functions = functions;
+        lexer.tokenize(expression, operators);
+    }
+
+    /**
+     * @return Count of tokens of the last tokenized expression.
+     */
+    int tokenCount() {
+        return lexer.count();
+    }
+
+    /**
+     * Converts tokens of the last tokenized expression into compiled RPN form
+     * and optimizes it.
+     * Second phase of {@link #compile(CharSequence, OperatorTable, MathFunction[])}.
+     *
+     * @return Compiled expression.
+     * @throws ExpressionSyntaxException if syntax of the expression is invalid.
+     */
+    CompiledExpression compileTokens() {
+        parseTokens();
+        return ExpressionOptimizer.optimize(outputStack.toArray(), Arrays.copyOf(constants, constantsCount),
+                variables.toArray(new String[0]), calledFunctions.toArray(new MathFunction[0]), operators);
+    }
+
+    /**
+     * Utility method.
+     * Resets output of the previous conversion and converts
+     * tokens of the last tokenized expression into RPN form.
+     */
+    private void parseTokens() {
+        operatorStack.clear();
+        callTokens.clear();
+        argumentCounts.clear();
+        outputStack.clear();
+        constantsCount = 0;
+        variables.clear();
+        calledFunctions.clear();
+        parseExpressionToReversePolishNotation();
+    }
+
+    /**
+     * Converts tokens of an expression into
+     * RPN form.
+     * Dispatches on kind of each token produced by lexer.
+     * <p>Validates syntax of an expression in the same pass.
+     * Currently, any of the following is forbidden within expression:
+     * <ul>
+     *     <li>Empty expression.
+     *     <li>Operand right after another operand or a close bracket
+     *     (this includes operands separated only by spaces and names
+     *     of variables that start with a digit).
+     *     <li>Open bracket right after an operand or a close bracket.
+     *     <li>Binary operator at the start of expression, right after
+     *     another operator or right after an open bracket.
+     *     <li>Prefix operator right after an operand or a close bracket.
+     *     <li>Close bracket right after an operator or an open bracket,
+     *     except for a call of a function without arguments.
+     *     <li>Operator at the end of expression.
+     *     <li>Unmatched brackets.
+     *     <li>Comma outside of a function call, or without
+     *     an argument on either side.
+     *     <li>Call of an unknown function, or with wrong count of arguments.
+     *     <li>Division by zero (in an initial expression).
+     * </ul>
+     *
+     * @throws ExpressionSyntaxException at the first violation.
+     */
+    private void parseExpressionToReversePolishNotation() {
+        boolean expectOperand = true;
+        int previousOperator = -1;
+
+        for (int token = 0; token < lexer.count(); token++) {
+            int kind = lexer.kind(token);
+            int binaryOpcode = -1;
+
+            switch (kind) {
+                case ExpressionLexer.NUMBER:
+                case ExpressionLexer.VARIABLE:
+                    if (!expectOperand) {
+                        throw new ExpressionSyntaxException("Operand without operator", lexer.start(token));
+                    }
+                    if (kind == ExpressionLexer.VARIABLE && isFunctionName(token)) {
+                        // the call is opened by the following bracket
+                        callTokens.push(token);
+                        break;
+                    } else if (kind == ExpressionLexer.VARIABLE) {
+                        outputStack.push(Instructions.encode(Instructions.LOAD_VARIABLE,
+                                addVariable(token)));
+                    } else if (previousOperator == Instructions.DIVIDE && lexer.value(token) == 0) {
+                        throw new ExpressionSyntaxException("Division by zero", lexer.start(token));
+                    } else if (constantsCount > Instructions.MAX_OPERAND) {
+                        throw new ExpressionSyntaxException("Too many numbers in expression", lexer.start(token));
+                    } else {
+                        outputStack.push(Instructions.encode(Instructions.PUSH_CONSTANT,
+                                addConstant(lexer.value(token))));
+                    }
+                    expectOperand = false;
+                    break;
+                case ExpressionLexer.OPERATOR:
+                    if (expectOperand) {
+                        int prefixOpcode = operators.prefixOpcode(lexer.symbol(token));
+                        if (prefixOpcode < 0) {
+                            throw new ExpressionSyntaxException("Operator without left operand", lexer.start(token));
+                        }
+                        operatorStack.push(prefixOpcode);
+                        break;
+                    }
+                    binaryOpcode = operators.binaryOpcode(lexer.symbol(token));
+                    if (binaryOpcode < 0) {
+                        throw new ExpressionSyntaxException("Prefix operator after operand", lexer.start(token));
+                    }
+                    operateWithOperatorComponent(binaryOpcode);
+                    expectOperand = true;
+                    break;
+                case ExpressionLexer.OPEN_BRACKET:
+                    if (!expectOperand) {
+                        throw new ExpressionSyntaxException("Open bracket without operator", lexer.start(token));
+                    }
+                    if (!callTokens.isEmpty() && callTokens.peek() == token - 1) {
+                        operatorStack.push(FUNCTION_CALL_MARKER);
+                        argumentCounts.push(1);
+                    } else {
+                        operatorStack.push(OPEN_BRACKET_MARKER);
+                    }
+                    break;
+                case ExpressionLexer.COMMA:
+                    if (expectOperand) {
+                        throw new ExpressionSyntaxException("Comma without argument", lexer.start(token));
+                    }
+                    operateWithCommaComponent(token);
+                    expectOperand = true;
+                    break;
+                default:
+                    if (expectOperand && !isEmptyCall(token)) {
+                        throw new ExpressionSyntaxException("Close bracket without operand", lexer.start(token));
+                    }
+                    operateWithCloseBracketComponent(token);
+                    expectOperand = false;
+            }
+            previousOperator = binaryOpcode;
+        }
+
+        if (expectOperand) {
+            throw new ExpressionSyntaxException(lexer.count() == 0
+                    ? "Empty expression" : "Expression ends without operand", expression.length());
+        }
+
+        while (!operatorStack.isEmpty()) {
+            int opcode = operatorStack.pop();
+            if (opcode == OPEN_BRACKET_MARKER || opcode == FUNCTION_CALL_MARKER) {
+                throw new ExpressionSyntaxException("Unclosed bracket", expression.length());
+            }
+            outputStack.push(Instructions.encode(opcode));
+        }
+    }
+
+    /**
+     * Utility method.
+     * Operates with a component that is operator.
+     * <p>This method implements a part of RPN algorithm.
+     * If operators' stack is empty, if its last element is
+     * a bracket, or if {@code operator} has higher priority than
+     * the last element in stack, {@code operator} is pushed into
+     * operators' stack.
+     * <p>If an operator has lower priority than last operator
+     * in operators' stack, or equal priority and left associativity,
+     * this last operator in stack is pushed
+     * into output stack. Then this check is repeated until
+     * its conditions are not met. After that,
+     * {@code operator} is pushed into operators' stack.
+     *
+     * @param operator Opcode of the operator.
+     */
+    private void operateWithOperatorComponent(int operator) {
+        while (comparePriorityWithLastInStack(operator) < 0) {
+            outputStack.push(Instructions.encode(operatorStack.pop()));
+        }
+        operatorStack.push(operator);
+    }
+
+    /**
+     * Utility method.
+     * Operates with a component that is a close bracket.
+     * <p>This method implements a part of RPN algorithm.
+     * Operators are popped from operators' stack and pushed into output stack one by one
+     * until an open bracket becomes the top element of operators' stack.
+     * This open bracket is then deleted.
+     * If the bracket opens a function call, the call is pushed into output stack.
+     *
+     * @param token Index of the bracket token.
+     * @throws ExpressionSyntaxException if there is no matching open bracket,
+     *                                   or if the called function is unknown.
+     */
+    private void operateWithCloseBracketComponent(int token) {
+        boolean emptyCall = isEmptyCall(token);
+        int operator;
+        while (true) {
+            if (operatorStack.isEmpty()) {
+                throw new ExpressionSyntaxException("Unmatched close bracket", lexer.start(token));
+            }
+            if ((operator = operatorStack.pop()) == OPEN_BRACKET_MARKER) {
+                return;
+            }
+            if (operator == FUNCTION_CALL_MARKER) {
+                int argumentCount = argumentCounts.pop();
+                outputStack.push(Instructions.encode(Instructions.CALL_FUNCTION,
+                        addFunctionCall(callTokens.pop(), emptyCall ? 0 : argumentCount)));
+                return;
+            }
+            outputStack.push(Instructions.encode(operator));
+        }
+    }
+
+    /**
+     * Utility method.
+     * Operates with a component that is a comma.
+     * <p>Operators of the finished argument are popped from operators' stack
+     * and pushed into output stack one by one until the open bracket
+     * of a function call becomes the top element of operators' stack.
+     *
+     * @param token Index of the comma token.
+     * @throws ExpressionSyntaxException if the comma is not inside a function call.
+     */
+    private void operateWithCommaComponent(int token) {
+        int operator;
+        while (!operatorStack.isEmpty() && (operator = operatorStack.peek()) != OPEN_BRACKET_MARKER) {
+            if (operator == FUNCTION_CALL_MARKER) {
+                argumentCounts.push(argumentCounts.pop() + 1);
+                return;
+            }
+            outputStack.push(Instructions.encode(operatorStack.pop()));
+        }
+        throw new ExpressionSyntaxException("Comma outside of function call", lexer.start(token));
+    }
+
+    /**
+     * Utility method.
+     * Checks if a name token is followed by an open bracket,
+     * that is if it names a function.
+     */
+    private boolean isFunctionName(int token) {
+        return token + 1 < lexer.count() && lexer.kind(token + 1) == ExpressionLexer.OPEN_BRACKET;
+    }
+
+    /**
+     * Utility method.
+     * Checks if a close bracket ends a function call without arguments.
+     */
+    private boolean isEmptyCall(int token) {
+        return token > 0 && lexer.kind(token - 1) == ExpressionLexer.OPEN_BRACKET
+                && !operatorStack.isEmpty() && operatorStack.peek() == FUNCTION_CALL_MARKER;
+    }
+
+    /**
+     * Utility method.
+     * Compares priority level of a passed operator
+     * with the last operator in operators' stack.
+     *
+     * A right-associative operator is considered to have
+     * higher priority than an operator of the same precedence.
+     *
+     * @param operator Opcode of the operator to check.
+     * @return {@code 1} if the priority of the passed operator is higher,
+     * or if operators' stack is empty,
+     * or if the top element of operators' stack is a bracket.
+     * {@code -1} otherwise.
+     */
+    private int comparePriorityWithLastInStack(int operator) {
+
+        if (operatorStack.isEmpty()) {
+            return 1;
+        }
+
+        int topInStack = operatorStack.peek();
+
+        if (topInStack == OPEN_BRACKET_MARKER || topInStack == FUNCTION_CALL_MARKER) {
+            return 1;
+        }
+
+        Operator passed = operators.operator(operator);
+        int topPrecedence = operators.operator(topInStack).getPrecedence();
+
+        if (passed.getPrecedence() > topPrecedence
+                || (passed.getPrecedence() == topPrecedence
+                && passed.getAssociativity() == Operator.Associativity.RIGHT)) {
+            return 1;
+        } else return -1;
+    }
+
+    /**
+     * Utility method.
+     * Stores a numerical constant of an expression.
+     *
+     * @param value Value of the constant.
+     * @return Index of the constant.
+     */
+    private int addConstant(double value) {
+        if (constantsCount == constants.length) {
+            constants = Arrays.copyOf(constants, constantsCount * 2);
+        }
+        constants[constantsCount] = value;
+        return constantsCount++;
+    }
+
+    /**
+     * Utility method.
+     * Stores a name of a variable of an expression
+     * if it is not stored yet.
+     *
+     * @param token Index of variable token.
+     * @return Index of the variable.
+     */
+    private int addVariable(int token) {
+        int start = lexer.start(token);
+        int length = lexer.end(token) - start;
+
+        for (int i = 0; i < variables.size(); i++) {
+            String name = variables.get(i);
+            if (name.length() == length && matchesName(start, name)) {
+                return i;
+            }
+        }
+
+        variables.add(expression.subSequence(start, start + length).toString());
+        return variables.size() - 1;
+    }
+
+    /**
+     * Utility method.
+     * Binds a function call to a function
+     * and stores the function if it is not stored yet.
+     *
+     * @param token         Index of name token of the call.
+     * @param argumentCount Count of arguments of the call.
+     * @return Index of the function.
+     * @throws ExpressionSyntaxException if there is no function with such
+     *                                   name and count of arguments.
+     */
+    private int addFunctionCall(int token, int argumentCount) {
+        int start = lexer.start(token);
+        int length = lexer.end(token) - start;
+        boolean nameFound = false;
+
+        for (MathFunction function : functions) {
+            String name = function.getName();
+            if (name.length() == length && matchesName(start, name)) {
+                if (function.getArity() == argumentCount) {
+                    int index = calledFunctions.indexOf(function);
+                    if (index < 0) {
+                        calledFunctions.add(function);
+                        index = calledFunctions.size() - 1;
+                    }
+                    return index;
+                }
+                nameFound = true;
+            }
+        }
+
+        String name = expression.subSequence(start, start + length).toString();
+        throw new ExpressionSyntaxException(nameFound
+                ? "Function '" + name + "' does not accept " + argumentCount + " arguments"
+                : "Unknown function '" + name + "'", start);
+    }
+
+    /**
+     * Utility method.
+     * Checks if the expression contains a name at given position.
+     */
+    private boolean matchesName(int start, String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (expression.charAt(start + i) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
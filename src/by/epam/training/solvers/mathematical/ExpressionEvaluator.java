@@ -0,0 +1,21 @@
+package by.epam.training.solvers.mathematical;
+
+/**
+ * Evaluator of a compiled expression
+ * that is backed by generated bytecode.
+ * <p>Implemented by hidden classes generated
+ * by {@link BytecodeGenerator}.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.0
+ */
+interface ExpressionEvaluator {
+
+    /**
+     * Calculates the result of an expression.
+     *
+     * @param values Values of variables in order of their indices.
+     * @return Result of solution as a double value.
+     */
+    double evaluate(double[] values);
+}
@@ -0,0 +1,343 @@
+package by.epam.training.solvers.mathematical;
+
+import by.epam.training.solvers.exception.SolverException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Solver of files with one mathematical expression per line.
+ * <p>The file is split into chunks that end at line boundaries.
+ * Chunks are memory-mapped and solved in parallel; expressions are tokenized
+ * directly from mapped bytes, without creating a String per line.
+ * Results are passed to a sink in order of lines.
+ * <p>Only a limited number of chunks is processed at once,
+ * so memory use does not depend on size of the file.
+ * <p>Lines are expected in an ASCII-compatible encoding
+ * and may end with either {@code \n} or {@code \r\n}.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.1
+ */
+public class ExpressionFileSolver {
+
+    private static final long DEFAULT_CHUNK_SIZE = 8L << 20;
+    /**
+     * Size of a buffer used to look for a line boundary.
+     */
+    private static final int BOUNDARY_SCAN_SIZE = 4096;
+
+    private final int parallelism;
+    private final long chunkSize;
+    private final ErrorPolicy errorPolicy;
+
+    /**
+     * Creates solver that uses all available processors,
+     * chunks of 8 MB and reports invalid lines to sink.
+     */
+    public ExpressionFileSolver() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE, ErrorPolicy.REPORT);
+    }
+
+    /**
+     * Creates solver.
+     *
+     * @param parallelism Count of threads solving chunks.
+     * @param chunkSize   Preferred size of a chunk in bytes.
+     *                    A chunk is extended to the end of its last line.
+     * @param errorPolicy Policy applied to lines that failed.
+     * @throws IllegalArgumentException if parallelism or chunk size is not positive,
+     *                                  or if chunk size exceeds {@code Integer.MAX_VALUE}.
+     */
+    public ExpressionFileSolver(int parallelism, long chunkSize, ErrorPolicy errorPolicy) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        if (chunkSize <= 0 || chunkSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Illegal chunk size: " + chunkSize);
+        }
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+        this.errorPolicy = errorPolicy;
+    }
+
+    /**
+     * Solves each line of input file and writes results
+     * to output file, one result per line.
+     * Lines that failed are written as {@code NaN}
+     * unless error policy skips them or fails.
+     *
+     * @param input  File with expressions.
+     * @param output File for results. Created or overwritten.
+     * @return Count of lines read.
+     * @throws IOException     if files cannot be read or written.
+     * @throws SolverException if a line failed and error policy is {@code FAIL}.
+     */
+    public long solve(Path input, Path output) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(output)) {
+            return solve(input, new ResultSink() {
+                @Override
+                public void accept(long lineNumber, double result) {
+                    write(Double.toString(result));
+                }
+
+                @Override
+                public void reject(long lineNumber, SolverException exception) {
+                    write("NaN");
+                }
+
+                private void write(String line) {
+                    try {
+                        writer.write(line);
+                        writer.newLine();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Solves each line of input file and passes results to sink.
+     * Sink is called from the calling thread in order of lines.
+     *
+     * @param input File with expressions.
+     * @param sink  Receiver of results.
+     * @return Count of lines read.
+     * @throws IOException     if file cannot be read.
+     * @throws SolverException if a line failed and error policy is {@code FAIL}.
+     */
+    public long solve(Path input, ResultSink sink) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "expression-file-solver");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            long lineNumber = 1;
+            Deque<Future<ChunkResult>> window = new ArrayDeque<>();
+
+            while (position < size || !window.isEmpty()) {
+                while (position < size && window.size() < parallelism * 2) {
+                    long end = findChunkEnd(channel, position, size);
+                    window.add(executor.submit(new ChunkTask(channel, position, end)));
+                    position = end;
+                }
+                lineNumber = deliver(awaitChunk(window.poll()), lineNumber, sink);
+            }
+            return lineNumber - 1;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Utility method.
+     * Passes results of a chunk to sink applying error policy.
+     *
+     * @return Number of the first line of the next chunk.
+     */
+    private long deliver(ChunkResult chunk, long firstLineNumber, ResultSink sink) {
+        for (int i = 0; i < chunk.count; i++) {
+            long lineNumber = firstLineNumber + i;
+            SolverException error = chunk.errors == null ? null : chunk.errors[i];
+
+            if (error == null) {
+                sink.accept(lineNumber, chunk.results[i]);
+            } else if (errorPolicy == ErrorPolicy.REPORT) {
+                sink.reject(lineNumber, error);
+            } else if (errorPolicy == ErrorPolicy.FAIL) {
+                throw new SolverException("Line " + lineNumber + ": " + error.getMessage(), error);
+            }
+        }
+        return firstLineNumber + chunk.count;
+    }
+
+    private static ChunkResult awaitChunk(Future<ChunkResult> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while solving file.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new SolverException(e.getCause());
+        }
+    }
+
+    /**
+     * Utility method.
+     * Finds end of a chunk that starts at {@code start}:
+     * position right after the first line break
+     * at or after preferred chunk size.
+     *
+     * @return Position of the end of the chunk.
+     */
+    private long findChunkEnd(FileChannel channel, long start, long size) throws IOException {
+        long position = start + chunkSize - 1;
+        ByteBuffer buffer = ByteBuffer.allocate(BOUNDARY_SCAN_SIZE);
+
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return checkChunkLength(start, position + i + 1);
+                }
+            }
+            position += Math.max(read, 1);
+        }
+        return checkChunkLength(start, size);
+    }
+
+    private static long checkChunkLength(long start, long end) throws IOException {
+        if (end - start > Integer.MAX_VALUE) {
+            throw new IOException("Line starting before position " + (end - 1) + " is too long.");
+        }
+        return end;
+    }
+
+    /**
+     * Policy applied to lines that failed to be solved.
+     * <ul>
+     *     <li>FAIL - stop solution with an exception naming the line.
+     *     <li>SKIP - pass nothing to sink for the line.
+     *     <li>REPORT - pass the exception to sink.
+     * </ul>
+     */
+    public enum ErrorPolicy {
+        FAIL,
+        SKIP,
+        REPORT
+    }
+
+    /**
+     * Receiver of results of a file solution.
+     * Lines are numbered from {@code 1}.
+     */
+    public interface ResultSink {
+        /**
+         * Receives result of a line.
+         *
+         * @param lineNumber Number of the line.
+         * @param result     Result of solution.
+         */
+        void accept(long lineNumber, double result);
+
+        /**
+         * Receives exception of a line that failed.
+         *
+         * @param lineNumber Number of the line.
+         * @param exception  Exception thrown while solving the line.
+         */
+        void reject(long lineNumber, SolverException exception);
+    }
+
+    /**
+     * Results of lines of one chunk in their order.
+     */
+    private static final class ChunkResult {
+        private double[] results = new double[1024];
+        /**
+         * Exceptions of failed lines,
+         * {@code null} until a line fails.
+         */
+        private SolverException[] errors;
+        private int count;
+
+        void add(double result) {
+            ensureCapacity();
+            results[count++] = result;
+        }
+
+        void addError(SolverException error) {
+            ensureCapacity();
+            if (errors == null) {
+                errors = new SolverException[results.length];
+            }
+            errors[count] = error;
+            results[count++] = Double.NaN;
+        }
+
+        private void ensureCapacity() {
+            if (count == results.length) {
+                results = Arrays.copyOf(results, count * 2);
+                if (errors != null) {
+                    errors = Arrays.copyOf(errors, count * 2);
+                }
+            }
+        }
+    }
+
+    /**
+     * Solves lines of one chunk of a file.
+     */
+    private static final class ChunkTask implements Callable<ChunkResult> {
+
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+
+        ChunkTask(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public ChunkResult call() throws IOException {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            ByteCharSequence line = new ByteCharSequence(buffer);
+            ChunkResult chunk = new ChunkResult();
+            int limit = buffer.limit();
+            int lineStart = 0;
+
+            ExpressionCompiler compiler = ExpressionCompiler.acquire();
+            try {
+                while (lineStart < limit) {
+                    int lineEnd = lineStart;
+                    while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                        lineEnd++;
+                    }
+                    int contentEnd = lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r'
+                            ? lineEnd - 1 : lineEnd;
+
+                    line.reset(lineStart, contentEnd - lineStart);
+                    try {
+                        chunk.add(compiler.compile(line).evaluate());
+                    } catch (RuntimeException e) {
+                        // a failure of any kind is confined to its line
+                        chunk.addError(e instanceof SolverException ? (SolverException) e : new SolverException(e));
+                    }
+                    lineStart = lineEnd + 1;
+                }
+            } finally {
+                compiler.release();
+            }
+            return chunk;
+        }
+    }
+}
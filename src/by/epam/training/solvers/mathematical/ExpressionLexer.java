@@ -0,0 +1,338 @@
+package by.epam.training.solvers.mathematical;
+
+import by.epam.training.solvers.exception.ExpressionSyntaxException;
+
+import java.util.Arrays;
+
+/**
+ * Hand-written tokenizer of mathematical expressions.
+ * <p>Splits an expression into tokens in a single pass over its characters,
+ * without regular expressions and without copying substrings.
+ * Each token is described by its kind and its span in the expression.
+ * Numbers are parsed into their values and symbols of operators
+ * are resolved against {@link OperatorTable} while scanning.
+ * Symbols are matched greedily: the longest known symbol wins.
+ * <p>Numerical literals consist of an integer part, a fractional part
+ * or both, optionally followed by an exponent: {@code 42}, {@code 1.5},
+ * {@code .5}, {@code 6.02e23}, {@code 1E-9}. Literals are converted
+ * into correctly rounded doubles right from characters of the expression,
+ * see {@link NumberParser}.
+ * <p>A minus sign right before a literal, where an operand is expected,
+ * belongs to the literal, unless a prefix operator {@code -} is registered:
+ * then it is the operator, with its own precedence.
+ * <p>Instances keep their buffers between calls to {@link #tokenize(CharSequence, OperatorTable)}
+ * and must not be shared between threads.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.4
+ */
+final class ExpressionLexer {
+
+    /**
+     * Token kind of a numerical literal.
+     */
+    static final int NUMBER = 0;
+    /**
+     * Token kind of an operator, either binary or prefix.
+     */
+    static final int OPERATOR = 1;
+    /**
+     * Token kind of an open bracket.
+     */
+    static final int OPEN_BRACKET = 2;
+    /**
+     * Token kind of a close bracket.
+     */
+    static final int CLOSE_BRACKET = 3;
+    /**
+     * Token kind of a named variable.
+     * A name starts with a letter or underscore and
+     * continues with letters, digits or underscores.
+     */
+    static final int VARIABLE = 4;
+    /**
+     * Token kind of a comma that separates arguments of a function call.
+     * A name followed by an open bracket is a name of a function.
+     */
+    static final int COMMA = 5;
+
+    /**
+     * Maximal absolute value of exponent of a literal that is tracked exactly.
+     * Larger exponents make any literal overflow or underflow.
+     */
+    private static final int MAX_EXPONENT = 100_000;
+    private static final int INITIAL_CAPACITY = 32;
+
+    private int[] kinds = new int[INITIAL_CAPACITY];
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private int[] ends = new int[INITIAL_CAPACITY];
+    /**
+     * Index of symbol of an operator token in operator table.
+     */
+    private int[] symbols = new int[INITIAL_CAPACITY];
+    /**
+     * Value of a number token.
+     */
+    private double[] values = new double[INITIAL_CAPACITY];
+    private int count;
+
+    /**
+     * Splits an expression into tokens.
+     * Space symbols are skipped.
+     *
+     * @param expression The expression.
+     * @param operators  Operators that may occur in the expression.
+     * @throws ExpressionSyntaxException if expression contains
+     *                         symbols that are not part of the grammar.
+     */
+    void tokenize(CharSequence expression, OperatorTable operators) {
+        count = 0;
+        int length = expression.length();
+        int position = 0;
+
+        while (position < length) {
+            char symbol = expression.charAt(position);
+
+            if (isDigit(symbol) || (symbol == '.' && isDigitAt(expression, position + 1))) {
+                position = scanNumber(expression, position, position);
+            } else if (isIdentifierStart(symbol)) {
+                position = scanVariable(expression, position);
+            } else if (symbol == '(') {
+                addToken(OPEN_BRACKET, position, position + 1);
+                position++;
+            } else if (symbol == ')') {
+                addToken(CLOSE_BRACKET, position, position + 1);
+                position++;
+            } else if (symbol == ',') {
+                addToken(COMMA, position, position + 1);
+                position++;
+            } else if (Character.isWhitespace(symbol)) {
+                position++;
+            } else {
+                int operatorSymbol = operators.matchSymbol(expression, position);
+                if (operatorSymbol < 0) {
+                    throw new ExpressionSyntaxException("Unexpected symbol '" + symbol + "'", position);
+                }
+                if (isSignOfLiteral(expression, position, operators, operatorSymbol)) {
+                    int literalEnd = scanNumber(expression, position, position + 1);
+                    if (!isFollowedByTighterOperator(expression, literalEnd, operators)) {
+                        position = literalEnd;
+                        continue;
+                    }
+                    // -2^2 is -(2^2): the minus stays an operator and the literal is scanned again
+                    count--;
+                }
+                int end = position + operators.symbolLength(operatorSymbol);
+                int token = addToken(OPERATOR, position, end);
+                symbols[token] = operatorSymbol;
+                position = end;
+            }
+        }
+    }
+
+    /**
+     * Utility method.
+     * Scans a numerical literal and adds it as a token.
+     * <p>Up to {@link NumberParser#MAX_DIGITS} significant digits
+     * are accumulated into {@code long}, the rest only affect
+     * the exponent. Such literal is converted exactly if rounding
+     * its digits down and up gives the same double.
+     * Literals that cannot be converted by {@link NumberParser}
+     * are passed to {@link Double#parseDouble(String)}.
+     *
+     * @param expression The expression.
+     * @param start      Position of the literal, including its sign.
+     * @param digitStart Position of the first digit or decimal point.
+     * @return Position right after the literal.
+     */
+    private int scanNumber(CharSequence expression, int start, int digitStart) {
+        int length = expression.length();
+        int position = digitStart;
+        long digits = 0;
+        int digitCount = 0;
+        int exponent = 0;
+        boolean truncated = false;
+        char symbol;
+
+        while (position < length && isDigit(symbol = expression.charAt(position))) {
+            if (digitCount < NumberParser.MAX_DIGITS) {
+                digits = digits * 10 + (symbol - '0');
+                digitCount += digits == 0 ? 0 : 1;
+            } else {
+                exponent++;
+                truncated |= symbol != '0';
+            }
+            position++;
+        }
+
+        if (position < length && expression.charAt(position) == '.' && isDigitAt(expression, position + 1)) {
+            position++;
+            while (position < length && isDigit(symbol = expression.charAt(position))) {
+                if (digitCount < NumberParser.MAX_DIGITS) {
+                    digits = digits * 10 + (symbol - '0');
+                    digitCount += digits == 0 ? 0 : 1;
+                    exponent--;
+                } else {
+                    truncated |= symbol != '0';
+                }
+                position++;
+            }
+        }
+
+        if (position < length && (expression.charAt(position) | 0x20) == 'e') {
+            int exponentStart = position + 1;
+            boolean negativeExponent = false;
+            if (exponentStart < length && (expression.charAt(exponentStart) == '+'
+                    || expression.charAt(exponentStart) == '-')) {
+                negativeExponent = expression.charAt(exponentStart) == '-';
+                exponentStart++;
+            }
+            if (isDigitAt(expression, exponentStart)) {
+                int explicitExponent = 0;
+                position = exponentStart;
+                while (position < length && isDigit(symbol = expression.charAt(position))) {
+                    explicitExponent = Math.min(MAX_EXPONENT, explicitExponent * 10 + (symbol - '0'));
+                    position++;
+                }
+                exponent += negativeExponent ? -explicitExponent : explicitExponent;
+            }
+        }
+
+        double value = NumberParser.toDouble(digits, exponent);
+        if (truncated && value != NumberParser.toDouble(digits + 1, exponent)) {
+            value = Double.NaN;
+        }
+        if (Double.isNaN(value)) {
+            value = Double.parseDouble(expression.subSequence(digitStart, position).toString());
+        }
+
+        int token = addToken(NUMBER, start, position);
+        values[token] = start == digitStart ? value : -value;
+        return position;
+    }
+
+    /**
+     * Utility method.
+     * Scans a name of a variable starting at {@code start}
+     * and adds it as a token.
+     *
+     * @param expression The expression.
+     * @param start      Position of the first symbol of the name.
+     * @return Position right after the name.
+     */
+    private int scanVariable(CharSequence expression, int start) {
+        int position = start + 1;
+        int length = expression.length();
+
+        while (position < length && isIdentifierPart(expression.charAt(position))) {
+            position++;
+        }
+
+        addToken(VARIABLE, start, position);
+        return position;
+    }
+
+    /**
+     * Utility method.
+     * Checks if a symbol of an operator is a sign of a numerical literal:
+     * it is a minus that immediately precedes a literal where an operand is expected,
+     * and there is no prefix operator with the same symbol.
+     * The sign is still not folded if the literal is followed by an operator
+     * that binds tighter than negation, see
+     * {@link #isFollowedByTighterOperator(CharSequence, int, OperatorTable)}.
+     */
+    private boolean isSignOfLiteral(CharSequence expression, int position, OperatorTable operators,
+                                    int operatorSymbol) {
+        if (expression.charAt(position) != '-' || operators.symbolLength(operatorSymbol) != 1
+                || operators.prefixOpcode(operatorSymbol) >= 0) {
+            return false;
+        }
+        if (count > 0 && kinds[count - 1] != OPERATOR && kinds[count - 1] != OPEN_BRACKET
+                && kinds[count - 1] != COMMA) {
+            return false;
+        }
+        return isDigitAt(expression, position + 1)
+                || (isDigitAt(expression, position + 2) && expression.charAt(position + 1) == '.');
+    }
+
+    /**
+     * Utility method.
+     * Checks if a literal is followed by a binary operator that binds tighter
+     * than negation, so that a sign of the literal must not be folded into it.
+     *
+     * @param position Position right after the literal.
+     */
+    private static boolean isFollowedByTighterOperator(CharSequence expression, int position,
+                                                       OperatorTable operators) {
+        while (position < expression.length() && Character.isWhitespace(expression.charAt(position))) {
+            position++;
+        }
+        if (position == expression.length()) {
+            return false;
+        }
+        int operatorSymbol = operators.matchSymbol(expression, position);
+        int opcode = operatorSymbol < 0 ? -1 : operators.binaryOpcode(operatorSymbol);
+        return opcode >= 0 && operators.operator(opcode).getPrecedence() > Operator.NEGATION.getPrecedence();
+    }
+
+    private static boolean isDigit(char symbol) {
+        return symbol >= '0' && symbol <= '9';
+    }
+
+    private static boolean isDigitAt(CharSequence expression, int position) {
+        return position < expression.length() && isDigit(expression.charAt(position));
+    }
+
+    private static boolean isIdentifierStart(char symbol) {
+        return (symbol >= 'a' && symbol <= 'z') || (symbol >= 'A' && symbol <= 'Z') || symbol == '_';
+    }
+
+    private static boolean isIdentifierPart(char symbol) {
+        return isIdentifierStart(symbol) || (symbol >= '0' && symbol <= '9');
+    }
+
+    /**
+     * Utility method.
+     * Appends a token, growing buffers if needed.
+     *
+     * @return Index of the appended token.
+     */
+    private int addToken(int kind, int start, int end) {
+        if (count == kinds.length) {
+            int capacity = count * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            symbols = Arrays.copyOf(symbols, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        kinds[count] = kind;
+        starts[count] = start;
+        ends[count] = end;
+        return count++;
+    }
+
+    int count() {
+        return count;
+    }
+
+    int kind(int token) {
+        return kinds[token];
+    }
+
+    int start(int token) {
+        return starts[token];
+    }
+
+    int end(int token) {
+        return ends[token];
+    }
+
+    int symbol(int token) {
+        return symbols[token];
+    }
+
+    double value(int token) {
+        return values[token];
+    }
+}
@@ -0,0 +1,205 @@
+package by.epam.training.solvers.mathematical;
+
+import by.epam.training.solvers.exception.SolverException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Utility class.
+ * Optimizes RPN programs before they are evaluated.
+ * <p>Performs the following transformations:
+ * <ul>
+ *     <li>Operations with constant operands are calculated once
+ *     and replaced with their results (constant folding).
+ *     <li>Operations that do not change their operand are removed:
+ *     {@code x+0}, {@code 0+x}, {@code x-0}, {@code x*1}, {@code 1*x}, {@code x/1}.
+ * </ul>
+ * Registered operators and function calls with constant operands
+ * are folded as well, so they are required to be pure.
+ * Operations are never reordered, so results of evaluation stay the same,
+ * except for the sign of zero in {@code -0+0}.
+ * Division by an operand that folds into zero
+ * is reported at compile time.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.2
+ */
+final class ExpressionOptimizer {
+
+    private ExpressionOptimizer() {
+    }
+
+    /**
+     * Optimizes an RPN program and compiles it.
+     *
+     * @param instructions Encoded instructions in RPN order.
+     * @param constants    Constants referenced by instructions.
+     * @param variables    Names of variables referenced by instructions.
+     * @param functions    Functions referenced by instructions.
+     * @param operators    Operators referenced by instructions.
+     * @return Compiled optimized expression.
+     * @throws SolverException if division by zero is found
+     *                         or if instructions do not form exactly one result.
+     */
+    static CompiledExpression optimize(int[] instructions, double[] constants, String[] variables,
+                                       MathFunction[] functions, OperatorTable operators) {
+        int[] code = new int[instructions.length];
+        int codeLength = 0;
+        double[] codeConstants = new double[instructions.length];
+        int constantsCount = 0;
+
+        // Each entry of the stack is a subexpression that occupies code from its start to the end.
+        int[] starts = new int[instructions.length];
+        boolean[] folded = new boolean[instructions.length];
+        double[] values = new double[instructions.length];
+        int top = -1;
+
+        for (int instruction : instructions) {
+            int opcode = Instructions.opcode(instruction);
+
+            if (Instructions.isValue(opcode)) {
+                starts[++top] = codeLength;
+                folded[top] = opcode == Instructions.PUSH_CONSTANT;
+                if (folded[top]) {
+                    values[top] = constants[Instructions.operand(instruction)];
+                    codeConstants[constantsCount] = values[top];
+                    code[codeLength++] = Instructions.encode(Instructions.PUSH_CONSTANT, constantsCount++);
+                } else {
+                    code[codeLength++] = instruction;
+                }
+                continue;
+            }
+
+            if (opcode == Instructions.CALL_FUNCTION) {
+                MathFunction function = functions[Instructions.operand(instruction)];
+                int first = top - function.getArity() + 1;
+                if (first < 0) {
+                    throw new SolverException("Solution error: function lacks arguments.");
+                }
+                boolean constantArguments = true;
+                for (int argument = first; argument <= top; argument++) {
+                    constantArguments &= folded[argument];
+                }
+                if (first > top) {
+                    starts[first] = codeLength;
+                }
+                top = first;
+                folded[top] = constantArguments;
+
+                if (constantArguments) {
+                    values[top] = function.apply(values, first);
+                    codeConstants[constantsCount] = values[top];
+                    codeLength = starts[top];
+                    code[codeLength++] = Instructions.encode(Instructions.PUSH_CONSTANT, constantsCount++);
+                } else {
+                    code[codeLength++] = instruction;
+                }
+                continue;
+            }
+
+            Operator operator = operators.operator(opcode);
+            if (top < operator.getArity() - 1) {
+                throw new SolverException("Solution error: operator lacks operands.");
+            }
+
+            if (operator.isPrefix()) {
+                if (folded[top]) {
+                    values[top] = operator.apply(values[top]);
+                    codeConstants[constantsCount] = values[top];
+                    codeLength = starts[top];
+                    code[codeLength++] = Instructions.encode(Instructions.PUSH_CONSTANT, constantsCount++);
+                } else {
+                    code[codeLength++] = Instructions.encode(opcode);
+                }
+                continue;
+            }
+
+            int right = top--;
+            int left = top;
+
+            if (folded[left] && folded[right]) {
+                values[left] = operator.apply(values[left], values[right]);
+                codeConstants[constantsCount] = values[left];
+                codeLength = starts[left];
+                code[codeLength++] = Instructions.encode(Instructions.PUSH_CONSTANT, constantsCount++);
+            } else if (folded[right] && isRightIdentity(opcode, values[right])) {
+                codeLength = starts[right];
+            } else if (folded[left] && isLeftIdentity(opcode, values[left])) {
+                System.arraycopy(code, starts[left] + 1, code, starts[left], codeLength - starts[left] - 1);
+                codeLength--;
+                folded[left] = false;
+            } else {
+                if (folded[right] && opcode == Instructions.DIVIDE && values[right] == 0) {
+                    throw new SolverException(new ArithmeticException("Division by zero."));
+                }
+                code[codeLength++] = Instructions.encode(opcode);
+                folded[left] = false;
+            }
+        }
+
+        return compactConstants(Arrays.copyOf(code, codeLength), codeConstants, variables, functions,
+                operators.operators(), instructions.length);
+    }
+
+    /**
+     * Utility method.
+     * Removes constants and functions that are no longer referenced
+     * and compiles the program.
+     */
+    private static CompiledExpression compactConstants(int[] code, double[] codeConstants, String[] variables,
+                                                       MathFunction[] codeFunctions, Operator[] operators,
+                                                       int sourceInstructionCount) {
+        double[] constants = new double[code.length];
+        int constantsCount = 0;
+        List<MathFunction> functions = new ArrayList<>();
+
+        for (int i = 0; i < code.length; i++) {
+            int opcode = Instructions.opcode(code[i]);
+            if (opcode == Instructions.PUSH_CONSTANT) {
+                constants[constantsCount] = codeConstants[Instructions.operand(code[i])];
+                code[i] = Instructions.encode(Instructions.PUSH_CONSTANT, constantsCount++);
+            } else if (opcode == Instructions.CALL_FUNCTION) {
+                MathFunction function = codeFunctions[Instructions.operand(code[i])];
+                if (!functions.contains(function)) {
+                    functions.add(function);
+                }
+                code[i] = Instructions.encode(Instructions.CALL_FUNCTION, functions.indexOf(function));
+            }
+        }
+
+        return new CompiledExpression(code, Arrays.copyOf(constants, constantsCount), variables,
+                functions.toArray(new MathFunction[0]), operators, sourceInstructionCount);
+    }
+
+    /**
+     * Checks if {@code x op value} always equals {@code x}.
+     */
+    private static boolean isRightIdentity(int opcode, double value) {
+        switch (opcode) {
+            case Instructions.ADD:
+            case Instructions.SUBTRACT:
+                return value == 0;
+            case Instructions.MULTIPLY:
+            case Instructions.DIVIDE:
+                return value == 1;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Checks if {@code value op x} always equals {@code x}.
+     */
+    private static boolean isLeftIdentity(int opcode, double value) {
+        switch (opcode) {
+            case Instructions.ADD:
+                return value == 0;
+            case Instructions.MULTIPLY:
+                return value == 1;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package by.epam.training.solvers.mathematical;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Registry of functions that can be called from expressions.
+ * <p>Initially contains standard functions {@code sqrt}, {@code abs},
+ * {@code log}, {@code exp} and {@code pow}. More functions can be
+ * registered at any time:
+ * <pre>{@code
+ * FunctionRegistry functions = new FunctionRegistry()
+ *         .register(MathFunction.binary("hypot", Math::hypot));
+ * Solver solver = new ReversePolishNotationSolver(new OperatorRegistry(), functions);
+ * }</pre>
+ * <p>Registration affects expressions compiled after it.
+ * Expressions compiled earlier, including those cached by
+ * {@link CachingExpressionSolver}, are not affected.
+ * Registry is safe for concurrent use: compilers read an immutable
+ * snapshot of it, which is replaced on each registration.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.0
+ */
+public final class FunctionRegistry {
+
+    /**
+     * Functions that are registered initially.
+     */
+    static final MathFunction[] STANDARD_FUNCTIONS = {
+            MathFunction.SQRT, MathFunction.ABS, MathFunction.LOG, MathFunction.EXP, MathFunction.POW
+    };
+
+    private volatile MathFunction[] functions = STANDARD_FUNCTIONS;
+
+    /**
+     * Registers a function.
+     *
+     * @param function The function.
+     * @return This registry.
+     * @throws IllegalArgumentException if a function with the same name
+     *                                  and arity is already registered.
+     */
+    public synchronized FunctionRegistry register(MathFunction function) {
+        if (getFunction(function.getName(), function.getArity()) != null) {
+            throw new IllegalArgumentException("Function " + function + " is already registered.");
+        }
+        MathFunction[] extended = Arrays.copyOf(functions, functions.length + 1);
+        extended[functions.length] = function;
+        functions = extended;
+        return this;
+    }
+
+    /**
+     * Retrieves a function.
+     *
+     * @param name  Name of the function.
+     * @param arity Count of arguments of the function.
+     * @return The function, {@code null} if there is none.
+     */
+    public MathFunction getFunction(String name, int arity) {
+        for (MathFunction function : functions) {
+            if (function.getArity() == arity && function.getName().equals(name)) {
+                return function;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return All functions in order of registration,
+     * starting with standard ones.
+     */
+    public List<MathFunction> getFunctions() {
+        return Collections.unmodifiableList(Arrays.asList(functions));
+    }
+
+    /**
+     * @return Current snapshot of the registry. Must not be modified.
+     */
+    MathFunction[] functions() {
+        return functions;
+    }
+}
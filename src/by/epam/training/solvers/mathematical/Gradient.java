@@ -0,0 +1,96 @@
+package by.epam.training.solvers.mathematical;
+
+import by.epam.training.solvers.exception.SolverException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of an expression together with its partial derivatives
+ * with respect to chosen variables.
+ * <p>Instances are obtained from {@link CompiledExpression#gradient(double...)}
+ * and {@link CompiledExpression#gradient(List, double...)}.
+ * Derivatives are exact up to rounding of floating point operations,
+ * unlike estimates by finite differences.
+ * <p>Instances are immutable.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.0
+ */
+public final class Gradient {
+
+    private final double value;
+    /**
+     * Names of variables the expression is differentiated by.
+     */
+    private final String[] variables;
+    /**
+     * Partial derivatives in order of {@link #variables}.
+     */
+    private final double[] partials;
+
+    Gradient(double value, String[] variables, double[] partials) {
+        this.value = value;
+        this.variables = variables;
+        this.partials = partials;
+    }
+
+    /**
+     * @return Result of the expression as a double value.
+     */
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * @return Names of variables the expression is differentiated by,
+     * in order of partial derivatives.
+     */
+    public List<String> getVariables() {
+        return Collections.unmodifiableList(Arrays.asList(variables));
+    }
+
+    /**
+     * Retrieves partial derivative by index.
+     *
+     * @param index Index of a variable in {@link #getVariables()}.
+     * @return Value of the derivative.
+     */
+    public double getPartial(int index) {
+        return partials[index];
+    }
+
+    /**
+     * Retrieves partial derivative by name of a variable.
+     *
+     * @param name Name of the variable.
+     * @return Value of the derivative.
+     * @throws SolverException if the expression is not differentiated
+     *                         by such variable.
+     */
+    public double getPartial(String name) {
+        for (int i = 0; i < variables.length; i++) {
+            if (variables[i].equals(name)) {
+                return partials[i];
+            }
+        }
+        throw new SolverException("Expression is not differentiated by variable '" + name + "'.");
+    }
+
+    /**
+     * @return Partial derivatives in order of {@link #getVariables()}.
+     */
+    public double[] getPartials() {
+        return partials.clone();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder().append(value).append(" {");
+        for (int i = 0; i < variables.length; i++) {
+            builder.append(i == 0 ? "" : ", ").append('d').append(variables[i]).append('=').append(partials[i]);
+        }
+        return builder.append('}').toString();
+    }
+}
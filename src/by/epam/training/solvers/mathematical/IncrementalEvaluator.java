@@ -0,0 +1,240 @@
+package by.epam.training.solvers.mathematical;
+
+import by.epam.training.solvers.exception.SolverException;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Evaluator of compiled expressions whose variables change one at a time.
+ * <p>Keeps values of all subexpressions between updates. When a value
+ * of a variable changes, only subexpressions that depend on it
+ * are recalculated, in the same order as by a full evaluation,
+ * so results are exactly the same:
+ * <pre>{@code
+ * IncrementalEvaluator evaluator = solver.compile("(a+b)*(c+d)").incremental(1, 2, 3, 4);
+ * double result = evaluator.update("c", 5);
+ * }</pre>
+ * Dependent subexpressions of each variable are found once,
+ * when an evaluator is created, so an update costs
+ * as many calculations as there are dependent subexpressions.
+ * <p>If an update fails, for example by division by zero,
+ * results stay unavailable until an update succeeds:
+ * the next update recalculates all subexpressions.
+ * <p>Evaluator keeps mutable state and must not be shared between threads.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.0
+ * @see CompiledExpressionSet#incremental(double...)
+ * @see CompiledExpression#incremental(double...)
+ */
+public final class IncrementalEvaluator {
+
+    private final CompiledExpressionSet expressions;
+    /**
+     * Current values of nodes,
+     * followed by space to gather arguments of a call.
+     */
+    private final double[] nodeValues;
+    /**
+     * Current values of variables.
+     */
+    private final double[] values;
+    /**
+     * Indices of nodes that depend on each variable, in order of calculation.
+     */
+    private final int[][] dependentNodes;
+    /**
+     * Indicates that values of nodes agree with values of variables.
+     */
+    private boolean valid;
+
+    IncrementalEvaluator(CompiledExpressionSet expressions, double[] values) {
+        List<String> variables = expressions.getVariables();
+        if (values.length != variables.size()) {
+            throw new SolverException("Expressions contain " + variables.size()
+                    + " variables " + variables
+                    + ", but " + values.length + " values were given.");
+        }
+        this.expressions = expressions;
+        this.nodeValues = new double[expressions.nodeValuesLength()];
+        this.values = values.clone();
+        this.dependentNodes = findDependentNodes(expressions, variables.size());
+        recalculateAll();
+    }
+
+    /**
+     * @return Names of variables in order of their indices.
+     */
+    public List<String> getVariables() {
+        return expressions.getVariables();
+    }
+
+    /**
+     * Retrieves index of a variable.
+     *
+     * @param name Name of the variable.
+     * @return Index of the variable,
+     * {@code -1} if expressions do not contain such variable.
+     */
+    public int getVariableIndex(String name) {
+        return expressions.getVariables().indexOf(name);
+    }
+
+    /**
+     * @return Current value of a variable.
+     */
+    public double getValue(int variable) {
+        return values[variable];
+    }
+
+    /**
+     * Changes value of a variable and recalculates
+     * subexpressions that depend on it.
+     *
+     * @param variable Index of the variable.
+     * @param value    New value of the variable.
+     * @return Updated result of the first expression.
+     * @throws SolverException if division by zero occurs in any expression.
+     */
+    public double update(int variable, double value) {
+        if (Double.doubleToLongBits(values[variable]) == Double.doubleToLongBits(value) && valid) {
+            return getResult();
+        }
+        values[variable] = value;
+
+        if (!valid) {
+            recalculateAll();
+            return getResult();
+        }
+
+        valid = false;
+        for (int node : dependentNodes[variable]) {
+            recalculate(node);
+        }
+        valid = true;
+        return getResult();
+    }
+
+    /**
+     * Changes value of a variable and recalculates
+     * subexpressions that depend on it.
+     *
+     * @param name  Name of the variable.
+     * @param value New value of the variable.
+     * @return Updated result of the first expression.
+     * @throws SolverException if division by zero occurs in any expression,
+     *                         or if expressions do not contain such variable.
+     */
+    public double update(String name, double value) {
+        int variable = getVariableIndex(name);
+        if (variable < 0) {
+            throw new SolverException("Expressions do not contain variable '" + name + "'.");
+        }
+        return update(variable, value);
+    }
+
+    /**
+     * Changes values of all variables and recalculates all subexpressions.
+     *
+     * @param values Values of variables in order of their indices.
+     * @throws SolverException if division by zero occurs in any expression,
+     *                         or if count of values does not match
+     *                         count of variables.
+     */
+    public void updateAll(double... values) {
+        if (values.length != this.values.length) {
+            throw new SolverException("Expressions contain " + this.values.length
+                    + " variables, but " + values.length + " values were given.");
+        }
+        System.arraycopy(values, 0, this.values, 0, values.length);
+        recalculateAll();
+    }
+
+    /**
+     * @return Current result of the first expression.
+     * @throws SolverException if the last update failed.
+     */
+    public double getResult() {
+        return getResult(0);
+    }
+
+    /**
+     * @param expression Index of an expression in its set.
+     * @return Current result of the expression.
+     * @throws SolverException if the last update failed.
+     */
+    public double getResult(int expression) {
+        if (!valid) {
+            throw new SolverException("Solution error: results are unavailable after a failed update.");
+        }
+        return nodeValues[expressions.root(expression)];
+    }
+
+    /**
+     * Utility method.
+     * Recalculates values of all nodes.
+     */
+    private void recalculateAll() {
+        valid = false;
+        for (int node = 0; node < expressions.getNodeCount(); node++) {
+            recalculate(node);
+        }
+        valid = true;
+    }
+
+    /**
+     * Utility method.
+     * Recalculates value of a node from values of its operands.
+     */
+    private void recalculate(int node) {
+        int opcode = expressions.opcode(node);
+
+        if (opcode == Instructions.PUSH_CONSTANT) {
+            nodeValues[node] = expressions.constant(node);
+        } else if (opcode == Instructions.LOAD_VARIABLE) {
+            nodeValues[node] = values[expressions.variable(node)];
+        } else {
+            nodeValues[node] = expressions.calculate(node, nodeValues);
+        }
+    }
+
+    /**
+     * Utility method.
+     * Finds nodes that depend on each variable.
+     * Operands precede operations, so a single forward pass
+     * over nodes finds all of them in order of calculation.
+     */
+    private static int[][] findDependentNodes(CompiledExpressionSet expressions, int variablesCount) {
+        int nodeCount = expressions.getNodeCount();
+        int[][] dependentNodes = new int[variablesCount][];
+        int[] buffer = new int[nodeCount];
+
+        for (int variable = 0; variable < variablesCount; variable++) {
+            BitSet dependent = new BitSet(nodeCount);
+            int count = 0;
+
+            for (int node = 0; node < nodeCount; node++) {
+                int opcode = expressions.opcode(node);
+                boolean depends;
+                if (opcode == Instructions.PUSH_CONSTANT) {
+                    depends = false;
+                } else if (opcode == Instructions.LOAD_VARIABLE) {
+                    depends = expressions.variable(node) == variable;
+                } else {
+                    depends = false;
+                    for (int operand = 0; operand < expressions.operandCount(node) && !depends; operand++) {
+                        depends = dependent.get(expressions.operand(node, operand));
+                    }
+                }
+                if (depends) {
+                    dependent.set(node);
+                    buffer[count++] = node;
+                }
+            }
+            dependentNodes[variable] = Arrays.copyOf(buffer, count);
+        }
+        return dependentNodes;
+    }
+}
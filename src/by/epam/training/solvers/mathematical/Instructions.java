@@ -0,0 +1,134 @@
+package by.epam.training.solvers.mathematical;
+
+import by.epam.training.solvers.exception.SolverException;
+
+/**
+ * Utility class.
+ * Defines encoding of instructions of a compiled expression.
+ * <p>Each instruction is a single {@code int}:
+ * lower bits contain an opcode, upper bits contain
+ * an operand of the instruction (for example, index of a constant),
+ * which is at most {@link #MAX_OPERAND}.
+ * <p>Opcodes of built-in operations are fixed. Opcodes starting
+ * with {@link #FIRST_CUSTOM_OPCODE} are assigned to operators
+ * registered in {@link OperatorRegistry}.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.3
+ */
+final class Instructions {
+
+    /**
+     * Pushes a constant into calculation stack.
+     * Operand is an index of the constant.
+     */
+    static final int PUSH_CONSTANT = 0;
+    /**
+     * Pushes a value of a variable into calculation stack.
+     * Operand is an index of the variable.
+     */
+    static final int LOAD_VARIABLE = 1;
+    /**
+     * Replaces two top values of calculation stack with their sum.
+     */
+    static final int ADD = 2;
+    /**
+     * Replaces two top values of calculation stack with their difference.
+     */
+    static final int SUBTRACT = 3;
+    /**
+     * Replaces two top values of calculation stack with their product.
+     */
+    static final int MULTIPLY = 4;
+    /**
+     * Replaces two top values of calculation stack with their quotient.
+     */
+    static final int DIVIDE = 5;
+    /**
+     * Replaces arguments of a function call on top of calculation stack
+     * with the result of the call.
+     * Operand is an index of the function in the table of functions of an expression.
+     */
+    static final int CALL_FUNCTION = 6;
+    /**
+     * The first opcode assigned to a registered operator.
+     * Replaces one or two top values of calculation stack
+     * with the result of the operator, depending on its arity.
+     */
+    static final int FIRST_CUSTOM_OPCODE = 7;
+
+    /**
+     * Number of lower bits reserved for an opcode.
+     */
+    private static final int OPERAND_SHIFT = 8;
+    private static final int OPCODE_MASK = (1 << OPERAND_SHIFT) - 1;
+    /**
+     * Maximal opcode that fits into an instruction.
+     */
+    static final int MAX_OPCODE = OPCODE_MASK;
+    /**
+     * Maximal operand that fits into an instruction.
+     */
+    static final int MAX_OPERAND = -1 >>> OPERAND_SHIFT;
+
+    private Instructions() {
+    }
+
+    /**
+     * Encodes an instruction without operand.
+     *
+     * @param opcode The opcode.
+     * @return Encoded instruction.
+     */
+    static int encode(int opcode) {
+        return opcode;
+    }
+
+    /**
+     * Encodes an instruction with operand.
+     *
+     * @param opcode  The opcode.
+     * @param operand The operand, non-negative.
+     * @return Encoded instruction.
+     * @throws SolverException if the operand exceeds {@link #MAX_OPERAND}.
+     */
+    static int encode(int opcode, int operand) {
+        if (operand > MAX_OPERAND) {
+            throw new SolverException("Expression is too large: operand " + operand
+                    + " exceeds " + MAX_OPERAND + ".");
+        }
+        return opcode | (operand << OPERAND_SHIFT);
+    }
+
+    /**
+     * Extracts an opcode from an instruction.
+     *
+     * @param instruction Encoded instruction.
+     * @return The opcode.
+     */
+    static int opcode(int instruction) {
+        return instruction & OPCODE_MASK;
+    }
+
+    /**
+     * Checks if an instruction pushes a value
+     * into calculation stack without consuming any.
+     *
+     * @param opcode The opcode.
+     * @return {@code true} for constants and variables,
+     * {@code false} for operations and function calls.
+     */
+    static boolean isValue(int opcode) {
+        return opcode == PUSH_CONSTANT || opcode == LOAD_VARIABLE;
+    }
+
+    /**
+     * Extracts an operand from an instruction.
+     *
+     * @param instruction Encoded instruction.
+     * @return The operand.
+     */
+    static int operand(int instruction) {
+        return instruction >>> OPERAND_SHIFT;
+    }
+}
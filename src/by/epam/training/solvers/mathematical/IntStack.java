@@ -0,0 +1,60 @@
+package by.epam.training.solvers.mathematical;
+
+import java.util.Arrays;
+
+/**
+ * Growable stack of primitive {@code int} values.
+ * <p>Used instead of {@code java.util.Stack}
+ * to avoid boxing and synchronization
+ * while converting expressions into RPN.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.0
+ */
+final class IntStack {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] values = new int[INITIAL_CAPACITY];
+    private int size;
+
+    void push(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    int pop() {
+        return values[--size];
+    }
+
+    int peek() {
+        return values[size - 1];
+    }
+
+    int get(int index) {
+        return values[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * Copies contents of the stack, bottom first.
+     *
+     * @return New array with all values of the stack.
+     */
+    int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
@@ -0,0 +1,362 @@
+package by.epam.training.solvers.mathematical;
+
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Definition of a function that can be called from mathematical expressions,
+ * for example {@code sqrt(x*x + y*y)}.
+ * <p>A function is identified by its name and its arity (count of arguments),
+ * so functions with the same name and different arities may coexist.
+ * Names follow the same rules as names of variables.
+ * <p>Calls are bound to functions at compile time: each call site
+ * of a compiled expression refers directly to its function,
+ * without looking it up by name during evaluation.
+ * <p>Functions must be pure: calls with constant arguments
+ * are calculated once, at compile time.
+ * A function may signal an error by throwing {@code SolverException}.
+ * <p>A function may also define partial derivatives with respect to
+ * its arguments, so that expressions calling it can be differentiated
+ * (see {@link CompiledExpression#gradient(double...)}).
+ * All standard functions are differentiable.
+ * <p>Functions are added to expressions by registering them
+ * in {@link FunctionRegistry}.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.1
+ */
+public final class MathFunction {
+
+    /**
+     * Square root {@code sqrt(x)}.
+     */
+    public static final MathFunction SQRT = standard("sqrt", 1, "sqrt", Math::sqrt, null,
+            (arguments, offset, argument) -> 0.5 / Math.sqrt(arguments[offset]));
+    /**
+     * Absolute value {@code abs(x)}.
+     */
+    public static final MathFunction ABS = standard("abs", 1, "abs", Math::abs, null,
+            (arguments, offset, argument) -> Math.signum(arguments[offset]));
+    /**
+     * Natural logarithm {@code log(x)}.
+     */
+    public static final MathFunction LOG = standard("log", 1, "log", Math::log, null,
+            (arguments, offset, argument) -> 1 / arguments[offset]);
+    /**
+     * Exponent {@code exp(x)}, that is {@code e} raised to the power of {@code x}.
+     */
+    public static final MathFunction EXP = standard("exp", 1, "exp", Math::exp, null,
+            (arguments, offset, argument) -> Math.exp(arguments[offset]));
+    /**
+     * Power {@code pow(x, y)}, that is {@code x} raised to the power of {@code y}.
+     */
+    public static final MathFunction POW = standard("pow", 2, "pow", null, Math::pow,
+            (arguments, offset, argument) -> argument == 0
+                    ? MathOperationProvider.powerBasePartial(arguments[offset], arguments[offset + 1])
+                    : MathOperationProvider.powerExponentPartial(arguments[offset], arguments[offset + 1]));
+
+    private final String name;
+    private final int arity;
+    /**
+     * Implementation of a function of one argument, {@code null} for other functions.
+     */
+    private final DoubleUnaryOperator unaryImplementation;
+    /**
+     * Implementation of a function of two arguments, {@code null} for other functions.
+     */
+    private final DoubleBinaryOperator binaryImplementation;
+    /**
+     * Implementation of a function of any other arity, {@code null} for other functions.
+     */
+    private final Implementation implementation;
+    /**
+     * Name of a static method of {@link Math} that implements the function,
+     * {@code null} if there is none.
+     * Such calls are compiled into direct invocations in generated bytecode.
+     */
+    private final String mathMethod;
+    /**
+     * Partial derivatives of a function,
+     * {@code null} if the function is not differentiable.
+     */
+    private final Derivative derivative;
+
+    private MathFunction(String name, int arity, DoubleUnaryOperator unaryImplementation,
+                         DoubleBinaryOperator binaryImplementation, Implementation implementation,
+                         String mathMethod, Derivative derivative) {
+        checkName(name);
+        this.name = name;
+        this.arity = arity;
+        this.unaryImplementation = unaryImplementation;
+        this.binaryImplementation = binaryImplementation;
+        this.implementation = implementation;
+        this.mathMethod = mathMethod;
+        this.derivative = derivative;
+    }
+
+    /**
+     * Defines a function of one argument.
+     *
+     * @param name           Name of the function.
+     * @param implementation Calculation performed by the function.
+     * @return The function.
+     * @throws IllegalArgumentException if the name is invalid.
+     */
+    public static MathFunction unary(String name, DoubleUnaryOperator implementation) {
+        if (implementation == null) {
+            throw new IllegalArgumentException("Implementation of a function is required.");
+        }
+        return new MathFunction(name, 1, implementation, null, null, null, null);
+    }
+
+    /**
+     * Defines a differentiable function of one argument.
+     *
+     * @param name           Name of the function.
+     * @param implementation Calculation performed by the function.
+     * @param derivative     Derivative of the function.
+     * @return The function.
+     * @throws IllegalArgumentException if the name is invalid.
+     */
+    public static MathFunction unary(String name, DoubleUnaryOperator implementation,
+                                     DoubleUnaryOperator derivative) {
+        if (implementation == null || derivative == null) {
+            throw new IllegalArgumentException("Implementation and derivative of a function are required.");
+        }
+        return new MathFunction(name, 1, implementation, null, null, null,
+                (arguments, offset, argument) -> derivative.applyAsDouble(arguments[offset]));
+    }
+
+    /**
+     * Defines a function of two arguments.
+     *
+     * @param name           Name of the function.
+     * @param implementation Calculation performed by the function.
+     * @return The function.
+     * @throws IllegalArgumentException if the name is invalid.
+     */
+    public static MathFunction binary(String name, DoubleBinaryOperator implementation) {
+        if (implementation == null) {
+            throw new IllegalArgumentException("Implementation of a function is required.");
+        }
+        return new MathFunction(name, 2, null, implementation, null, null, null);
+    }
+
+    /**
+     * Defines a differentiable function of two arguments.
+     *
+     * @param name           Name of the function.
+     * @param implementation Calculation performed by the function.
+     * @param firstPartial   Partial derivative of the function
+     *                       with respect to the first argument.
+     * @param secondPartial  Partial derivative of the function
+     *                       with respect to the second argument.
+     * @return The function.
+     * @throws IllegalArgumentException if the name is invalid.
+     */
+    public static MathFunction binary(String name, DoubleBinaryOperator implementation,
+                                      DoubleBinaryOperator firstPartial, DoubleBinaryOperator secondPartial) {
+        if (implementation == null || firstPartial == null || secondPartial == null) {
+            throw new IllegalArgumentException("Implementation and derivatives of a function are required.");
+        }
+        return new MathFunction(name, 2, null, implementation, null, null,
+                (arguments, offset, argument) -> (argument == 0 ? firstPartial : secondPartial)
+                        .applyAsDouble(arguments[offset], arguments[offset + 1]));
+    }
+
+    /**
+     * Defines a function of any count of arguments.
+     *
+     * @param name           Name of the function.
+     * @param arity          Count of arguments, non-negative.
+     * @param implementation Calculation performed by the function.
+     * @return The function.
+     * @throws IllegalArgumentException if the name or arity is invalid.
+     */
+    public static MathFunction of(String name, int arity, Implementation implementation) {
+        if (implementation == null) {
+            throw new IllegalArgumentException("Implementation of a function is required.");
+        }
+        if (arity < 0) {
+            throw new IllegalArgumentException("Arity of a function is negative: " + arity);
+        }
+        return new MathFunction(name, arity, null, null, implementation, null, null);
+    }
+
+    /**
+     * Defines a differentiable function of any count of arguments.
+     *
+     * @param name           Name of the function.
+     * @param arity          Count of arguments, non-negative.
+     * @param implementation Calculation performed by the function.
+     * @param derivative     Partial derivatives of the function.
+     * @return The function.
+     * @throws IllegalArgumentException if the name or arity is invalid.
+     */
+    public static MathFunction of(String name, int arity, Implementation implementation, Derivative derivative) {
+        if (implementation == null || derivative == null) {
+            throw new IllegalArgumentException("Implementation and derivative of a function are required.");
+        }
+        if (arity < 0) {
+            throw new IllegalArgumentException("Arity of a function is negative: " + arity);
+        }
+        return new MathFunction(name, arity, null, null, implementation, null, derivative);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Count of arguments of the function.
+     */
+    public int getArity() {
+        return arity;
+    }
+
+    /**
+     * @return Name of a static method of {@link Math} with the same arguments,
+     * {@code null} if the function is not implemented by such method.
+     */
+    String mathMethod() {
+        return mathMethod;
+    }
+
+    /**
+     * @return {@code true} if partial derivatives of the function are defined.
+     */
+    public boolean isDifferentiable() {
+        return derivative != null;
+    }
+
+    /**
+     * Calculates the result of a call.
+     *
+     * @param arguments Array with arguments.
+     * @param offset    Index of the first argument.
+     * @return Result of the call.
+     */
+    double apply(double[] arguments, int offset) {
+        if (unaryImplementation != null) {
+            return unaryImplementation.applyAsDouble(arguments[offset]);
+        }
+        if (binaryImplementation != null) {
+            return binaryImplementation.applyAsDouble(arguments[offset], arguments[offset + 1]);
+        }
+        return implementation.apply(arguments, offset);
+    }
+
+    /**
+     * Calculates partial derivative of a call.
+     * Must be called for differentiable functions only.
+     *
+     * @param arguments Array with arguments.
+     * @param offset    Index of the first argument.
+     * @param argument  Index of the argument to differentiate by,
+     *                  starting with {@code 0}.
+     * @return Value of the derivative.
+     */
+    double partial(double[] arguments, int offset, int argument) {
+        return derivative.apply(arguments, offset, argument);
+    }
+
+    /**
+     * Calculates results of calls for a block of argument lists.
+     * <p>Argument {@code j} of call {@code i} is stored at
+     * {@code firstOffset + j * stride + i}. Results replace first arguments.
+     *
+     * @param values        Array with arguments.
+     * @param firstOffset   Offset of the first arguments.
+     * @param stride        Distance between arguments of one call.
+     * @param length        Count of calls.
+     * @param scratchOffset Offset of a free region of {@code values}
+     *                      to gather arguments of one call into,
+     *                      at least {@link #getArity()} long.
+     */
+    void apply(double[] values, int firstOffset, int stride, int length, int scratchOffset) {
+        if (unaryImplementation != null) {
+            for (int i = 0; i < length; i++) {
+                values[firstOffset + i] = unaryImplementation.applyAsDouble(values[firstOffset + i]);
+            }
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            for (int argument = 0; argument < arity; argument++) {
+                values[scratchOffset + argument] = values[firstOffset + argument * stride + i];
+            }
+            values[firstOffset + i] = apply(values, scratchOffset);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name + "/" + arity;
+    }
+
+    private static MathFunction standard(String name, int arity, String mathMethod,
+                                         DoubleUnaryOperator unaryImplementation,
+                                         DoubleBinaryOperator binaryImplementation, Derivative derivative) {
+        return new MathFunction(name, arity, unaryImplementation, binaryImplementation, null, mathMethod,
+                derivative);
+    }
+
+    /**
+     * Utility method.
+     * Checks that a name of a function is a valid identifier.
+     *
+     * @param name The name.
+     * @throws IllegalArgumentException if the name is invalid.
+     */
+    private static void checkName(String name) {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("Name of a function is empty.");
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char symbol = name.charAt(i);
+            boolean letter = (symbol >= 'a' && symbol <= 'z') || (symbol >= 'A' && symbol <= 'Z') || symbol == '_';
+            if (!letter && (i == 0 || symbol < '0' || symbol > '9')) {
+                throw new IllegalArgumentException("Invalid name of a function: " + name);
+            }
+        }
+    }
+
+    /**
+     * Calculation performed by a function of any count of arguments.
+     */
+    @FunctionalInterface
+    public interface Implementation {
+
+        /**
+         * Calculates the result of a call.
+         * <p>Arguments are passed as a region of an array
+         * that is reused between calls: implementation must
+         * neither modify nor retain it.
+         *
+         * @param arguments Array with arguments.
+         * @param offset    Index of the first argument, the others follow it.
+         * @return Result of the call.
+         */
+        double apply(double[] arguments, int offset);
+    }
+
+    /**
+     * Partial derivatives of a function of any count of arguments.
+     */
+    @FunctionalInterface
+    public interface Derivative {
+
+        /**
+         * Calculates partial derivative of a call
+         * with respect to one of its arguments.
+         * <p>Arguments are passed the same way as to
+         * {@link Implementation#apply(double[], int)}.
+         *
+         * @param arguments Array with arguments.
+         * @param offset    Index of the first argument, the others follow it.
+         * @param argument  Index of the argument to differentiate by,
+         *                  starting with {@code 0}.
+         * @return Value of the derivative.
+         */
+        double apply(double[] arguments, int offset, int argument);
+    }
+}
@@ -2,61 +2,208 @@ package by.epam.training.solvers.mathematical;
 
 import by.epam.training.solvers.exception.SolverException;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * Utility class.
  * Used to provide binary operations
- * based on an operator.
+ * based on an operator, and their partial derivatives.
+ * <p>Operations are identified by opcodes
+ * defined in {@link Instructions}.
+ * Symbols and precedence of operators are defined
+ * by {@link OperatorTable}.
  *
  * @author Baranovsky E. K.
- * @version 1.0
+ * @version 1.3
  */
 class MathOperationProvider {
 
+    private MathOperationProvider() {
+    }
+
+    /**
+     * Calculates the result of an operation.
+     *
+     * @param opcode   Opcode of the operation.
+     * @param operand1 The first operand.
+     * @param operand2 The second operand.
+     * @return Result of a calculation in double value.
+     * @throws SolverException if division by zero occurs.
+     */
+    static double calculate(int opcode, double operand1, double operand2) {
+        switch (opcode) {
+            case Instructions.ADD:
+                return operand1 + operand2;
+            case Instructions.SUBTRACT:
+                return operand1 - operand2;
+            case Instructions.MULTIPLY:
+                return operand1 * operand2;
+            case Instructions.DIVIDE:
+                return divide(operand1, operand2);
+            default:
+                throw new SolverException("Unknown opcode: " + opcode);
+        }
+    }
+
+    /**
+     * Calculates partial derivative of an operation
+     * with respect to its first operand.
+     *
+     * @param opcode   Opcode of the operation.
+     * @param operand1 The first operand.
+     * @param operand2 The second operand.
+     * @return Value of the derivative.
+     */
+    static double firstPartial(int opcode, double operand1, double operand2) {
+        switch (opcode) {
+            case Instructions.ADD:
+            case Instructions.SUBTRACT:
+                return 1;
+            case Instructions.MULTIPLY:
+                return operand2;
+            case Instructions.DIVIDE:
+                return 1 / operand2;
+            default:
+                throw new SolverException("Unknown opcode: " + opcode);
+        }
+    }
+
+    /**
+     * Calculates partial derivative of an operation
+     * with respect to its second operand.
+     *
+     * @param opcode   Opcode of the operation.
+     * @param operand1 The first operand.
+     * @param operand2 The second operand.
+     * @return Value of the derivative.
+     */
+    static double secondPartial(int opcode, double operand1, double operand2) {
+        switch (opcode) {
+            case Instructions.ADD:
+                return 1;
+            case Instructions.SUBTRACT:
+                return -1;
+            case Instructions.MULTIPLY:
+                return operand1;
+            case Instructions.DIVIDE:
+                return -operand1 / (operand2 * operand2);
+            default:
+                throw new SolverException("Unknown opcode: " + opcode);
+        }
+    }
+
     /**
-     * A map that stores all accessible operations right now by their operators.
+     * Divides one operand by another.
+     *
+     * @param operand1 The dividend.
+     * @param operand2 The divisor.
+     * @return Result of division in double value.
+     * @throws SolverException if the divisor is zero.
      */
-    private static final Map<String, Operation> operationMap = new HashMap<>();
+    static double divide(double operand1, double operand2) {
+        if (operand2 == 0) {
+            throw new SolverException(new ArithmeticException("Division by zero."));
+        }
+        return operand1 / operand2;
+    }
 
-    static {
-        operationMap.put("+", (operand1, operand2) -> operand1 + operand2);
-        operationMap.put("-", (operand1, operand2) -> operand1 - operand2);
-        operationMap.put("*", (operand1, operand2) -> operand1 * operand2);
-        operationMap.put("/", (operand1, operand2) -> {
-            if (operand2 == 0) {
-                throw new SolverException(new ArithmeticException("Division by zero."));
-            }
-            return operand1 / operand2;
-        });
+    /**
+     * Calculates remainder of division of one operand by another.
+     *
+     * @param operand1 The dividend.
+     * @param operand2 The divisor.
+     * @return Remainder in double value, with the sign of the dividend.
+     * @throws SolverException if the divisor is zero.
+     */
+    static double remainder(double operand1, double operand2) {
+        if (operand2 == 0) {
+            throw new SolverException(new ArithmeticException("Division by zero."));
+        }
+        return operand1 % operand2;
     }
 
     /**
-     * Retrieves specific operation by operator.
+     * Calculates partial derivative of {@code pow(base, exponent)}
+     * with respect to the base.
      *
-     * @param operator The operator.
-     * @return Instance of {@code Operation} matching the operator.
-     * {@code null} if no such Operations exist in operation map.
+     * @param base     The base.
+     * @param exponent The exponent.
+     * @return Value of the derivative, zero for zero exponent.
      */
-    static Operation getOperation(String operator) {
-        return operationMap.get(operator);
+    static double powerBasePartial(double base, double exponent) {
+        return exponent == 0 ? 0 : exponent * Math.pow(base, exponent - 1);
     }
 
     /**
-     * An inner interface for binary operation.
-     * Represents a binary operation.
-     * Implementations choose which operation will be performed
-     * when calling {@code calculate()}.
+     * Calculates partial derivative of {@code pow(base, exponent)}
+     * with respect to the exponent.
+     * <p>Power of a base that is not positive is defined for integer
+     * exponents only, so its derivative is taken as zero. Thus powers
+     * of negative values with constant exponents are differentiable.
+     *
+     * @param base     The base.
+     * @param exponent The exponent.
+     * @return Value of the derivative.
+     */
+    static double powerExponentPartial(double base, double exponent) {
+        return base > 0 ? Math.pow(base, exponent) * Math.log(base) : 0;
+    }
+
+    /**
+     * Calculates partial derivative of remainder of division
+     * with respect to the divisor.
+     *
+     * @param operand1 The dividend.
+     * @param operand2 The divisor.
+     * @return Value of the derivative, that is the negated
+     * quotient rounded towards zero.
+     */
+    static double remainderDivisorPartial(double operand1, double operand2) {
+        double quotient = operand1 / operand2;
+        return -(quotient < 0 ? Math.ceil(quotient) : Math.floor(quotient));
+    }
+
+    /**
+     * Calculates the result of an operation
+     * for a block of operand pairs.
+     * <p>Operands are stored in one array: first operands
+     * starting at {@code firstOffset} and second operands starting
+     * at {@code secondOffset}. Results replace the first operands.
+     *
+     * @param opcode       Opcode of the operation.
+     * @param values       Array with operands.
+     * @param firstOffset  Offset of the first operands.
+     * @param secondOffset Offset of the second operands.
+     * @param length       Count of operand pairs.
+     * @throws SolverException if division by zero occurs.
      */
-    interface Operation {
-        /**
-         * Calculates the result of an an operation.
-         *
-         * @param operand1 The first operand.
-         * @param operand2 The second operand.
-         * @return Result of a calculation in double value.
-         */
-        double calculate(Double operand1, Double operand2);
+    static void calculate(int opcode, double[] values, int firstOffset, int secondOffset, int length) {
+        switch (opcode) {
+            case Instructions.ADD:
+                for (int i = 0; i < length; i++) {
+                    values[firstOffset + i] += values[secondOffset + i];
+                }
+                break;
+            case Instructions.SUBTRACT:
+                for (int i = 0; i < length; i++) {
+                    values[firstOffset + i] -= values[secondOffset + i];
+                }
+                break;
+            case Instructions.MULTIPLY:
+                for (int i = 0; i < length; i++) {
+                    values[firstOffset + i] *= values[secondOffset + i];
+                }
+                break;
+            case Instructions.DIVIDE:
+                for (int i = 0; i < length; i++) {
+                    if (values[secondOffset + i] == 0) {
+                        throw new SolverException(new ArithmeticException("Division by zero."));
+                    }
+                }
+                for (int i = 0; i < length; i++) {
+                    values[firstOffset + i] /= values[secondOffset + i];
+                }
+                break;
+            default:
+                throw new SolverException("Unknown opcode: " + opcode);
+        }
     }
 }
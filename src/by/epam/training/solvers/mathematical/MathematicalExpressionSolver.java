@@ -1,6 +1,10 @@
 package by.epam.training.solvers.mathematical;
 
 import by.epam.training.solvers.Solver;
+import by.epam.training.solvers.validation.TaskValidator;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Extension of Solver interface
@@ -11,4 +15,47 @@ import by.epam.training.solvers.Solver;
  */
 public interface MathematicalExpressionSolver extends Solver {
 
+    /**
+     * Validates an expression and converts it
+     * into a reusable compiled form.
+     * <p>Use this method when the same expression
+     * is solved many times: validation and parsing
+     * are performed only once.
+     *
+     * @param expression Expression to compile.
+     * @return Compiled expression.
+     * @see CompiledExpression
+     */
+    CompiledExpression compile(String expression);
+
+    /**
+     * Validates an expression with custom validator
+     * and converts it into a reusable compiled form.
+     *
+     * @param expression Expression to compile.
+     * @param validator  The validator used to validate the expression.
+     * @return Compiled expression.
+     * @see CompiledExpression
+     * @see TaskValidator
+     */
+    CompiledExpression compile(String expression, TaskValidator validator);
+
+    /**
+     * Compiles several related expressions into a set
+     * that is evaluated as a whole.
+     * <p>Subexpressions shared by expressions of the set
+     * are calculated once per evaluation.
+     *
+     * @param expressions Expressions to compile.
+     * @return Compiled set of expressions in the same order.
+     * @see CompiledExpressionSet
+     */
+    default CompiledExpressionSet compileAll(List<String> expressions) {
+        List<CompiledExpression> compiledExpressions = new ArrayList<>(expressions.size());
+        for (String expression : expressions) {
+            compiledExpressions.add(compile(expression));
+        }
+        return CompiledExpressionSet.of(compiledExpressions);
+    }
+
 }
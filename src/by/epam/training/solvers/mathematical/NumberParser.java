@@ -0,0 +1,166 @@
+package by.epam.training.solvers.mathematical;
+
+import java.math.BigInteger;
+
+/**
+ * Utility class.
+ * Converts decimal numbers into correctly rounded doubles
+ * without allocating memory.
+ * <p>A number is given by its significant digits as {@code long}
+ * and a power of ten. Conversion tries the following, in order:
+ * <ol>
+ *     <li>Clinger's fast path: when both the digits and the power of ten
+ *     are exactly representable as doubles, a single multiplication
+ *     or division is correctly rounded.
+ *     <li>Eisel-Lemire algorithm: the digits are multiplied
+ *     by a 128-bit approximation of the power of ten, which determines
+ *     the correctly rounded result in all cases except a few
+ *     that are too close to a halfway point, and subnormal numbers.
+ * </ol>
+ * Remaining cases are reported to caller, which is expected to fall back
+ * to {@link Double#parseDouble(String)}.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.0
+ * @see ExpressionLexer
+ */
+final class NumberParser {
+
+    /**
+     * Maximal count of significant digits that fit into {@code long}.
+     */
+    static final int MAX_DIGITS = 19;
+
+    private static final int SMALLEST_POWER = -342;
+    private static final int LARGEST_POWER = 308;
+    /**
+     * Largest power of ten that is exactly representable as double.
+     */
+    private static final int MAX_EXACT_POWER = 22;
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private static final double[] EXACT_POWERS_OF_TEN = new double[MAX_EXACT_POWER + 1];
+    /**
+     * High and low halves of 128-bit approximations of {@code 5^q}
+     * for {@code q} from {@link #SMALLEST_POWER} to {@link #LARGEST_POWER},
+     * normalized so that the highest bit is set.
+     * Approximations of negative powers are rounded up, of positive ones down.
+     */
+    private static final long[] POWERS_OF_FIVE = new long[2 * (LARGEST_POWER - SMALLEST_POWER + 1)];
+
+    static {
+        EXACT_POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i <= MAX_EXACT_POWER; i++) {
+            EXACT_POWERS_OF_TEN[i] = EXACT_POWERS_OF_TEN[i - 1] * 10;
+        }
+
+        BigInteger two128 = BigInteger.ONE.shiftLeft(128);
+        for (int q = SMALLEST_POWER; q <= LARGEST_POWER; q++) {
+            BigInteger approximation;
+            if (q < 0) {
+                BigInteger power = BigInteger.valueOf(5).pow(-q);
+                int bits = power.bitLength();
+                int shift = q >= -27 ? bits + 127 : 2 * bits + 128;
+                approximation = BigInteger.ONE.shiftLeft(shift).divide(power).add(BigInteger.ONE);
+            } else {
+                approximation = BigInteger.valueOf(5).pow(q);
+            }
+            // normalize into [2^127, 2^128), truncating
+            int excess = approximation.bitLength() - 128;
+            approximation = excess > 0 ? approximation.shiftRight(excess) : approximation.shiftLeft(-excess);
+            int index = 2 * (q - SMALLEST_POWER);
+            POWERS_OF_FIVE[index] = approximation.shiftRight(64).longValue();
+            POWERS_OF_FIVE[index + 1] = approximation.mod(two128).longValue();
+        }
+    }
+
+    private NumberParser() {
+    }
+
+    /**
+     * Converts a decimal number {@code digits * 10^exponent}
+     * into the nearest double.
+     *
+     * @param digits   Significant digits, treated as unsigned,
+     *                 at most {@link #MAX_DIGITS} of them.
+     * @param exponent Power of ten.
+     * @return The nearest double, {@link Double#NaN} if it cannot be
+     * determined by fast algorithms.
+     */
+    static double toDouble(long digits, int exponent) {
+        if (digits == 0 || exponent < SMALLEST_POWER) {
+            return 0;
+        }
+        if (exponent > LARGEST_POWER) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        if (Long.compareUnsigned(digits, MAX_EXACT_MANTISSA) <= 0) {
+            if (exponent >= 0 && exponent <= MAX_EXACT_POWER) {
+                return digits * EXACT_POWERS_OF_TEN[exponent];
+            }
+            if (exponent < 0 && exponent >= -MAX_EXACT_POWER) {
+                return digits / EXACT_POWERS_OF_TEN[-exponent];
+            }
+        }
+
+        return eiselLemire(digits, exponent);
+    }
+
+    /**
+     * Utility method.
+     * Converts a decimal number with Eisel-Lemire algorithm.
+     *
+     * @return The nearest double, {@link Double#NaN} if the algorithm fails.
+     */
+    private static double eiselLemire(long digits, int exponent) {
+        int index = 2 * (exponent - SMALLEST_POWER);
+        long factorHigh = POWERS_OF_FIVE[index];
+        int leadingZeros = Long.numberOfLeadingZeros(digits);
+        long normalized = digits << leadingZeros;
+
+        long lower = normalized * factorHigh;
+        long upper = Math.multiplyHigh(normalized, factorHigh) + ((factorHigh >> 63) & normalized)
+                + ((normalized >> 63) & factorHigh);
+
+        if ((upper & 0x1FF) == 0x1FF && Long.compareUnsigned(lower + normalized, lower) < 0) {
+            // the approximation is too coarse: take the lower half of the power into account
+            long factorLow = POWERS_OF_FIVE[index + 1];
+            long productLow = normalized * factorLow;
+            long productMiddle2 = Math.multiplyHigh(normalized, factorLow) + ((factorLow >> 63) & normalized)
+                    + ((normalized >> 63) & factorLow);
+            long productMiddle = lower + productMiddle2;
+            if (Long.compareUnsigned(productMiddle, lower) < 0) {
+                upper++;
+            }
+            if (productMiddle + 1 == 0 && (upper & 0x1FF) == 0x1FF
+                    && Long.compareUnsigned(productLow + normalized, productLow) < 0) {
+                return Double.NaN;
+            }
+            lower = productMiddle;
+        }
+
+        int upperBit = (int) (upper >>> 63);
+        long mantissa = upper >>> (upperBit + 9);
+        leadingZeros += 1 ^ upperBit;
+
+        if (lower == 0 && (upper & 0x1FF) == 0 && (mantissa & 3) == 1) {
+            // exactly halfway between two doubles, rounding direction is unknown
+            return Double.NaN;
+        }
+
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        if (mantissa >= MAX_EXACT_MANTISSA) {
+            mantissa = 1L << 52;
+            leadingZeros--;
+        }
+        mantissa &= ~(1L << 52);
+
+        long biasedExponent = (((152170L + 65536L) * exponent) >> 16) + 1024 + 63 - leadingZeros;
+        if (biasedExponent < 1 || biasedExponent > 2046) {
+            return Double.NaN;
+        }
+        return Double.longBitsToDouble(mantissa | biasedExponent << 52);
+    }
+}
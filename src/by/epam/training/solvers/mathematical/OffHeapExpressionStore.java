@@ -0,0 +1,389 @@
+package by.epam.training.solvers.mathematical;
+
+import by.epam.training.solvers.exception.SolverException;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Store of a large number of compiled expressions outside of Java heap.
+ * <p>Programs of expressions are packed into direct byte buffers
+ * and addressed by integer handles, which are assigned in order of addition.
+ * Neither expression strings nor compiled expression objects are retained,
+ * and expressions are evaluated right from the packed programs,
+ * so the heap does not grow with the number of stored expressions:
+ * only functions and operators referenced by expressions are kept on heap,
+ * once per store.
+ * <p>Each expression occupies a record with its instructions,
+ * constants, indices of called functions and names of variables,
+ * plus an 8-byte entry of the index of handles, see {@link #getFootprint(int)}.
+ * <p>The store is append-only: memory is released only
+ * when the whole store becomes unreachable.
+ * Expressions can be added and evaluated concurrently.
+ * All expressions must be compiled with the same operators,
+ * that is by solvers sharing an {@link OperatorRegistry}.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.0
+ */
+public final class OffHeapExpressionStore {
+
+    private static final int DEFAULT_CHUNK_SIZE = 16 << 20;
+    /**
+     * Count of entries in one chunk of the index of handles.
+     */
+    private static final int INDEX_CHUNK_ENTRIES = 1 << 16;
+
+    /*
+     * Layout of a record, all numbers in native byte order.
+     * The record starts at an offset that is a multiple of 8.
+     */
+    private static final int INSTRUCTIONS_COUNT = 0;
+    private static final int CONSTANTS_COUNT = 4;
+    private static final int VARIABLES_COUNT = 8;
+    private static final int FUNCTIONS_COUNT = 12;
+    private static final int MAX_STACK_DEPTH = 16;
+    private static final int MAX_ARITY = 20;
+    /**
+     * Offset of constants, followed by instructions, indices of functions
+     * in the store and names of variables, each prefixed by its length.
+     */
+    private static final int HEADER_SIZE = 24;
+
+    private final MathematicalExpressionSolver solver;
+    private final int chunkSize;
+    /**
+     * Chunks of records. Only the last one is being filled.
+     */
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+    /**
+     * Chunks of the index: entry of a handle is index of its chunk
+     * in the high half and offset of its record in the low half.
+     */
+    private volatile ByteBuffer[] indexChunks = new ByteBuffer[0];
+    private volatile MathFunction[] functions = new MathFunction[0];
+    private volatile Operator[] operators = OperatorTable.STANDARD.operators();
+    /**
+     * Count of stored expressions.
+     * Written after all data of an expression, so that readers
+     * that check a handle against it see the whole record.
+     */
+    private volatile int count;
+    private long usedSize;
+
+    /**
+     * Creates a store that compiles expressions with
+     * {@code ReversePolishNotationSolver} and allocates memory in chunks of 16 MB.
+     */
+    public OffHeapExpressionStore() {
+        this(new ReversePolishNotationSolver(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a store.
+     *
+     * @param solver    Solver that compiles added expressions.
+     * @param chunkSize Size of a block of memory allocated at once, in bytes.
+     *                  Larger records receive a block of their own.
+     * @throws IllegalArgumentException if chunk size is not positive.
+     */
+    public OffHeapExpressionStore(MathematicalExpressionSolver solver, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Illegal chunk size: " + chunkSize);
+        }
+        this.solver = solver;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Compiles an expression and stores it.
+     *
+     * @param expression Expression to store.
+     * @return Handle of the expression.
+     * @throws SolverException if expression is invalid.
+     */
+    public int add(String expression) {
+        return add(solver.compile(expression));
+    }
+
+    /**
+     * Stores a compiled expression.
+     * The compiled expression itself is not retained.
+     *
+     * @param expression Compiled expression.
+     * @return Handle of the expression.
+     * @throws SolverException if the expression is compiled with operators
+     *                         different from operators of stored expressions.
+     */
+    public synchronized int add(CompiledExpression expression) {
+        addOperators(expression.operators());
+        int[] instructions = expression.instructions();
+        double[] constants = expression.constants();
+        MathFunction[] expressionFunctions = expression.functions();
+        byte[][] names = new byte[expression.variableNames().length][];
+        int size = HEADER_SIZE + Double.BYTES * constants.length
+                + Integer.BYTES * (instructions.length + expressionFunctions.length);
+        for (int i = 0; i < names.length; i++) {
+            names[i] = expression.variableNames()[i].getBytes(StandardCharsets.US_ASCII);
+            size += Integer.BYTES + names[i].length;
+        }
+        size = (size + 7) & ~7;
+
+        ByteBuffer chunk = reserve(size);
+        int offset = chunk.position();
+        int maxArity = 0;
+        for (MathFunction function : expressionFunctions) {
+            maxArity = Math.max(maxArity, function.getArity());
+        }
+        chunk.putInt(offset + INSTRUCTIONS_COUNT, instructions.length);
+        chunk.putInt(offset + CONSTANTS_COUNT, constants.length);
+        chunk.putInt(offset + VARIABLES_COUNT, names.length);
+        chunk.putInt(offset + FUNCTIONS_COUNT, expressionFunctions.length);
+        chunk.putInt(offset + MAX_STACK_DEPTH, CompiledExpression.computeMaxStackDepth(instructions,
+                expressionFunctions, expression.operators()));
+        chunk.putInt(offset + MAX_ARITY, maxArity);
+
+        int position = offset + HEADER_SIZE;
+        for (double constant : constants) {
+            chunk.putDouble(position, constant);
+            position += Double.BYTES;
+        }
+        for (int instruction : instructions) {
+            chunk.putInt(position, instruction);
+            position += Integer.BYTES;
+        }
+        for (MathFunction function : expressionFunctions) {
+            chunk.putInt(position, functionIndex(function));
+            position += Integer.BYTES;
+        }
+        for (byte[] name : names) {
+            chunk.putInt(position, name.length);
+            chunk.put(position + Integer.BYTES, name);
+            position += Integer.BYTES + name.length;
+        }
+        chunk.position(offset + size);
+
+        int handle = count;
+        if (handle % INDEX_CHUNK_ENTRIES == 0) {
+            ByteBuffer[] extended = Arrays.copyOf(indexChunks, indexChunks.length + 1);
+            extended[indexChunks.length] = ByteBuffer.allocateDirect(INDEX_CHUNK_ENTRIES * Long.BYTES)
+                    .order(ByteOrder.nativeOrder());
+            indexChunks = extended;
+        }
+        indexChunks[handle / INDEX_CHUNK_ENTRIES].putLong((handle % INDEX_CHUNK_ENTRIES) * Long.BYTES,
+                ((long) (chunks.length - 1) << 32) | offset);
+        usedSize += size + Long.BYTES;
+        count = handle + 1;
+        return handle;
+    }
+
+    /**
+     * @return Count of stored expressions.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @param handle Handle of an expression.
+     * @return Names of variables of the expression in order of their indices.
+     * @throws IllegalArgumentException if there is no expression with the handle.
+     */
+    public List<String> getVariables(int handle) {
+        long entry = entry(handle);
+        ByteBuffer chunk = chunks[(int) (entry >>> 32)];
+        int offset = (int) entry;
+        String[] names = new String[chunk.getInt(offset + VARIABLES_COUNT)];
+        int position = namesOffset(chunk, offset);
+        for (int i = 0; i < names.length; i++) {
+            byte[] name = new byte[chunk.getInt(position)];
+            chunk.get(position + Integer.BYTES, name);
+            names[i] = new String(name, StandardCharsets.US_ASCII);
+            position += Integer.BYTES + name.length;
+        }
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    /**
+     * Calculates the result of a stored expression.
+     * Instructions are read right from the memory of the store.
+     *
+     * @param handle Handle of the expression.
+     * @param values Values of variables in order of their indices.
+     * @return Result of solution as a double value.
+     * @throws IllegalArgumentException if there is no expression with the handle.
+     * @throws SolverException          if division by zero occurs,
+     *                                  or if count of values does not match
+     *                                  count of variables.
+     * @see #getVariables(int)
+     */
+    public double evaluate(int handle, double... values) {
+        long entry = entry(handle);
+        ByteBuffer chunk = chunks[(int) (entry >>> 32)];
+        int offset = (int) entry;
+        int variablesCount = chunk.getInt(offset + VARIABLES_COUNT);
+        if (values.length != variablesCount) {
+            throw new SolverException("Expression contains " + variablesCount
+                    + " variables " + getVariables(handle)
+                    + ", but " + values.length + " values were given.");
+        }
+
+        int constantsOffset = offset + HEADER_SIZE;
+        int instructionsOffset = constantsOffset + Double.BYTES * chunk.getInt(offset + CONSTANTS_COUNT);
+        int instructionsEnd = instructionsOffset + Integer.BYTES * chunk.getInt(offset + INSTRUCTIONS_COUNT);
+        MathFunction[] storeFunctions = functions;
+        Operator[] storeOperators = operators;
+
+        double[] stack = EvaluationStack.acquire(chunk.getInt(offset + MAX_STACK_DEPTH)
+                + chunk.getInt(offset + MAX_ARITY));
+        try {
+            int top = -1;
+            for (int position = instructionsOffset; position < instructionsEnd; position += Integer.BYTES) {
+                int instruction = chunk.getInt(position);
+                int opcode = Instructions.opcode(instruction);
+
+                if (opcode == Instructions.PUSH_CONSTANT) {
+                    stack[++top] = chunk.getDouble(constantsOffset + Double.BYTES * Instructions.operand(instruction));
+                } else if (opcode == Instructions.LOAD_VARIABLE) {
+                    stack[++top] = values[Instructions.operand(instruction)];
+                } else if (opcode == Instructions.CALL_FUNCTION) {
+                    MathFunction function = storeFunctions[chunk.getInt(instructionsEnd
+                            + Integer.BYTES * Instructions.operand(instruction))];
+                    top -= function.getArity() - 1;
+                    stack[top] = function.apply(stack, top);
+                } else if (opcode < Instructions.FIRST_CUSTOM_OPCODE) {
+                    double secondOperand = stack[top--];
+                    stack[top] = MathOperationProvider.calculate(opcode, stack[top], secondOperand);
+                } else if (storeOperators[opcode].isPrefix()) {
+                    stack[top] = storeOperators[opcode].apply(stack[top]);
+                } else {
+                    double secondOperand = stack[top--];
+                    stack[top] = storeOperators[opcode].apply(stack[top], secondOperand);
+                }
+            }
+            return stack[0];
+        } finally {
+            EvaluationStack.release(stack);
+        }
+    }
+
+    /**
+     * Retrieves memory occupied by a stored expression:
+     * size of its record and of its entry in the index of handles.
+     *
+     * @param handle Handle of the expression.
+     * @return Size in bytes.
+     * @throws IllegalArgumentException if there is no expression with the handle.
+     */
+    public int getFootprint(int handle) {
+        long entry = entry(handle);
+        ByteBuffer chunk = chunks[(int) (entry >>> 32)];
+        int offset = (int) entry;
+        int position = namesOffset(chunk, offset);
+        for (int i = chunk.getInt(offset + VARIABLES_COUNT); i > 0; i--) {
+            position += Integer.BYTES + chunk.getInt(position);
+        }
+        return ((position - offset + 7) & ~7) + Long.BYTES;
+    }
+
+    /**
+     * @return Average memory occupied by a stored expression in bytes,
+     * {@code 0} if the store is empty.
+     * @see #getFootprint(int)
+     */
+    public synchronized double getAverageFootprint() {
+        return count == 0 ? 0 : (double) usedSize / count;
+    }
+
+    /**
+     * @return Total size of memory allocated outside of heap in bytes,
+     * including space reserved for expressions that are not added yet.
+     */
+    public synchronized long getOffHeapSize() {
+        long size = (long) indexChunks.length * INDEX_CHUNK_ENTRIES * Long.BYTES;
+        for (ByteBuffer chunk : chunks) {
+            size += chunk.capacity();
+        }
+        return size;
+    }
+
+    /**
+     * Utility method.
+     * Finds entry of a handle in the index.
+     *
+     * @throws IllegalArgumentException if there is no expression with the handle.
+     */
+    private long entry(int handle) {
+        if (handle < 0 || handle >= count) {
+            throw new IllegalArgumentException("Unknown handle of expression: " + handle);
+        }
+        return indexChunks[handle / INDEX_CHUNK_ENTRIES].getLong((handle % INDEX_CHUNK_ENTRIES) * Long.BYTES);
+    }
+
+    /**
+     * Utility method.
+     * Retrieves offset of names of variables of a record.
+     */
+    private static int namesOffset(ByteBuffer chunk, int offset) {
+        return offset + HEADER_SIZE + Double.BYTES * chunk.getInt(offset + CONSTANTS_COUNT)
+                + Integer.BYTES * (chunk.getInt(offset + INSTRUCTIONS_COUNT) + chunk.getInt(offset + FUNCTIONS_COUNT));
+    }
+
+    /**
+     * Utility method.
+     * Finds a chunk with enough free space for a record,
+     * allocating a new one if needed.
+     *
+     * @return The chunk, positioned at the start of free space.
+     */
+    private ByteBuffer reserve(int size) {
+        ByteBuffer last = chunks.length == 0 ? null : chunks[chunks.length - 1];
+        if (last != null && last.remaining() >= size) {
+            return last;
+        }
+        ByteBuffer[] extended = Arrays.copyOf(chunks, chunks.length + 1);
+        extended[chunks.length] = ByteBuffer.allocateDirect(Math.max(chunkSize, size)).order(ByteOrder.nativeOrder());
+        chunks = extended;
+        return extended[extended.length - 1];
+    }
+
+    /**
+     * Utility method.
+     * Retrieves index of a function in the store, adding it if needed.
+     */
+    private int functionIndex(MathFunction function) {
+        for (int i = 0; i < functions.length; i++) {
+            if (functions[i] == function) {
+                return i;
+            }
+        }
+        MathFunction[] extended = Arrays.copyOf(functions, functions.length + 1);
+        extended[functions.length] = function;
+        functions = extended;
+        return functions.length - 1;
+    }
+
+    /**
+     * Utility method.
+     * Merges operators of an expression with operators of the store.
+     * Registries only grow, so operators of one registry
+     * taken at different times agree on common opcodes.
+     *
+     * @throws SolverException if an opcode denotes different operators.
+     */
+    private void addOperators(Operator[] expressionOperators) {
+        int common = Math.min(operators.length, expressionOperators.length);
+        for (int opcode = 0; opcode < common; opcode++) {
+            if (operators[opcode] != expressionOperators[opcode]) {
+                throw new SolverException("Expression is compiled with different operators.");
+            }
+        }
+        if (expressionOperators.length > operators.length) {
+            operators = expressionOperators;
+        }
+    }
+}
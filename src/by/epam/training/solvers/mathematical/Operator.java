@@ -0,0 +1,325 @@
+package by.epam.training.solvers.mathematical;
+
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Definition of an operator of mathematical expressions.
+ * <p>An operator is either binary (written between its operands)
+ * or prefix (written before its only operand). It is described by
+ * its symbol, precedence, associativity and the operation it performs.
+ * Operators with higher precedence are calculated first.
+ * Built-in operators have precedence {@code 1} for {@code +} and {@code -}
+ * and {@code 2} for {@code *} and {@code /}.
+ * <p>Operations must be pure functions of their operands:
+ * operations with constant operands are calculated once, at compile time.
+ * An operation may signal an error by throwing {@code SolverException}.
+ * <p>An operator may also define derivatives of its operation, so that
+ * expressions containing it can be differentiated
+ * (see {@link CompiledExpression#gradient(double...)}).
+ * All predefined operators are differentiable.
+ * <p>Operators are added to expressions by registering them
+ * in {@link OperatorRegistry}.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.1
+ */
+public final class Operator {
+
+    /**
+     * Exponentiation {@code a ^ b}.
+     * Binds tighter than multiplication and negation and is right-associative,
+     * so {@code 2^3^2} is {@code 2^(3^2)} and {@code -2^2} is {@code -(2^2)}.
+     */
+    public static final Operator POWER = binary("^", 4, Associativity.RIGHT, Math::pow,
+            MathOperationProvider::powerBasePartial, MathOperationProvider::powerExponentPartial);
+    /**
+     * Remainder of division {@code a % b}, with precedence of multiplication.
+     * Sign of the result matches sign of the dividend.
+     */
+    public static final Operator REMAINDER = binary("%", 2, Associativity.LEFT, MathOperationProvider::remainder,
+            (operand1, operand2) -> 1, MathOperationProvider::remainderDivisorPartial);
+    /**
+     * Minimum of two operands {@code a <? b}.
+     * Binds looser than any built-in operator.
+     */
+    public static final Operator MINIMUM = binary("<?", 0, Associativity.LEFT, Math::min,
+            (operand1, operand2) -> operand1 <= operand2 ? 1 : 0,
+            (operand1, operand2) -> operand1 <= operand2 ? 0 : 1);
+    /**
+     * Maximum of two operands {@code a >? b}.
+     * Binds looser than any built-in operator.
+     */
+    public static final Operator MAXIMUM = binary(">?", 0, Associativity.LEFT, Math::max,
+            (operand1, operand2) -> operand1 >= operand2 ? 1 : 0,
+            (operand1, operand2) -> operand1 >= operand2 ? 0 : 1);
+    /**
+     * Negation {@code -a}.
+     * Binds tighter than multiplication, but looser than {@link #POWER}.
+     */
+    public static final Operator NEGATION = prefix("-", 3, operand -> -operand, operand -> -1);
+
+    private final String symbol;
+    private final int precedence;
+    private final Associativity associativity;
+    /**
+     * Operation of a prefix operator, {@code null} for binary operators.
+     */
+    private final DoubleUnaryOperator unaryOperation;
+    /**
+     * Operation of a binary operator, {@code null} for prefix operators.
+     */
+    private final DoubleBinaryOperator binaryOperation;
+    /**
+     * Derivative of a prefix operator, {@code null} for binary operators
+     * and for operators that are not differentiable.
+     */
+    private final DoubleUnaryOperator derivative;
+    /**
+     * Partial derivatives of a binary operator with respect to
+     * its first and second operands, {@code null} for prefix operators
+     * and for operators that are not differentiable.
+     */
+    private final DoubleBinaryOperator firstPartial;
+    private final DoubleBinaryOperator secondPartial;
+
+    private Operator(String symbol, int precedence, Associativity associativity,
+                     DoubleUnaryOperator unaryOperation, DoubleBinaryOperator binaryOperation,
+                     DoubleUnaryOperator derivative, DoubleBinaryOperator firstPartial,
+                     DoubleBinaryOperator secondPartial) {
+        checkSymbol(symbol);
+        this.symbol = symbol;
+        this.precedence = precedence;
+        this.associativity = associativity;
+        this.unaryOperation = unaryOperation;
+        this.binaryOperation = binaryOperation;
+        this.derivative = derivative;
+        this.firstPartial = firstPartial;
+        this.secondPartial = secondPartial;
+    }
+
+    /**
+     * Defines a binary operator.
+     *
+     * @param symbol        Symbol of the operator, made of ASCII punctuation
+     *                      other than brackets, comma, dot and underscore.
+     * @param precedence    Precedence of the operator.
+     * @param associativity Order of calculation of a chain of operators
+     *                      with the same precedence.
+     * @param operation     Operation performed by the operator.
+     * @return The operator.
+     * @throws IllegalArgumentException if the symbol is invalid.
+     */
+    public static Operator binary(String symbol, int precedence, Associativity associativity,
+                                  DoubleBinaryOperator operation) {
+        if (associativity == null || operation == null) {
+            throw new IllegalArgumentException("Associativity and operation of an operator are required.");
+        }
+        return new Operator(symbol, precedence, associativity, null, operation, null, null, null);
+    }
+
+    /**
+     * Defines a differentiable binary operator.
+     *
+     * @param symbol        Symbol of the operator, made of ASCII punctuation
+     *                      other than brackets, comma, dot and underscore.
+     * @param precedence    Precedence of the operator.
+     * @param associativity Order of calculation of a chain of operators
+     *                      with the same precedence.
+     * @param operation     Operation performed by the operator.
+     * @param firstPartial  Partial derivative of the operation
+     *                      with respect to the first operand.
+     * @param secondPartial Partial derivative of the operation
+     *                      with respect to the second operand.
+     * @return The operator.
+     * @throws IllegalArgumentException if the symbol is invalid.
+     */
+    public static Operator binary(String symbol, int precedence, Associativity associativity,
+                                  DoubleBinaryOperator operation, DoubleBinaryOperator firstPartial,
+                                  DoubleBinaryOperator secondPartial) {
+        if (associativity == null || operation == null || firstPartial == null || secondPartial == null) {
+            throw new IllegalArgumentException(
+                    "Associativity, operation and derivatives of an operator are required.");
+        }
+        return new Operator(symbol, precedence, associativity, null, operation, null, firstPartial, secondPartial);
+    }
+
+    /**
+     * Defines a prefix operator.
+     * Prefix operators are right-associative by nature:
+     * {@code --a} is {@code -(-a)}.
+     *
+     * @param symbol     Symbol of the operator, made of ASCII punctuation
+     *                   other than brackets, comma, dot and underscore.
+     *                   May be the same as a symbol of a binary operator.
+     * @param precedence Precedence of the operator.
+     * @param operation  Operation performed by the operator.
+     * @return The operator.
+     * @throws IllegalArgumentException if the symbol is invalid.
+     */
+    public static Operator prefix(String symbol, int precedence, DoubleUnaryOperator operation) {
+        if (operation == null) {
+            throw new IllegalArgumentException("Operation of an operator is required.");
+        }
+        return new Operator(symbol, precedence, Associativity.RIGHT, operation, null, null, null, null);
+    }
+
+    /**
+     * Defines a differentiable prefix operator.
+     *
+     * @param symbol     Symbol of the operator, made of ASCII punctuation
+     *                   other than brackets, comma, dot and underscore.
+     *                   May be the same as a symbol of a binary operator.
+     * @param precedence Precedence of the operator.
+     * @param operation  Operation performed by the operator.
+     * @param derivative Derivative of the operation.
+     * @return The operator.
+     * @throws IllegalArgumentException if the symbol is invalid.
+     */
+    public static Operator prefix(String symbol, int precedence, DoubleUnaryOperator operation,
+                                  DoubleUnaryOperator derivative) {
+        if (operation == null || derivative == null) {
+            throw new IllegalArgumentException("Operation and derivative of an operator are required.");
+        }
+        return new Operator(symbol, precedence, Associativity.RIGHT, operation, null, derivative, null, null);
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public int getPrecedence() {
+        return precedence;
+    }
+
+    public Associativity getAssociativity() {
+        return associativity;
+    }
+
+    /**
+     * @return Count of operands: {@code 1} for prefix operators,
+     * {@code 2} for binary operators.
+     */
+    public int getArity() {
+        return unaryOperation != null ? 1 : 2;
+    }
+
+    boolean isPrefix() {
+        return unaryOperation != null;
+    }
+
+    /**
+     * @return {@code true} if derivatives of the operation are defined.
+     */
+    public boolean isDifferentiable() {
+        return derivative != null || firstPartial != null;
+    }
+
+    /**
+     * Calculates the result of a prefix operator.
+     */
+    double apply(double operand) {
+        return unaryOperation.applyAsDouble(operand);
+    }
+
+    /**
+     * Calculates the result of a binary operator.
+     */
+    double apply(double operand1, double operand2) {
+        return binaryOperation.applyAsDouble(operand1, operand2);
+    }
+
+    /**
+     * Calculates derivative of a prefix operator.
+     * Must be called for differentiable operators only.
+     */
+    double derivative(double operand) {
+        return derivative.applyAsDouble(operand);
+    }
+
+    /**
+     * Calculates partial derivative of a binary operator
+     * with respect to its first operand.
+     * Must be called for differentiable operators only.
+     */
+    double firstPartial(double operand1, double operand2) {
+        return firstPartial.applyAsDouble(operand1, operand2);
+    }
+
+    /**
+     * Calculates partial derivative of a binary operator
+     * with respect to its second operand.
+     * Must be called for differentiable operators only.
+     */
+    double secondPartial(double operand1, double operand2) {
+        return secondPartial.applyAsDouble(operand1, operand2);
+    }
+
+    /**
+     * Calculates the result of an operator for a block of operands.
+     * Layout of operands is the same as in
+     * {@link MathOperationProvider#calculate(int, double[], int, int, int)}.
+     * Second operands are ignored by prefix operators.
+     */
+    void apply(double[] values, int firstOffset, int secondOffset, int length) {
+        if (unaryOperation != null) {
+            for (int i = 0; i < length; i++) {
+                values[firstOffset + i] = unaryOperation.applyAsDouble(values[firstOffset + i]);
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                values[firstOffset + i] = binaryOperation.applyAsDouble(values[firstOffset + i],
+                        values[secondOffset + i]);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return (isPrefix() ? "prefix " : "binary ") + symbol;
+    }
+
+    /**
+     * Utility method.
+     * Checks that a symbol cannot be confused
+     * with other components of an expression.
+     *
+     * @param symbol The symbol.
+     * @throws IllegalArgumentException if the symbol is invalid.
+     */
+    private static void checkSymbol(String symbol) {
+        if (symbol == null || symbol.isEmpty()) {
+            throw new IllegalArgumentException("Symbol of an operator is empty.");
+        }
+        for (int i = 0; i < symbol.length(); i++) {
+            if (!isSymbolPart(symbol.charAt(i))) {
+                throw new IllegalArgumentException("Symbol of an operator contains '"
+                        + symbol.charAt(i) + "': " + symbol);
+            }
+        }
+    }
+
+    /**
+     * Checks if a character may be part of a symbol of an operator.
+     */
+    static boolean isSymbolPart(char symbol) {
+        return symbol < 128 && symbol > ' ' && !Character.isLetterOrDigit(symbol)
+                && symbol != '(' && symbol != ')' && symbol != ',' && symbol != '.' && symbol != '_'
+                && symbol != 127;
+    }
+
+    /**
+     * Order of calculation of a chain of operators
+     * with the same precedence.
+     */
+    public enum Associativity {
+        /**
+         * {@code a op b op c} is {@code (a op b) op c}.
+         */
+        LEFT,
+        /**
+         * {@code a op b op c} is {@code a op (b op c)}.
+         */
+        RIGHT
+    }
+}
@@ -0,0 +1,89 @@
+package by.epam.training.solvers.mathematical;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Registry of operators recognized by a solver.
+ * <p>Initially contains built-in operators {@code +}, {@code -}, {@code *} and {@code /}.
+ * More operators can be registered at any time, for example
+ * predefined {@link Operator#POWER}, {@link Operator#REMAINDER},
+ * {@link Operator#MINIMUM}, {@link Operator#MAXIMUM} and {@link Operator#NEGATION}:
+ * <pre>{@code
+ * OperatorRegistry operators = new OperatorRegistry()
+ *         .register(Operator.POWER)
+ *         .register(Operator.NEGATION);
+ * Solver solver = new ReversePolishNotationSolver(operators);
+ * }</pre>
+ * <p>Each registered operator receives a small opcode, so that
+ * evaluation dispatches to it by array index. Built-in operators
+ * are still dispatched by a switch over their fixed opcodes.
+ * <p>Registration affects expressions compiled after it.
+ * Expressions compiled earlier, including those cached by
+ * {@link CachingExpressionSolver}, are not affected.
+ * Registry is safe for concurrent use: compilers read an immutable
+ * snapshot of it, which is replaced on each registration.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.0
+ */
+public final class OperatorRegistry {
+
+    private volatile OperatorTable table = OperatorTable.STANDARD;
+
+    /**
+     * Registers an operator.
+     *
+     * @param operator The operator.
+     * @return This registry.
+     * @throws IllegalArgumentException if an operator with the same symbol
+     *                                  and arity is already registered.
+     * @throws IllegalStateException    if too many operators are registered.
+     */
+    public synchronized OperatorRegistry register(Operator operator) {
+        table = table.with(operator);
+        return this;
+    }
+
+    /**
+     * Retrieves a binary operator.
+     *
+     * @param symbol Symbol of the operator.
+     * @return The operator, {@code null} if there is none.
+     */
+    public Operator getBinaryOperator(String symbol) {
+        return table.find(symbol, 2);
+    }
+
+    /**
+     * Retrieves a prefix operator.
+     *
+     * @param symbol Symbol of the operator.
+     * @return The operator, {@code null} if there is none.
+     */
+    public Operator getPrefixOperator(String symbol) {
+        return table.find(symbol, 1);
+    }
+
+    /**
+     * @return All operators in order of registration,
+     * starting with built-in ones.
+     */
+    public List<Operator> getOperators() {
+        List<Operator> operators = new ArrayList<>();
+        for (Operator operator : table.operators()) {
+            if (operator != null) {
+                operators.add(operator);
+            }
+        }
+        return Collections.unmodifiableList(operators);
+    }
+
+    /**
+     * @return Current snapshot of the registry.
+     */
+    OperatorTable table() {
+        return table;
+    }
+}
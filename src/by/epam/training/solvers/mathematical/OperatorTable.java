@@ -0,0 +1,208 @@
+package by.epam.training.solvers.mathematical;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable set of operators known to a compiler.
+ * <p>Operators are indexed by their opcodes, so that evaluation
+ * dispatches to an operator by array index.
+ * Symbols of operators are indexed by their first character,
+ * so that lexer recognizes a symbol by checking only
+ * the symbols that start with the current character.
+ * <p>A distinct symbol may denote one binary and one prefix operator,
+ * for example binary subtraction and negation.
+ * Lexer reports the symbol, and compiler picks the operator
+ * depending on whether an operand is expected.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.0
+ * @see OperatorRegistry
+ */
+final class OperatorTable {
+
+    /**
+     * Table of built-in operators only.
+     */
+    static final OperatorTable STANDARD = new OperatorTable(standardOperators());
+
+    /**
+     * Operator of each opcode, {@code null} for opcodes
+     * that are not operations.
+     */
+    private final Operator[] operators;
+    /**
+     * Distinct symbols of operators by their indices.
+     */
+    private final String[] symbols;
+    /**
+     * Opcode of a binary operator of each symbol, {@code -1} if there is none.
+     */
+    private final int[] binaryOpcodes;
+    /**
+     * Opcode of a prefix operator of each symbol, {@code -1} if there is none.
+     */
+    private final int[] prefixOpcodes;
+    /**
+     * Indices of symbols by their first character,
+     * longer symbols first.
+     */
+    private final int[][] symbolsByFirstChar = new int[128][];
+
+    private OperatorTable(Operator[] operators) {
+        this.operators = operators;
+
+        List<String> distinctSymbols = new ArrayList<>();
+        for (Operator operator : operators) {
+            if (operator != null && !distinctSymbols.contains(operator.getSymbol())) {
+                distinctSymbols.add(operator.getSymbol());
+            }
+        }
+        this.symbols = distinctSymbols.toArray(new String[0]);
+        this.binaryOpcodes = new int[symbols.length];
+        this.prefixOpcodes = new int[symbols.length];
+        Arrays.fill(binaryOpcodes, -1);
+        Arrays.fill(prefixOpcodes, -1);
+
+        for (int opcode = 0; opcode < operators.length; opcode++) {
+            if (operators[opcode] != null) {
+                int symbol = distinctSymbols.indexOf(operators[opcode].getSymbol());
+                (operators[opcode].isPrefix() ? prefixOpcodes : binaryOpcodes)[symbol] = opcode;
+            }
+        }
+
+        Integer[] order = new Integer[symbols.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt((Integer symbol) -> symbols[symbol].length()).reversed());
+        for (int symbol : order) {
+            char first = symbols[symbol].charAt(0);
+            int[] sameFirstChar = symbolsByFirstChar[first] == null ? new int[0] : symbolsByFirstChar[first];
+            sameFirstChar = Arrays.copyOf(sameFirstChar, sameFirstChar.length + 1);
+            sameFirstChar[sameFirstChar.length - 1] = symbol;
+            symbolsByFirstChar[first] = sameFirstChar;
+        }
+    }
+
+    /**
+     * Creates a table with one more operator.
+     * The operator receives the next free opcode.
+     *
+     * @param operator The operator.
+     * @return New table.
+     * @throws IllegalArgumentException if an operator with the same symbol
+     *                                  and arity is already in the table.
+     * @throws IllegalStateException    if there are no free opcodes left.
+     */
+    OperatorTable with(Operator operator) {
+        if (find(operator.getSymbol(), operator.getArity()) != null) {
+            throw new IllegalArgumentException("Operator " + operator + " is already registered.");
+        }
+        if (operators.length > Instructions.MAX_OPCODE) {
+            throw new IllegalStateException("Too many operators are registered.");
+        }
+        Operator[] extended = Arrays.copyOf(operators, operators.length + 1);
+        extended[operators.length] = operator;
+        return new OperatorTable(extended);
+    }
+
+    /**
+     * Finds an operator by its symbol and arity.
+     *
+     * @return The operator, {@code null} if there is none.
+     */
+    Operator find(String symbol, int arity) {
+        for (Operator operator : operators) {
+            if (operator != null && operator.getSymbol().equals(symbol) && operator.getArity() == arity) {
+                return operator;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Recognizes the longest symbol of an operator
+     * at a position of an expression.
+     *
+     * @param expression The expression.
+     * @param position   Position of the first character of a symbol.
+     * @return Index of the symbol, {@code -1} if no symbol starts at the position.
+     */
+    int matchSymbol(CharSequence expression, int position) {
+        char first = expression.charAt(position);
+        if (first >= symbolsByFirstChar.length || symbolsByFirstChar[first] == null) {
+            return -1;
+        }
+        for (int symbol : symbolsByFirstChar[first]) {
+            if (matches(expression, position, symbols[symbol])) {
+                return symbol;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return Length of a symbol by its index.
+     */
+    int symbolLength(int symbol) {
+        return symbols[symbol].length();
+    }
+
+    /**
+     * @return Opcode of a binary operator denoted by a symbol,
+     * {@code -1} if there is none.
+     */
+    int binaryOpcode(int symbol) {
+        return binaryOpcodes[symbol];
+    }
+
+    /**
+     * @return Opcode of a prefix operator denoted by a symbol,
+     * {@code -1} if there is none.
+     */
+    int prefixOpcode(int symbol) {
+        return prefixOpcodes[symbol];
+    }
+
+    /**
+     * @return Operator of an opcode.
+     */
+    Operator operator(int opcode) {
+        return operators[opcode];
+    }
+
+    /**
+     * @return Operators indexed by their opcodes. Must not be modified.
+     */
+    Operator[] operators() {
+        return operators;
+    }
+
+    private static boolean matches(CharSequence expression, int position, String symbol) {
+        if (position + symbol.length() > expression.length()) {
+            return false;
+        }
+        for (int i = 1; i < symbol.length(); i++) {
+            if (expression.charAt(position + i) != symbol.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Operator[] standardOperators() {
+        Operator[] operators = new Operator[Instructions.FIRST_CUSTOM_OPCODE];
+        operators[Instructions.ADD] = Operator.binary("+", 1, Operator.Associativity.LEFT,
+                (operand1, operand2) -> operand1 + operand2);
+        operators[Instructions.SUBTRACT] = Operator.binary("-", 1, Operator.Associativity.LEFT,
+                (operand1, operand2) -> operand1 - operand2);
+        operators[Instructions.MULTIPLY] = Operator.binary("*", 2, Operator.Associativity.LEFT,
+                (operand1, operand2) -> operand1 * operand2);
+        operators[Instructions.DIVIDE] = Operator.binary("/", 2, Operator.Associativity.LEFT,
+                MathOperationProvider::divide);
+        return operators;
+    }
+}
@@ -0,0 +1,545 @@
+package by.epam.training.solvers.mathematical;
+
+import by.epam.training.solvers.exception.SolverException;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Compiled expression evaluated in parallel,
+ * intended for huge expressions with many thousands of terms.
+ * <p>Chains of additions and subtractions, as well as chains
+ * of multiplications, are flattened into sums and products of terms.
+ * Terms of a large sum or product are combined by a balanced tree
+ * of {@link ForkJoinPool fork-join} tasks: each task splits its terms
+ * into two halves of similar count of instructions, until a part
+ * is too small to be worth a task of its own. Parts are evaluated
+ * by the same interpreter as {@link CompiledExpression},
+ * so nesting of an expression never leads to deep recursion.
+ * <p>Additional memory is linear in count of instructions while
+ * the expression is analyzed, and linear in count of parallel parts
+ * afterwards. Expressions without large sums or products
+ * are evaluated sequentially.
+ * <p>Parallel evaluation adds up terms in a different order,
+ * so results may differ from sequential evaluation by rounding errors,
+ * and a product may overflow or underflow where sequential one does not.
+ * Divisions are never reordered.
+ * <p>A parallel expression is immutable and can be evaluated
+ * from any number of threads.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.1
+ * @see CompiledExpression#parallel()
+ */
+public final class ParallelExpression {
+
+    /**
+     * Minimal count of instructions in a part of an expression
+     * evaluated by a separate task.
+     */
+    static final int SEQUENTIAL_THRESHOLD = 1 << 14;
+
+    private final CompiledExpression expression;
+    private final int[] instructions;
+    private final double[] constants;
+    private final MathFunction[] functions;
+    private final Operator[] operators;
+    private final int stackDepth;
+    private final ForkJoinPool pool;
+
+    /*
+     * Sums and products evaluated in parallel, sorted by start,
+     * enclosing ones before enclosed ones that start at the same instruction.
+     * Each of them occupies instructions from its start to its end, exclusive.
+     */
+    private final boolean[] products;
+    private final int[] nodeStarts;
+    private final int[] nodeEnds;
+    /**
+     * Terms of node {@code i} are terms from {@code nodeTerms[i]}
+     * to {@code nodeTerms[i + 1]}, exclusive, in order of instructions.
+     */
+    private final int[] nodeTerms;
+    private final int[] termStarts;
+    private final int[] termEnds;
+    /**
+     * Whether a term of a sum is subtracted.
+     */
+    private final boolean[] negatedTerms;
+    /**
+     * Whether a term is followed by the operator that applies it
+     * to the preceding terms.
+     */
+    private final boolean[] appliedTerms;
+
+    /**
+     * Analyzes a compiled expression for parallel evaluation.
+     *
+     * @param expression Compiled expression.
+     * @param pool       Pool that runs tasks of evaluation.
+     */
+    ParallelExpression(CompiledExpression expression, ForkJoinPool pool) {
+        this.expression = expression;
+        this.instructions = expression.instructions();
+        this.constants = expression.constants();
+        this.functions = expression.functions();
+        this.operators = expression.operators();
+        this.pool = pool;
+        int maxArity = 0;
+        for (MathFunction function : functions) {
+            maxArity = Math.max(maxArity, function.getArity());
+        }
+        this.stackDepth = CompiledExpression.computeMaxStackDepth(instructions, functions, operators) + maxArity;
+
+        Flattener flattener = new Flattener(instructions.length);
+        flattener.flatten(instructions, functions, operators);
+        Integer[] order = flattener.selectParallelNodes();
+        Arrays.sort(order, (first, second) -> flattener.nodeStarts[first] != flattener.nodeStarts[second]
+                ? Integer.compare(flattener.nodeStarts[first], flattener.nodeStarts[second])
+                : Integer.compare(flattener.nodeEnds[second], flattener.nodeEnds[first]));
+
+        products = new boolean[order.length];
+        nodeStarts = new int[order.length];
+        nodeEnds = new int[order.length];
+        nodeTerms = new int[order.length + 1];
+        int termsCount = 0;
+        for (int node : order) {
+            termsCount += flattener.termCounts[node];
+        }
+        termStarts = new int[termsCount];
+        termEnds = new int[termsCount];
+        negatedTerms = new boolean[termsCount];
+        appliedTerms = new boolean[termsCount];
+        for (int i = 0; i < order.length; i++) {
+            int node = order[i];
+            products[i] = flattener.products[node];
+            nodeStarts[i] = flattener.nodeStarts[node];
+            nodeEnds[i] = flattener.nodeEnds[node];
+            int term = nodeTerms[i];
+            int source = flattener.firstTerms[node];
+            for (int j = 0; j < flattener.termCounts[node]; j++, source = flattener.nextTerms[source]) {
+                termStarts[term] = flattener.termStarts[source];
+                termEnds[term] = flattener.termEnds[source];
+                appliedTerms[term] = flattener.appliedTerms[source];
+                negatedTerms[term++] = flattener.negatedTerms[source];
+            }
+            nodeTerms[i + 1] = term;
+        }
+    }
+
+    /**
+     * @return Count of sums and products whose terms are evaluated in parallel,
+     * {@code 0} if the expression is evaluated sequentially.
+     */
+    public int getParallelPartCount() {
+        return nodeStarts.length;
+    }
+
+    /**
+     * @return Names of variables of an expression
+     * in order of their indices.
+     */
+    public List<String> getVariables() {
+        return expression.getVariables();
+    }
+
+    /**
+     * Calculates the result of an expression
+     * that contains no variables.
+     *
+     * @return Result of solution as a double value.
+     * @throws SolverException if division by zero occurs,
+     *                         or if expression contains variables.
+     */
+    public double evaluate() {
+        return evaluate(new double[0]);
+    }
+
+    /**
+     * Calculates the result of an expression in parallel.
+     * The calling thread waits for the result.
+     *
+     * @param values Values of variables in order of their indices.
+     * @return Result of solution as a double value.
+     * @throws SolverException if division by zero occurs,
+     *                         or if count of values does not match
+     *                         count of variables.
+     * @see #getVariables()
+     */
+    public double evaluate(double... values) {
+        if (nodeStarts.length == 0) {
+            return expression.evaluate(values);
+        }
+        String[] variables = expression.variableNames();
+        if (values.length != variables.length) {
+            throw new SolverException("Expression contains " + variables.length
+                    + " variables " + Arrays.toString(variables)
+                    + ", but " + values.length + " values were given.");
+        }
+        return pool.invoke(ForkJoinTask.adapt(() -> {
+            double[] stack = EvaluationStack.acquire(stackDepth);
+            try {
+                return evaluateRange(0, instructions.length, values, stack);
+            } finally {
+                EvaluationStack.release(stack);
+            }
+        }));
+    }
+
+    /**
+     * Utility method.
+     * Evaluates a complete subexpression, evaluating
+     * parallel nodes within it in parallel.
+     *
+     * @param start Index of the first instruction of the subexpression.
+     * @param end   Index of the instruction after the last one.
+     * @param stack Calculation stack of the current thread.
+     * @return Value of the subexpression.
+     */
+    private double evaluateRange(int start, int end, double[] values, double[] stack) {
+        int top = -1;
+        int position = start;
+        for (int node = findNode(start, end); node >= 0; node = findNode(position, end)) {
+            top = execute(position, nodeStarts[node], values, stack, top);
+            stack[++top] = evaluateNode(node, values);
+            position = nodeEnds[node];
+        }
+        top = execute(position, end, values, stack, top);
+        return stack[top];
+    }
+
+    /**
+     * Utility method.
+     * Evaluates a parallel node in the current pool.
+     */
+    private double evaluateNode(int node, double[] values) {
+        TermsTask task = new TermsTask(node, nodeTerms[node], nodeTerms[node + 1], values);
+        task.invoke();
+        return task.result;
+    }
+
+    /**
+     * Utility method.
+     * Evaluates terms of a node one after another.
+     *
+     * @param from Index of the first term.
+     * @param to   Index of the term after the last one.
+     */
+    private double combine(int node, int from, int to, double[] values) {
+        double[] stack = EvaluationStack.acquire(stackDepth);
+        try {
+            // terms of most parts contain no parallel nodes and are interpreted directly
+            boolean nested = findNode(termStarts[from], termEnds[to - 1]) >= 0;
+            double result = evaluateTerm(from, nested, values, stack);
+            if (negatedTerms[from]) {
+                result = -result;
+            }
+            int term = from + 1;
+            while (term < to) {
+                if (!nested && appliedTerms[term]) {
+                    // a run of terms, each followed by the operator that applies it, is interpreted as is
+                    int end = term + 1;
+                    while (end < to && appliedTerms[end] && termStarts[end] == termEnds[end - 1] + 1) {
+                        end++;
+                    }
+                    stack[0] = result;
+                    execute(termStarts[term], termEnds[end - 1] + 1, values, stack, 0);
+                    result = stack[0];
+                    term = end;
+                } else {
+                    double value = evaluateTerm(term, nested, values, stack);
+                    if (products[node]) {
+                        result *= value;
+                    } else {
+                        result = negatedTerms[term] ? result - value : result + value;
+                    }
+                    term++;
+                }
+            }
+            return result;
+        } finally {
+            EvaluationStack.release(stack);
+        }
+    }
+
+    /**
+     * Utility method.
+     * Evaluates a single term.
+     *
+     * @param nested Whether parallel nodes may lie within the term.
+     */
+    private double evaluateTerm(int term, boolean nested, double[] values, double[] stack) {
+        return nested ? evaluateRange(termStarts[term], termEnds[term], values, stack)
+                : stack[execute(termStarts[term], termEnds[term], values, stack, -1)];
+    }
+
+    /**
+     * Utility method.
+     * Finds the first parallel node that lies within a subexpression
+     * or a part of it.
+     *
+     * @param start Index of the first instruction to look at.
+     * @param end   Index of the instruction after the last one.
+     * @return Index of the node, {@code -1} if there is none.
+     */
+    private int findNode(int start, int end) {
+        int node = Arrays.binarySearch(nodeStarts, start);
+        if (node < 0) {
+            node = -node - 1;
+        } else {
+            // the search may hit any of nodes that start at the same instruction
+            while (node > 0 && nodeStarts[node - 1] == start) {
+                node--;
+            }
+            // nodes that start at the same instruction but end later enclose the subexpression
+            while (node < nodeStarts.length && nodeStarts[node] == start && nodeEnds[node] > end) {
+                node++;
+            }
+        }
+        return node < nodeStarts.length && nodeStarts[node] < end ? node : -1;
+    }
+
+    /**
+     * Utility method.
+     * Finds a split of terms into two parts of similar count of instructions.
+     *
+     * @return Index of the first term of the second part,
+     * between {@code from + 1} and {@code to - 1}.
+     */
+    private static int split(int[] termStarts, int[] termEnds, int from, int to) {
+        int middle = (termStarts[from] + termEnds[to - 1]) >>> 1;
+        int low = from;
+        int high = to - 1;
+        while (low < high) {
+            int term = (low + high) >>> 1;
+            if (termEnds[term] >= middle) {
+                high = term;
+            } else {
+                low = term + 1;
+            }
+        }
+        return Math.min(low + 1, to - 1);
+    }
+
+    /**
+     * Utility method.
+     * Checks that both parts of a split are worth separate tasks.
+     */
+    private static boolean isWorthSplitting(int[] termStarts, int[] termEnds, int from, int split, int to) {
+        return termEnds[split - 1] - termStarts[from] >= SEQUENTIAL_THRESHOLD
+                && termEnds[to - 1] - termStarts[split] >= SEQUENTIAL_THRESHOLD;
+    }
+
+    /**
+     * Utility method.
+     * Runs a part of instructions of an expression.
+     *
+     * @param from  Index of the first instruction.
+     * @param to    Index of the instruction after the last one.
+     * @param stack Calculation stack.
+     * @param top   Index of the top of calculation stack before the part.
+     * @return Index of the top of calculation stack after the part.
+     */
+    private int execute(int from, int to, double[] values, double[] stack, int top) {
+        for (int i = from; i < to; i++) {
+            int instruction = instructions[i];
+            int opcode = Instructions.opcode(instruction);
+
+            if (opcode == Instructions.PUSH_CONSTANT) {
+                stack[++top] = constants[Instructions.operand(instruction)];
+            } else if (opcode == Instructions.LOAD_VARIABLE) {
+                stack[++top] = values[Instructions.operand(instruction)];
+            } else if (opcode == Instructions.CALL_FUNCTION) {
+                MathFunction function = functions[Instructions.operand(instruction)];
+                top -= function.getArity() - 1;
+                stack[top] = function.apply(stack, top);
+            } else if (opcode < Instructions.FIRST_CUSTOM_OPCODE) {
+                double secondOperand = stack[top--];
+                stack[top] = MathOperationProvider.calculate(opcode, stack[top], secondOperand);
+            } else if (operators[opcode].isPrefix()) {
+                stack[top] = operators[opcode].apply(stack[top]);
+            } else {
+                double secondOperand = stack[top--];
+                stack[top] = operators[opcode].apply(stack[top], secondOperand);
+            }
+        }
+        return top;
+    }
+
+    /**
+     * Task that combines a range of terms of a parallel node,
+     * splitting it in two while both halves are large enough.
+     */
+    private final class TermsTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int node;
+        private final int from;
+        private final int to;
+        private final double[] values;
+        private double result;
+
+        TermsTask(int node, int from, int to, double[] values) {
+            this.node = node;
+            this.from = from;
+            this.to = to;
+            this.values = values;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from >= 2) {
+                int split = split(termStarts, termEnds, from, to);
+                if (isWorthSplitting(termStarts, termEnds, from, split, to)) {
+                    TermsTask first = new TermsTask(node, from, split, values);
+                    TermsTask second = new TermsTask(node, split, to, values);
+                    first.fork();
+                    second.compute();
+                    first.join();
+                    result = products[node] ? first.result * second.result : first.result + second.result;
+                    return;
+                }
+            }
+            result = combine(node, from, to, values);
+        }
+    }
+
+    /**
+     * Finds sums and products in an RPN program in a single pass.
+     * Terms of each node are kept as a linked list,
+     * so that a nested node of the same kind is merged in constant time.
+     */
+    private static final class Flattener {
+
+        private final boolean[] products;
+        private final int[] nodeStarts;
+        private final int[] nodeEnds;
+        private final int[] firstTerms;
+        private final int[] lastTerms;
+        private final int[] termCounts;
+        private int nodesCount;
+
+        private final int[] termStarts;
+        private final int[] termEnds;
+        private final int[] nextTerms;
+        private final boolean[] negatedTerms;
+        private final boolean[] appliedTerms;
+        private int termsCount;
+
+        Flattener(int instructionsCount) {
+            products = new boolean[instructionsCount];
+            nodeStarts = new int[instructionsCount];
+            nodeEnds = new int[instructionsCount];
+            firstTerms = new int[instructionsCount];
+            lastTerms = new int[instructionsCount];
+            termCounts = new int[instructionsCount];
+            termStarts = new int[instructionsCount];
+            termEnds = new int[instructionsCount];
+            nextTerms = new int[instructionsCount];
+            negatedTerms = new boolean[instructionsCount];
+            appliedTerms = new boolean[instructionsCount];
+        }
+
+        /**
+         * Tracks start of each operand on calculation stack,
+         * along with the node that produces the operand.
+         */
+        void flatten(int[] instructions, MathFunction[] functions, Operator[] operators) {
+            int[] starts = new int[instructions.length];
+            int[] nodes = new int[instructions.length];
+            int top = -1;
+
+            for (int i = 0; i < instructions.length; i++) {
+                int opcode = Instructions.opcode(instructions[i]);
+                if (Instructions.isValue(opcode)) {
+                    starts[++top] = i;
+                    nodes[top] = -1;
+                    continue;
+                }
+                if (opcode != Instructions.ADD && opcode != Instructions.SUBTRACT
+                        && opcode != Instructions.MULTIPLY) {
+                    int arity = opcode == Instructions.CALL_FUNCTION
+                            ? functions[Instructions.operand(instructions[i])].getArity()
+                            : operators[opcode].getArity();
+                    top -= arity - 1;
+                    if (arity == 0) {
+                        starts[top] = i;
+                    }
+                    nodes[top] = -1;
+                    continue;
+                }
+
+                boolean product = opcode == Instructions.MULTIPLY;
+                int right = top--;
+                int node = nodes[top];
+                if (node < 0 || products[node] != product) {
+                    node = nodesCount++;
+                    products[node] = product;
+                    nodeStarts[node] = starts[top];
+                    firstTerms[node] = -1;
+                    addTerm(node, starts[top], starts[right], false, false);
+                    nodes[top] = node;
+                }
+                int rightNode = nodes[right];
+                if (opcode != Instructions.SUBTRACT && rightNode >= 0 && products[rightNode] == product) {
+                    nextTerms[lastTerms[node]] = firstTerms[rightNode];
+                    lastTerms[node] = lastTerms[rightNode];
+                    termCounts[node] += termCounts[rightNode];
+                    // terms now belong to the enclosing node only
+                    termCounts[rightNode] = 0;
+                } else {
+                    addTerm(node, starts[right], i, opcode == Instructions.SUBTRACT, true);
+                }
+                nodeEnds[node] = i + 1;
+            }
+        }
+
+        /**
+         * Selects nodes worth evaluating in parallel: those whose terms
+         * can be split into two large parts.
+         *
+         * @return Indices of selected nodes.
+         */
+        Integer[] selectParallelNodes() {
+            int[] starts = new int[termsCount];
+            int[] ends = new int[termsCount];
+            Integer[] selected = new Integer[nodesCount];
+            int selectedCount = 0;
+            for (int node = 0; node < nodesCount; node++) {
+                if (termCounts[node] < 2 || nodeEnds[node] - nodeStarts[node] < 2 * SEQUENTIAL_THRESHOLD) {
+                    continue;
+                }
+                int count = 0;
+                for (int term = firstTerms[node]; count < termCounts[node]; term = nextTerms[term]) {
+                    starts[count] = termStarts[term];
+                    ends[count++] = termEnds[term];
+                }
+                int split = split(starts, ends, 0, count);
+                if (isWorthSplitting(starts, ends, 0, split, count)) {
+                    selected[selectedCount++] = node;
+                }
+            }
+            return Arrays.copyOf(selected, selectedCount);
+        }
+
+        private void addTerm(int node, int start, int end, boolean negated, boolean applied) {
+            int term = termsCount++;
+            termStarts[term] = start;
+            termEnds[term] = end;
+            nextTerms[term] = -1;
+            negatedTerms[term] = negated;
+            appliedTerms[term] = applied;
+            if (firstTerms[node] < 0) {
+                firstTerms[node] = term;
+            } else {
+                nextTerms[lastTerms[node]] = term;
+            }
+            lastTerms[node] = term;
+            termCounts[node]++;
+        }
+    }
+}
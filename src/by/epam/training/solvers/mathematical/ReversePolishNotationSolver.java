@@ -1,260 +1,324 @@
 package by.epam.training.solvers.mathematical;
 
+import by.epam.training.solvers.exception.ExpressionSyntaxException;
 import by.epam.training.solvers.exception.SolverException;
-import by.epam.training.solvers.validation.MathematicalExpressionValidator;
+import by.epam.training.solvers.monitoring.SolverInstrumentation;
 import by.epam.training.solvers.validation.TaskValidator;
 
-import java.util.Collections;
-import java.util.LinkedList;
-import java.util.Queue;
-import java.util.Stack;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.math.BigDecimal;
+import java.math.MathContext;
 
 /**
  * Class that calculates mathematical expressions.
  * <p> Uses reverse polish notation (RPN)
  * to parse and calculate the expression.
+ * <p>Syntax of an expression is validated during parsing, so that
+ * the expression is scanned only once. Custom validators are
+ * applied before parsing.
+ * <p>The solver keeps no state between calls:
+ * intermediate data of a solution is confined to the calling thread.
+ * A single instance can be shared between any number of threads.
+ * <p>Besides built-in operators, the solver recognizes operators
+ * registered in its {@link OperatorRegistry} and calls of functions
+ * registered in its {@link FunctionRegistry}.
+ * <p>Optionally, the solver reports measurements of each solution
+ * to {@link SolverInstrumentation}.
+ * <p>Expressions that must not suffer from binary floating point errors
+ * are solved exactly with {@link #solveExact(String, MathContext)}.
+ * Huge expressions are solved on all processors
+ * with {@link #solveParallel(String)}. Sensitivity of a result
+ * to variables is found with {@link #solveWithGradient(String, double...)}.
  *
  * @author Baranovsky E. K.
- * @version 1.0
+ * @version 1.9
  */
 public class ReversePolishNotationSolver implements MathematicalExpressionSolver {
 
+    private final OperatorRegistry operators;
+    private final FunctionRegistry functions;
+    private final SolverInstrumentation instrumentation;
     /**
-     * A stack that is used for temporary storage of operators.
-     * Each entry is one operator.
+     * Whether measurements are taken.
+     * Checked once per call, so that disabled instrumentation costs nothing.
      */
-    private final Stack<String> operatorStack = new Stack<>();
+    private final boolean instrumented;
+
+    /**
+     * Creates solver of expressions with built-in operators
+     * and standard functions only, without instrumentation.
+     */
+    public ReversePolishNotationSolver() {
+        this(new OperatorRegistry(), SolverInstrumentation.DISABLED);
+    }
+
+    /**
+     * Creates solver of expressions with built-in operators
+     * and standard functions only, that reports measurements of solutions.
+     *
+     * @param instrumentation Receiver of measurements.
+     * @see by.epam.training.solvers.monitoring.SolverStatistics
+     */
+    public ReversePolishNotationSolver(SolverInstrumentation instrumentation) {
+        this(new OperatorRegistry(), instrumentation);
+    }
+
+    /**
+     * Creates solver of expressions with registered operators
+     * and standard functions, without instrumentation.
+     *
+     * @param operators Registry of operators. Operators registered
+     *                  later are recognized by later compilations.
+     */
+    public ReversePolishNotationSolver(OperatorRegistry operators) {
+        this(operators, SolverInstrumentation.DISABLED);
+    }
+
+    /**
+     * Creates solver of expressions with registered operators
+     * and standard functions, that reports measurements of solutions.
+     *
+     * @param operators       Registry of operators. Operators registered
+     *                        later are recognized by later compilations.
+     * @param instrumentation Receiver of measurements.
+     */
+    public ReversePolishNotationSolver(OperatorRegistry operators, SolverInstrumentation instrumentation) {
+        this(operators, new FunctionRegistry(), instrumentation);
+    }
+
+    /**
+     * Creates solver of expressions with registered operators and functions,
+     * without instrumentation.
+     *
+     * @param operators Registry of operators.
+     * @param functions Registry of functions. Functions registered
+     *                  later are recognized by later compilations.
+     */
+    public ReversePolishNotationSolver(OperatorRegistry operators, FunctionRegistry functions) {
+        this(operators, functions, SolverInstrumentation.DISABLED);
+    }
+
     /**
-     * A stack that is used to store the
-     * notation of an expression in RPN.
-     * Each entry is one component of expression.
+     * Creates solver of expressions with registered operators and functions,
+     * that reports measurements of solutions.
+     *
+     * @param operators       Registry of operators.
+     * @param functions       Registry of functions. Functions registered
+     *                        later are recognized by later compilations.
+     * @param instrumentation Receiver of measurements.
      */
-    private final Stack<String> outputStack = new Stack<>();
+    public ReversePolishNotationSolver(OperatorRegistry operators, FunctionRegistry functions,
+                                       SolverInstrumentation instrumentation) {
+        this.operators = operators;
+        this.functions = functions;
+        this.instrumentation = instrumentation;
+        this.instrumented = instrumentation.isEnabled();
+    }
 
     /**
      * Calculates the result of an expression.
-     * Uses MathematicalExpressionValidator to validate expression.
-     * if no validator was explicitly passed.
+     * Validates syntax of expression while parsing it,
+     * in a single pass.
      *
      * @param expression Expression to solve.
      * @return Result of solution as a double value.
+     * @throws ExpressionSyntaxException if expression is invalid.
      */
     @Override
     public double solve(String expression) {
-        return solve(expression, new MathematicalExpressionValidator());
+        if (instrumented) {
+            return solveInstrumented(expression, null);
+        }
+        return compile(expression).evaluate();
     }
 
     @Override
     public double solve(String expression, TaskValidator validator) {
-        if (!validator.validate(expression)) {
-            throw new SolverException("Invalid mathematical expression!");
+        if (instrumented) {
+            return solveInstrumented(expression, validator);
         }
-        operatorStack.clear();
-        outputStack.clear();
-        parseExpressionToReversePolishNotation(expression);
-        return solvePolishNotation();
+        return compile(expression, validator).evaluate();
     }
 
     /**
-     * Converts an expression into
-     * RPN form.
+     * Compiles an expression.
+     * Validates syntax of expression while parsing it,
+     * in a single pass.
      *
-     * @param expression The expression to convert.
+     * @param expression Expression to compile.
+     * @return Compiled expression.
+     * @throws ExpressionSyntaxException if expression is invalid.
      */
-    private void parseExpressionToReversePolishNotation(String expression) {
-        Queue<String> expressionElements = splitExpressionIntoComponents(expression);
-
-        while (!expressionElements.isEmpty()) {
-            String component = expressionElements.poll();
-
-            if (ExpressionComponentTypes.NUMERICAL_COMPONENT.matches(component)) {
-                outputStack.push(component);
-            }
-            if (ExpressionComponentTypes.OPERATOR.matches(component)) {
-                operateWithOperatorComponent(component);
-            }
-            if (ExpressionComponentTypes.BRACKET.matches(component)) {
-                operateWithBracketComponent(component);
-            }
+    @Override
+    public CompiledExpression compile(String expression) {
+        if (instrumented) {
+            return compileInstrumented(expression, null);
         }
-
-        while (!operatorStack.empty()) {
-            outputStack.push(operatorStack.pop());
+        checkNotNull(expression);
+        ExpressionCompiler compiler = ExpressionCompiler.acquire();
+        try {
+            return compiler.compile(expression, operators.table(), functions.functions());
+        } finally {
+            compiler.release();
         }
     }
 
     /**
-     * Utility method.
-     * Operates with a component that is operator.
-     * <p>This method implements a part of RPN algorithm.
-     * If operators' stack is empty, if its last element is
-     * a bracket, or if {@code operator} has higher priority than
-     * the last element in stack, {@code operator} is pushed into
-     * operators' stack.
-     * <p>If an operator has equal or lower priority than last operator
-     * in operators' stack, this last operator in stack is pushed
-     * into output stack. Then this check is repeated until
-     * its conditions are not met. After that,
-     * {@code operator} is pushed into output stack.
+     * Compiles an expression.
+     * Uses passed validator to check the expression before parsing.
+     * Syntax of expression is still validated while parsing.
      *
-     * @param operator The operator.
+     * @param expression Expression to compile.
+     * @param validator  The validator used to validate the expression.
+     * @return Compiled expression.
+     * @throws ExpressionSyntaxException if expression is invalid.
      */
-    private void operateWithOperatorComponent(String operator) {
-        while (comparePriorityWithLastInStack(operator) < 0) {
-            outputStack.push(operatorStack.pop());
+    @Override
+    public CompiledExpression compile(String expression, TaskValidator validator) {
+        if (instrumented) {
+            return compileInstrumented(expression, validator);
         }
-        operatorStack.push(operator);
+        if (!validator.validate(expression)) {
+            throw new ExpressionSyntaxException("Invalid mathematical expression!", -1);
+        }
+        return compile(expression);
     }
 
     /**
-     * Utility method.
-     * Operates with a component that is either open or close bracket.
-     * <p>This method implements a part of RPN algorithm.
-     * If {@code bracket} is an open bracket, it is pushed into operators' stack.
-     * If {@code bracket} is a close bracket,
-     * operators  are popped  from operators' stack and pushed into output stack one by one
-     * until an open bracket becomes the top element of operators' stack.
-     * This open bracket is then deleted.
+     * Calculates the result of a huge expression in parallel.
+     * Validates syntax of expression while parsing it,
+     * in a single pass.
      *
-     * @param bracket The bracket element.
+     * @param expression Expression to solve.
+     * @return Result of solution as a double value.
+     * @throws ExpressionSyntaxException if expression is invalid.
+     * @see ParallelExpression
      */
-    private void operateWithBracketComponent(String bracket) {
-        if (bracket.equals("(")) {
-            operatorStack.push(bracket);
-        } else {
-            String operator;
-            while (!((operator = operatorStack.pop()).equals("("))) {
-                outputStack.add(operator);
-            }
-        }
+    public double solveParallel(String expression) {
+        return compile(expression).parallel().evaluate();
     }
 
     /**
-     * Utility method.
-     * Compares priority level of a passed operator
-     * with the last operator in operators' stack.
+     * Calculates the result of an expression with variables
+     * together with its partial derivatives by all of them,
+     * in a single pass.
      *
-     * @param operator The operator to check.
-     * @return {@code 1} if the priority of the passed operator is higher,
-     * or if operators' stack is empty,
-     * or if the top element of operators' stack is a bracket.
-     * {@code -1} otherwise.
+     * @param expression Expression to solve.
+     * @param values     Values of variables in order of their first
+     *                   occurrence in the expression.
+     * @return The result and derivatives in order of variables.
+     * @throws ExpressionSyntaxException if expression is invalid.
+     * @throws SolverException           if division by zero occurs,
+     *                                   if count of values does not match
+     *                                   count of variables, or if expression
+     *                                   is not differentiable.
+     * @see CompiledExpression#gradient(double...)
      */
-    private int comparePriorityWithLastInStack(String operator) {
-
-        if (operatorStack.isEmpty()) {
-            return 1;
-        }
-
-        String topInStack = operatorStack.peek();
-
-        if (ExpressionComponentTypes.BRACKET.matches(topInStack)) {
-            return 1;
-        }
-
-        if (ExpressionComponentTypes.HIGH_PRIORITY_OPERATOR.matches(operator)
-                && ExpressionComponentTypes.LOW_PRIORITY_OPERATOR.matches(topInStack)) {
-            return 1;
-        } else return -1;
+    public Gradient solveWithGradient(String expression, double... values) {
+        return compile(expression).gradient(values);
     }
 
     /**
-     * Solves the expression that is already parsed into RPN.
+     * Calculates the exact result of an expression.
      *
-     * @return Result of solution as a double value.
+     * @param expression  Expression to solve.
+     * @param mathContext Precision and rounding of operations,
+     *                    {@link MathContext#UNLIMITED} for exact results only.
+     * @return Result of solution as a decimal value.
+     * @throws ExpressionSyntaxException if expression is invalid.
+     * @throws SolverException           if expression cannot be solved exactly.
+     * @see ExactExpression
      */
-    private double solvePolishNotation() {
-        Collections.reverse(outputStack);
-        Stack<String> calculationStack = new Stack<>();
-
-        while (!outputStack.isEmpty()) {
-            String expressionComponent = outputStack.pop();
-
-            if (ExpressionComponentTypes.NUMERICAL_COMPONENT.matches(expressionComponent)) {
-                calculationStack.push(expressionComponent);
-            }
-
-            if (ExpressionComponentTypes.OPERATOR.matches(expressionComponent)) {
-                String secondOperand = calculationStack.pop();
-                String firstOperand = calculationStack.pop();
-
-                MathOperationProvider.Operation operation = MathOperationProvider
-                        .getOperation(expressionComponent);
-                double operationResult = operation.calculate(Double.parseDouble(firstOperand),
-                        Double.parseDouble(secondOperand));
-
-                calculationStack.push(String.valueOf(operationResult));
-            }
-
-        }
+    public BigDecimal solveExact(String expression, MathContext mathContext) {
+        return compileExact(expression, mathContext).evaluate();
+    }
 
-        if (calculationStack.size() != 1) {
-            throw new SolverException("Solution error: end results stack contains " +
-                    calculationStack.size() + " values" +
-                    " after solving.");
+    /**
+     * Compiles an expression for exact evaluation.
+     * Validates syntax of expression while parsing it,
+     * in a single pass.
+     *
+     * @param expression  Expression to compile.
+     * @param mathContext Precision and rounding of operations,
+     *                    {@link MathContext#UNLIMITED} for exact results only.
+     * @return Exact expression.
+     * @throws ExpressionSyntaxException if expression is invalid.
+     * @throws SolverException           if expression contains operators
+     *                                   or functions without exact counterparts.
+     */
+    public ExactExpression compileExact(String expression, MathContext mathContext) {
+        checkNotNull(expression);
+        ExpressionCompiler compiler = ExpressionCompiler.acquire();
+        try {
+            return compiler.compileExact(expression, operators.table(), functions.functions(), mathContext);
+        } finally {
+            compiler.release();
         }
-
-        return Double.parseDouble(calculationStack.pop());
     }
 
     /**
-     * Splits teh initial expression into a queue of its components.
+     * Calculates the result of an expression
+     * measuring each phase of solution.
      *
-     * @param expression The initial expression.
-     * @return A queue of components of an expression:
-     * brackets, numerical elements and operators.
-     * @see ExpressionComponentTypes
+     * @param expression Expression to solve.
+     * @param validator  Custom validator, {@code null} if there is none.
+     * @return Result of solution as a double value.
      */
-    private Queue<String> splitExpressionIntoComponents(String expression) {
-        Queue<String> components = new LinkedList<>();
-        Matcher matcher = ExpressionComponentTypes.INITIAL_EXPRESSION_COMPONENT.pattern.matcher(expression);
-
-        while (matcher.find()) {
-            components.offer(expression.substring(matcher.start(), matcher.end()));
+    private double solveInstrumented(String expression, TaskValidator validator) {
+        CompiledExpression compiledExpression = compileInstrumented(expression, validator);
+        try {
+            long start = System.nanoTime();
+            double result = compiledExpression.evaluate();
+            instrumentation.recordPhase(SolverInstrumentation.Phase.EVALUATION, System.nanoTime() - start);
+            return result;
+        } catch (SolverException e) {
+            instrumentation.recordFailure(e);
+            throw e;
         }
-
-        return components;
     }
 
     /**
-     * Inner enumeration that contains regex patterns
-     * that are used to recognize certain components of an expression.
-     * They are used for:
-     * <ul>
-     *     <li>INITIAL_EXPRESSION_COMPONENT - to find components of initial expression:
-     *     natural numbers, operators and brackets.
-     *     <li>NUMERICAL_COMPONENT - to find numbers (negative and floating point included).
-     *     <li>OPERATOR - to find any operators.
-     *     <li>LOW_PRIORITY_OPERATOR - to find low priority operators (+ and - as per now).
-     *     <li>HIGH_PRIORITY_OPERATOR - to find high priority operators (* and / as per now).
-     *     <li>BRACKET - to find parentheses.
-     * </ul>
+     * Compiles an expression
+     * measuring each phase of compilation.
+     *
+     * @param expression Expression to compile.
+     * @param validator  Custom validator, {@code null} if there is none.
+     * @return Compiled expression.
      */
-    private enum ExpressionComponentTypes {
-        INITIAL_EXPRESSION_COMPONENT("([\\d]+)|([+\\-/*])|([)(])"),
-        NUMERICAL_COMPONENT("\\-?[\\d]+\\.?[\\d]*"),
-        OPERATOR("[+\\-/*]"),
-        LOW_PRIORITY_OPERATOR("[+\\-]"),
-        HIGH_PRIORITY_OPERATOR("[/*]"),
-        BRACKET("[)(]");
-
-        private final Pattern pattern;
-
-        ExpressionComponentTypes(String s) {
-            pattern = Pattern.compile(s);
+    private CompiledExpression compileInstrumented(String expression, TaskValidator validator) {
+        try {
+            if (validator != null) {
+                long start = System.nanoTime();
+                boolean valid = validator.validate(expression);
+                instrumentation.recordPhase(SolverInstrumentation.Phase.VALIDATION, System.nanoTime() - start);
+                if (!valid) {
+                    throw new ExpressionSyntaxException("Invalid mathematical expression!", -1);
+                }
+            }
+            checkNotNull(expression);
+
+            ExpressionCompiler compiler = ExpressionCompiler.acquire();
+            try {
+                long start = System.nanoTime();
+                compiler.tokenize(expression, operators.table(), functions.functions());
+                long tokenized = System.nanoTime();
+                instrumentation.recordPhase(SolverInstrumentation.Phase.TOKENIZATION, tokenized - start);
+                instrumentation.recordExpression(expression.length(), compiler.tokenCount());
+
+                CompiledExpression compiledExpression = compiler.compileTokens();
+                instrumentation.recordPhase(SolverInstrumentation.Phase.CONVERSION, System.nanoTime() - tokenized);
+                return compiledExpression;
+            } finally {
+                compiler.release();
+            }
+        } catch (SolverException e) {
+            instrumentation.recordFailure(e);
+            throw e;
         }
+    }
 
-        /**
-         * Checks if a string matches a pattern of this.
-         *
-         * @param string The string to check.
-         * @return {@code true} if string matches pattern,
-         * {@code false} otherwise.
-         */
-        boolean matches(String string) {
-            return this.pattern.matcher(string).matches();
+    private static void checkNotNull(String expression) {
+        if (expression == null) {
+            throw new ExpressionSyntaxException("Empty expression", -1);
         }
     }
 
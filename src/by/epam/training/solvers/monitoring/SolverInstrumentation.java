@@ -0,0 +1,88 @@
+package by.epam.training.solvers.monitoring;
+
+import by.epam.training.solvers.exception.SolverException;
+
+/**
+ * Receiver of measurements made by a solver during solution.
+ * <p>A solver checks {@link #isEnabled()} once, when it is created.
+ * If instrumentation is disabled, the solver takes no measurements at all,
+ * so {@link #DISABLED} instrumentation costs nothing.
+ * <p>Implementations must be safe for concurrent use,
+ * as a solver may be shared between threads.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.0
+ * @see SolverStatistics
+ */
+public interface SolverInstrumentation {
+
+    /**
+     * Instrumentation that receives nothing.
+     */
+    SolverInstrumentation DISABLED = new SolverInstrumentation() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void recordPhase(Phase phase, long nanos) {
+        }
+
+        @Override
+        public void recordExpression(int length, int tokenCount) {
+        }
+
+        @Override
+        public void recordFailure(SolverException exception) {
+        }
+    };
+
+    /**
+     * @return {@code true} if solver should take measurements,
+     * {@code false} otherwise.
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * Receives duration of a phase of solution.
+     *
+     * @param phase The phase.
+     * @param nanos Duration of the phase in nanoseconds.
+     */
+    void recordPhase(Phase phase, long nanos);
+
+    /**
+     * Receives size of an expression that is being compiled.
+     *
+     * @param length     Length of the expression in chars.
+     * @param tokenCount Count of tokens in the expression.
+     */
+    void recordExpression(int length, int tokenCount);
+
+    /**
+     * Receives an exception of a failed solution.
+     *
+     * @param exception The exception.
+     */
+    void recordFailure(SolverException exception);
+
+    /**
+     * Phases of solution of a mathematical expression.
+     * <ul>
+     *     <li>VALIDATION - check of an expression by a custom validator.
+     *     <li>TOKENIZATION - splitting of an expression into tokens.
+     *     <li>CONVERSION - conversion of tokens into compiled RPN form,
+     *     including syntax validation and optimization.
+     *     <li>EVALUATION - calculation of the result.
+     * </ul>
+     */
+    enum Phase {
+        VALIDATION,
+        TOKENIZATION,
+        CONVERSION,
+        EVALUATION
+    }
+}
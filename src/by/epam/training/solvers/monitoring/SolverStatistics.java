@@ -0,0 +1,211 @@
+package by.epam.training.solvers.monitoring;
+
+import by.epam.training.solvers.exception.ExpressionSyntaxException;
+import by.epam.training.solvers.exception.SolverException;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Instrumentation that collects statistics of solvers.
+ * <p>Collects latency histograms of each phase of solution,
+ * distributions of expression length and token count,
+ * and counts of failures by their cause.
+ * One instance may be shared by several solvers.
+ * <p>Statistics can be exported through JMX with {@link #register(String)}.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.0
+ */
+public class SolverStatistics implements SolverInstrumentation, SolverStatisticsMXBean {
+
+    private static final String OBJECT_NAME_PREFIX = "by.epam.training.solvers:type=SolverStatistics,name=";
+
+    private final Map<Phase, Histogram> latencies = new EnumMap<>(Phase.class);
+    private final Histogram expressionLengths = new Histogram();
+    private final Histogram tokenCounts = new Histogram();
+
+    private final LongAdder divisionByZeroCount = new LongAdder();
+    private final LongAdder invalidSyntaxCount = new LongAdder();
+    private final LongAdder otherFailureCount = new LongAdder();
+
+    public SolverStatistics() {
+        for (Phase phase : Phase.values()) {
+            latencies.put(phase, new Histogram());
+        }
+    }
+
+    @Override
+    public void recordPhase(Phase phase, long nanos) {
+        latencies.get(phase).record(nanos);
+    }
+
+    @Override
+    public void recordExpression(int length, int tokenCount) {
+        expressionLengths.record(length);
+        tokenCounts.record(tokenCount);
+    }
+
+    /**
+     * Counts a failure by its cause:
+     * division by zero if the exception is caused by {@code ArithmeticException},
+     * invalid syntax if it is {@code ExpressionSyntaxException},
+     * other cause otherwise.
+     *
+     * @param exception The exception.
+     */
+    @Override
+    public void recordFailure(SolverException exception) {
+        if (exception instanceof ExpressionSyntaxException) {
+            invalidSyntaxCount.increment();
+        } else if (exception.getCause() instanceof ArithmeticException) {
+            divisionByZeroCount.increment();
+        } else {
+            otherFailureCount.increment();
+        }
+    }
+
+    /**
+     * Retrieves latency histogram of a phase of solution.
+     *
+     * @param phase The phase.
+     * @return Histogram of latencies in nanoseconds.
+     */
+    public Histogram getLatencies(Phase phase) {
+        return latencies.get(phase);
+    }
+
+    /**
+     * @return Histogram of lengths of compiled expressions.
+     */
+    public Histogram getExpressionLengths() {
+        return expressionLengths;
+    }
+
+    /**
+     * @return Histogram of token counts of compiled expressions.
+     */
+    public Histogram getTokenCounts() {
+        return tokenCounts;
+    }
+
+    /**
+     * Registers the statistics in platform MBean server.
+     *
+     * @param name Name that distinguishes the statistics
+     *             from other registered ones.
+     * @return Name of the registered MBean.
+     * @throws SolverException if registration failed,
+     *                         for example if the name is already taken.
+     */
+    public ObjectName register(String name) {
+        try {
+            ObjectName objectName = new ObjectName(OBJECT_NAME_PREFIX + ObjectName.quote(name));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(this, objectName);
+            return objectName;
+        } catch (InstanceAlreadyExistsException e) {
+            throw new SolverException("Statistics named " + name + " are already registered.", e);
+        } catch (JMException e) {
+            throw new SolverException("Cannot register statistics named " + name + ".", e);
+        }
+    }
+
+    @Override
+    public long getCompileCount() {
+        return expressionLengths.getCount();
+    }
+
+    @Override
+    public long getEvaluationCount() {
+        return latencies.get(Phase.EVALUATION).getCount();
+    }
+
+    @Override
+    public long getFailureCount() {
+        return getDivisionByZeroCount() + getInvalidSyntaxCount() + getOtherFailureCount();
+    }
+
+    @Override
+    public long getDivisionByZeroCount() {
+        return divisionByZeroCount.sum();
+    }
+
+    @Override
+    public long getInvalidSyntaxCount() {
+        return invalidSyntaxCount.sum();
+    }
+
+    @Override
+    public long getOtherFailureCount() {
+        return otherFailureCount.sum();
+    }
+
+    @Override
+    public Map<String, Double> getMeanLatencies() {
+        return collectLatencies(Histogram::getMean);
+    }
+
+    @Override
+    public Map<String, Long> getMedianLatencies() {
+        return collectLatencies(histogram -> histogram.getPercentile(50));
+    }
+
+    @Override
+    public Map<String, Long> getP99Latencies() {
+        return collectLatencies(histogram -> histogram.getPercentile(99));
+    }
+
+    @Override
+    public Map<String, Long> getMaxLatencies() {
+        return collectLatencies(Histogram::getMax);
+    }
+
+    @Override
+    public long getMedianExpressionLength() {
+        return expressionLengths.getPercentile(50);
+    }
+
+    @Override
+    public long getP99ExpressionLength() {
+        return expressionLengths.getPercentile(99);
+    }
+
+    @Override
+    public long getMedianTokenCount() {
+        return tokenCounts.getPercentile(50);
+    }
+
+    @Override
+    public long getP99TokenCount() {
+        return tokenCounts.getPercentile(99);
+    }
+
+    @Override
+    public void reset() {
+        for (Histogram histogram : latencies.values()) {
+            histogram.reset();
+        }
+        expressionLengths.reset();
+        tokenCounts.reset();
+        divisionByZeroCount.reset();
+        invalidSyntaxCount.reset();
+        otherFailureCount.reset();
+    }
+
+    private <T> Map<String, T> collectLatencies(Function<Histogram, T> statistic) {
+        Map<String, T> result = new LinkedHashMap<>();
+        for (Map.Entry<Phase, Histogram> entry : latencies.entrySet()) {
+            result.put(entry.getKey().name(), statistic.apply(entry.getValue()));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,67 @@
+package by.epam.training.solvers.monitoring;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link SolverStatistics}.
+ * Exposes statistics of solvers through JMX.
+ * <p>Latencies are given in nanoseconds
+ * and mapped by name of a phase of solution.
+ *
+ * @author Baranovsky E. K.
+ * @version 1.0
+ * @see SolverInstrumentation.Phase
+ */
+public interface SolverStatisticsMXBean {
+
+    /**
+     * @return Count of compiled expressions.
+     */
+    long getCompileCount();
+
+    /**
+     * @return Count of evaluated expressions.
+     */
+    long getEvaluationCount();
+
+    /**
+     * @return Count of failed solutions.
+     */
+    long getFailureCount();
+
+    /**
+     * @return Count of solutions failed because of division by zero.
+     */
+    long getDivisionByZeroCount();
+
+    /**
+     * @return Count of solutions failed because of invalid syntax.
+     */
+    long getInvalidSyntaxCount();
+
+    /**
+     * @return Count of solutions failed for other reasons.
+     */
+    long getOtherFailureCount();
+
+    Map<String, Double> getMeanLatencies();
+
+    Map<String, Long> getMedianLatencies();
+
+    Map<String, Long> getP99Latencies();
+
+    Map<String, Long> getMaxLatencies();
+
+    long getMedianExpressionLength();
+
+    long getP99ExpressionLength();
+
+    long getMedianTokenCount();
+
+    long getP99TokenCount();
+
+    /**
+     * Removes all collected statistics.
+     */
+    void reset();
+}
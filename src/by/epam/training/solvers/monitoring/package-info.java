@@ -0,0 +1,5 @@
+/**
+ * Provides classes necessary to monitor solvers:
+ * instrumentation hooks, statistics and their export through JMX.
+ */
+package by.epam.training.solvers.monitoring;
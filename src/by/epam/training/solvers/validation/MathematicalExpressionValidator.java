@@ -6,47 +6,76 @@ import java.util.regex.Pattern;
  * Validator for basic mathematical expressions.
  * <p>This validator is suited
  * for use with mathematical expressions
- * that might contain brackets,
- * but lack any negative of floating point numbers,
- * as well as any operators beyond basic
+ * that might contain brackets, named variables, function calls
+ * and numerical literals, including negative, decimal
+ * and scientific ones such as {@code -1.5} or {@code 6.02e23},
+ * but lack any operators beyond basic
  * addition, subtraction, multiplication and division.
+ * Names of called functions are not checked.
  *
  * @author Baranovsky E. K.
- * @version 1.0
+ * @version 1.3
  */
 public class MathematicalExpressionValidator implements TaskValidator {
 
     /**
      * A regexp pattern that is used to find
      * any illegal symbols or combinations of symbols,
-     * such as letters or invalid operators.
+     * such as unknown symbols or invalid operators.
      *
      * <p>Currently, any of the following is forbidden within expression:
      * <ul>
-     *     <li>Usage of any symbols beside digits, basic operators and brackets (spaces are allowed).
-     *     <li>Usage of operators or open parenthesis right before a closed parenthesis.
-     *     <li>Usage of symbols that are not operators or open parentheses right before an open parenthesis.
-     *     <li>Usage of operators right after an open parenthesis.
-     *     <li>Usage of symbols that are not operators or close parentheses right after a close parenthesis.
-     *     <li>Ending the expression with an operator.
-     *     <li>Starting the expression with an operator.
-     *     <li>Usage of consecutive operators.
+     *     <li>Usage of any symbols beside digits, letters, underscores,
+     *     basic operators, brackets and commas (spaces are allowed).
+     *     <li>Names of variables that start with a digit.
+     *     <li>Usage of operators or commas right before a closed parenthesis.
+     *     <li>Usage of an open parenthesis right before a closed parenthesis,
+     *     unless they follow a name of a function.
+     *     <li>Usage of symbols that are not operators, commas, open parentheses
+     *     or names of functions right before an open parenthesis.
+     *     <li>Usage of operators or commas right after an open parenthesis.
+     *     <li>Usage of symbols that are not operators, commas or close parentheses
+     *     right after a close parenthesis.
+     *     <li>Ending the expression with an operator or a comma.
+     *     <li>Starting the expression with an operator or a comma.
+     *     <li>Usage of consecutive operators or commas.
      *     <li>Division by zero (in an initial expression).
      * </ul>
      */
     private static final Pattern illegalSymbolsPattern;
+    /**
+     * A regexp pattern that is used to find
+     * numbers or variables separated only by spaces.
+     */
+    private static final Pattern separatedOperandsPattern = Pattern.compile("\\w\\s+\\w");
+    /**
+     * A regexp pattern that is used to find
+     * minus signs of negative numerical literals,
+     * that is minus signs right before a number where an operand is expected.
+     */
+    private static final Pattern literalSignPattern = Pattern.compile("(^|[+\\-/*(,])-(?=\\.?\\d)");
+    /**
+     * A regexp pattern that is used to find
+     * numerical literals with optional fractional part and exponent.
+     * The first group is the significand.
+     */
+    private static final Pattern numericalLiteralPattern =
+            Pattern.compile("(?<![\\w.])(\\d+(?:\\.\\d+)?|\\.\\d+)(?:[eE][+\\-]?\\d+)?(?![\\w.])");
 
     static {
         illegalSymbolsPattern = Pattern
-                .compile("([\\D&&[^+\\-/*)(]])" +
-                        "|([+\\-/*(]\\))" +
-                        "|([^+\\-/*(]\\()" +
-                        "|(\\([+\\-/*])" +
-                        "|(\\)[^+\\-/*)])" +
-                        "|([+\\-/*(]$)" +
-                        "|(^[+\\-/*)])" +
-                        "|([+\\-/*]{2,})" +
-                        "|((/0[+\\-/*)]+)|(/0$))");
+                .compile("([^\\w+\\-/*)(,])" +
+                        "|((?<!\\w)\\d+[a-zA-Z_])" +
+                        "|([+\\-/*,]\\))" +
+                        "|((?<!\\w)\\(\\))" +
+                        "|([^+\\-/*(,\\w]\\()" +
+                        "|(\\b\\d+\\()" +
+                        "|(\\([+\\-/*,])" +
+                        "|(\\)[^+\\-/*),])" +
+                        "|([+\\-/*(,]$)" +
+                        "|(^[+\\-/*),])" +
+                        "|([+\\-/*,]{2,})" +
+                        "|((/0[+\\-/*),]+)|(/0$))");
     }
 
     @Override
@@ -61,7 +90,8 @@ public class MathematicalExpressionValidator implements TaskValidator {
      *
      * @param expression The expression to check.
      * @return {@code false} if expression is null or is blank,
-     * or if it contains illegal symbol combinations.
+     * or if it contains illegal symbol combinations,
+     * or if it contains operands separated only by spaces.
      * {@code true} otherwise.
      */
     private static boolean checkStringValidity(String expression) {
@@ -69,15 +99,36 @@ public class MathematicalExpressionValidator implements TaskValidator {
             return false;
         }
 
+        if (separatedOperandsPattern.matcher(expression).find()) {
+            return false;
+        }
+
         String collapsedExpression = expression.replace("\s", "");
+        String normalizedExpression = normalizeLiterals(collapsedExpression);
+
+        return !illegalSymbolsPattern.matcher(normalizedExpression).find();
+    }
 
-        return !illegalSymbolsPattern.matcher(collapsedExpression).find();
+    /**
+     * Utility method.
+     * Replaces each numerical literal with {@code 0} if it equals zero
+     * or with {@code 1} otherwise, dropping signs of negative literals,
+     * so that only natural numbers are left to check.
+     *
+     * @param expression The expression without spaces.
+     * @return The expression with normalized literals.
+     */
+    private static String normalizeLiterals(String expression) {
+        String unsignedExpression = literalSignPattern.matcher(expression).replaceAll("$1");
+        return numericalLiteralPattern.matcher(unsignedExpression)
+                .replaceAll(literal -> literal.group(1).matches("[0.]+") ? "0" : "1");
     }
 
     /**
      * Checks if an expression contains equal number
      * of open and closed brackets, and if
      * it does not contain any unclosed bracket pairs.
+     * Also checks that commas occur only inside brackets.
      *
      * @param expression The expression to check.
      * @return {@code true} if bracket syntax of expression is valid,
@@ -94,7 +145,7 @@ public class MathematicalExpressionValidator implements TaskValidator {
                 bracketsCounter--;
             }
 
-            if (bracketsCounter < 0) {
+            if (bracketsCounter < 0 || (bracketsCounter == 0 && expression.charAt(i) == ',')) {
                 return false;
             }
         }
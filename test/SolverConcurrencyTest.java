@@ -0,0 +1,215 @@
+import by.epam.training.solvers.AsyncSolver;
+import by.epam.training.solvers.Solver;
+import by.epam.training.solvers.exception.SolverException;
+import by.epam.training.solvers.mathematical.CachingExpressionSolver;
+import by.epam.training.solvers.mathematical.ReversePolishNotationSolver;
+import by.epam.training.solvers.validation.TaskValidator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SolverConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int SOLUTIONS_PER_THREAD = 20_000;
+
+    @Test
+    public void rpnSolver_sharedInstanceStressTest() throws Exception {
+        Solver solver = new ReversePolishNotationSolver();
+
+        int failures = solveConcurrently(solver);
+
+        Assert.assertEquals(0, failures);
+
+    }
+
+    @Test
+    public void cachingSolver_sharedInstanceStressTest() throws Exception {
+        Solver solver = new CachingExpressionSolver(new ReversePolishNotationSolver(), 64);
+
+        int failures = solveConcurrently(solver);
+
+        Assert.assertEquals(0, failures);
+
+    }
+
+    @Test
+    public void asyncSolver_failedTaskCompletesExceptionallyTest() {
+        try (AsyncSolver solver = new AsyncSolver(new ReversePolishNotationSolver())) {
+            CompletableFuture<Double> solved = solver.solveAsync("2+2*2");
+            CompletableFuture<Double> failed = solver.solveAsync("2+*2");
+
+            Assert.assertEquals(6, solved.join(), 0);
+            try {
+                failed.join();
+                Assert.fail();
+            } catch (CompletionException e) {
+                Assert.assertTrue(e.getCause() instanceof SolverException);
+            }
+        }
+
+    }
+
+    @Test(timeout = 10_000)
+    public void asyncSolver_errorOfTaskReleasesPermitTest() {
+        Solver failingSolver = new Solver() {
+            @Override
+            public double solve(String task) {
+                throw new StackOverflowError(task);
+            }
+
+            @Override
+            public double solve(String task, TaskValidator validator) {
+                return solve(task);
+            }
+        };
+        Executor swallowingExecutor = command -> {
+            try {
+                command.run();
+            } catch (StackOverflowError ignored) {
+            }
+        };
+
+        try (AsyncSolver solver = new AsyncSolver(failingSolver, swallowingExecutor, 1)) {
+            for (int i = 0; i < 3; i++) {
+                CompletableFuture<Double> failed = solver.solveAsync("2+2");
+
+                try {
+                    failed.join();
+                    Assert.fail();
+                } catch (CompletionException e) {
+                    Assert.assertTrue(e.getCause() instanceof StackOverflowError);
+                }
+            }
+        }
+
+    }
+
+    @Test
+    public void asyncSolver_publisherBoundsTasksInFlightTest() throws Exception {
+        int maxInFlight = 4;
+        int tasksCount = 1000;
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxObservedInFlight = new AtomicInteger();
+        Solver delegate = new ReversePolishNotationSolver();
+        Solver countingSolver = new Solver() {
+            @Override
+            public double solve(String task) {
+                maxObservedInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    return delegate.solve(task);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }
+
+            @Override
+            public double solve(String task, TaskValidator validator) {
+                return delegate.solve(task, validator);
+            }
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Double> results = new ArrayList<>();
+        CompletableFuture<Void> completion = new CompletableFuture<>();
+
+        try (SubmissionPublisher<String> tasks = new SubmissionPublisher<>()) {
+            new AsyncSolver(countingSolver, executor, maxInFlight).solveAll(tasks).subscribe(
+                    new Flow.Subscriber<Double>() {
+                        private Flow.Subscription subscription;
+
+                        @Override
+                        public void onSubscribe(Flow.Subscription subscription) {
+                            this.subscription = subscription;
+                            subscription.request(10);
+                        }
+
+                        @Override
+                        public void onNext(Double result) {
+                            results.add(result);
+                            subscription.request(1);
+                        }
+
+                        @Override
+                        public void onError(Throwable throwable) {
+                            completion.completeExceptionally(throwable);
+                        }
+
+                        @Override
+                        public void onComplete() {
+                            completion.complete(null);
+                        }
+                    });
+            for (int i = 0; i < tasksCount; i++) {
+                tasks.submit(i + "*2");
+            }
+        }
+        completion.get(30, TimeUnit.SECONDS);
+        executor.shutdownNow();
+
+        Assert.assertEquals(tasksCount, results.size());
+        for (int i = 0; i < tasksCount; i++) {
+            Assert.assertEquals(i * 2, results.get(i), 0);
+        }
+        Assert.assertTrue(maxObservedInFlight.get() <= maxInFlight);
+
+    }
+
+    /**
+     * Solves random expressions of form {@code a+b*(c-d)/e}
+     * from many threads with a single solver
+     * and compares results with directly calculated ones.
+     *
+     * @return Count of wrong results.
+     */
+    private static int solveConcurrently(Solver solver) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                long seed = thread;
+                Callable<Integer> task = () -> {
+                    Random random = new Random(seed);
+                    int failures = 0;
+                    for (int i = 0; i < SOLUTIONS_PER_THREAD; i++) {
+                        int a = random.nextInt(100);
+                        int b = random.nextInt(100);
+                        int c = random.nextInt(100);
+                        int d = random.nextInt(100);
+                        int e = random.nextInt(100) + 1;
+                        String expression = a + "+" + b + "*(" + c + "-" + d + ")/" + e;
+                        double expected = a + (double) b * (c - d) / e;
+
+                        if (Math.abs(solver.solve(expression) - expected) > 1e-9) {
+                            failures++;
+                        }
+                    }
+                    return failures;
+                };
+                futures.add(executor.submit(task));
+            }
+
+            int failures = 0;
+            for (Future<Integer> future : futures) {
+                failures += future.get();
+            }
+            return failures;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+import by.epam.training.solvers.exception.SolverException;
+import by.epam.training.solvers.mathematical.ReversePolishNotationSolver;
+import by.epam.training.solvers.monitoring.Histogram;
+import by.epam.training.solvers.monitoring.SolverInstrumentation;
+import by.epam.training.solvers.monitoring.SolverStatistics;
+import by.epam.training.solvers.validation.MathematicalExpressionValidator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+public class SolverStatisticsTest {
+
+    @Test
+    public void solverStatistics_solutions_phasesRecordedTest() {
+        SolverStatistics statistics = new SolverStatistics();
+        ReversePolishNotationSolver solver = new ReversePolishNotationSolver(statistics);
+
+        solver.solve("2+2*2");
+        solver.solve("(1+2)*3", new MathematicalExpressionValidator());
+        solver.compile("4/2");
+
+        Assert.assertEquals(3, statistics.getCompileCount());
+        Assert.assertEquals(2, statistics.getEvaluationCount());
+        Assert.assertEquals(1, statistics.getLatencies(SolverInstrumentation.Phase.VALIDATION).getCount());
+        Assert.assertEquals(3, statistics.getLatencies(SolverInstrumentation.Phase.TOKENIZATION).getCount());
+        Assert.assertEquals(3, statistics.getLatencies(SolverInstrumentation.Phase.CONVERSION).getCount());
+        Assert.assertEquals(7, statistics.getExpressionLengths().getPercentile(100));
+        Assert.assertEquals(7, statistics.getTokenCounts().getPercentile(100));
+
+    }
+
+    @Test
+    public void solverStatistics_failures_classifiedTest() {
+        SolverStatistics statistics = new SolverStatistics();
+        ReversePolishNotationSolver solver = new ReversePolishNotationSolver(statistics);
+
+        String[] expressions = {"2++2", "(1+2", "5/(3-3)", "5/0"};
+        for (String expression : expressions) {
+            try {
+                solver.solve(expression);
+                Assert.fail(expression);
+            } catch (SolverException ignored) {
+            }
+        }
+
+        Assert.assertEquals(3, statistics.getInvalidSyntaxCount());
+        Assert.assertEquals(1, statistics.getDivisionByZeroCount());
+        Assert.assertEquals(0, statistics.getOtherFailureCount());
+        Assert.assertEquals(4, statistics.getFailureCount());
+
+    }
+
+    @Test
+    public void histogram_values_percentilesWithinBucketErrorTest() {
+        Histogram histogram = new Histogram();
+
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        Assert.assertEquals(1000, histogram.getCount());
+        Assert.assertEquals(1_000_000, histogram.getMax());
+        Assert.assertEquals(500_500.0, histogram.getMean(), 0.001);
+        Assert.assertEquals(500_000, histogram.getPercentile(50), 500_000 * 0.07);
+        Assert.assertEquals(990_000, histogram.getPercentile(99), 990_000 * 0.07);
+
+    }
+
+    @Test
+    public void solverStatistics_register_visibleInMBeanServerTest() throws Exception {
+        SolverStatistics statistics = new SolverStatistics();
+        new ReversePolishNotationSolver(statistics).solve("1+1");
+
+        ObjectName name = statistics.register("statisticsTest");
+        try {
+            Object compileCount = ManagementFactory.getPlatformMBeanServer().getAttribute(name, "CompileCount");
+
+            Assert.assertEquals(1L, compileCount);
+        } finally {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        }
+
+    }
+
+}
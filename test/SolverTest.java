@@ -1,10 +1,42 @@
+import by.epam.training.solvers.BatchSolution;
 import by.epam.training.solvers.Solver;
+import by.epam.training.solvers.exception.ExpressionSyntaxException;
 import by.epam.training.solvers.exception.SolverException;
+import by.epam.training.solvers.mathematical.CachingExpressionSolver;
+import by.epam.training.solvers.mathematical.CompiledExpression;
+import by.epam.training.solvers.mathematical.CompiledExpressionSet;
+import by.epam.training.solvers.mathematical.ExactExpression;
+import by.epam.training.solvers.mathematical.ExpressionArchive;
+import by.epam.training.solvers.mathematical.ExpressionFileSolver;
+import by.epam.training.solvers.mathematical.FunctionRegistry;
+import by.epam.training.solvers.mathematical.Gradient;
+import by.epam.training.solvers.mathematical.IncrementalEvaluator;
+import by.epam.training.solvers.mathematical.MathFunction;
+import by.epam.training.solvers.mathematical.MathematicalExpressionSolver;
+import by.epam.training.solvers.mathematical.OffHeapExpressionStore;
+import by.epam.training.solvers.mathematical.Operator;
+import by.epam.training.solvers.mathematical.OperatorRegistry;
+import by.epam.training.solvers.mathematical.ParallelExpression;
 import by.epam.training.solvers.mathematical.ReversePolishNotationSolver;
 import by.epam.training.solvers.validation.TaskValidator;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
 public class SolverTest {
 
     @Test
@@ -18,6 +50,24 @@ public class SolverTest {
 
     }
 
+    @Test
+    public void rpnSolver_deeplyNestedExpressionTest() {
+        Solver solver = new ReversePolishNotationSolver();
+        StringBuilder expression = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            expression.append("(1+");
+        }
+        expression.append('1');
+        for (int i = 0; i < 100; i++) {
+            expression.append(')');
+        }
+
+        double result = solver.solve(expression.toString());
+
+        Assert.assertEquals(101, result, 0.001);
+
+    }
+
     @Test(expected = SolverException.class)
     public void rpnSolver_divisionByZeroTest() {
         Solver solver = new ReversePolishNotationSolver();
@@ -36,6 +86,835 @@ public class SolverTest {
 
     }
 
+    @Test
+    public void rpnSolver_syntaxErrorPositionTest() {
+        Solver solver = new ReversePolishNotationSolver();
+        String expression = "45-2+(9/*8)";
+
+        try {
+            solver.solve(expression);
+            Assert.fail();
+        } catch (ExpressionSyntaxException e) {
+            Assert.assertEquals(8, e.getPosition());
+        }
+
+    }
+
+    @Test
+    public void rpnSolver_invalidExpressionsRejectedTest() {
+        Solver solver = new ReversePolishNotationSolver();
+        String[] expressions = {"++45-2+(9/8)", "", "    ", "(5+)6)(", "(2/0)+5", "2x+5", "12 34+x", "5+", "()", "2(3)",
+                ")", ")1"};
+
+        for (String expression : expressions) {
+            try {
+                solver.solve(expression);
+                Assert.fail(expression);
+            } catch (ExpressionSyntaxException ignored) {
+            }
+        }
+
+    }
+
+    @Test
+    public void instructions_operandOutOfRangeRejectedTest() throws ReflectiveOperationException {
+        // expressions large enough to overflow operands take gigabytes to compile
+        Method encode = Class.forName("by.epam.training.solvers.mathematical.Instructions")
+                .getDeclaredMethod("encode", int.class, int.class);
+        encode.setAccessible(true);
+
+        int largestInstruction = (int) encode.invoke(null, 0, (1 << 24) - 1);
+
+        Assert.assertEquals(0xFFFFFF00, largestInstruction);
+        try {
+            encode.invoke(null, 0, 1 << 24);
+            Assert.fail();
+        } catch (InvocationTargetException e) {
+            Assert.assertTrue(e.getCause() instanceof SolverException);
+        }
+
+    }
+
+    @Test
+    public void rpnSolver_compiledExpressionEvaluatedRepeatedlyTest() {
+        MathematicalExpressionSolver solver = new ReversePolishNotationSolver();
+        String expression = "(51/3)+5/2-56+(2-4)";
+
+        CompiledExpression compiledExpression = solver.compile(expression);
+
+        Assert.assertEquals(-38.5, compiledExpression.evaluate(), 0.001);
+        Assert.assertEquals(-38.5, compiledExpression.evaluate(), 0.001);
+
+    }
+
+    @Test(expected = SolverException.class)
+    public void rpnSolver_compileInvalidExpressionTest() {
+        MathematicalExpressionSolver solver = new ReversePolishNotationSolver();
+        String expression = "(1/lorem ipsum)";
+
+        solver.compile(expression);
+
+    }
+
+    @Test
+    public void rpnSolver_compiledExpressionWithVariablesTest() {
+        MathematicalExpressionSolver solver = new ReversePolishNotationSolver();
+        CompiledExpression compiledExpression = solver.compile("(price - discount) * count + price");
+
+        double result = compiledExpression.evaluate(10, 2, 3);
+
+        Assert.assertEquals(Arrays.asList("price", "discount", "count"), compiledExpression.getVariables());
+        Assert.assertEquals(34, result, 0.001);
+
+    }
+
+    @Test(expected = SolverException.class)
+    public void rpnSolver_unboundVariableTest() {
+        Solver solver = new ReversePolishNotationSolver();
+        String expression = "2*x+1";
+
+        solver.solve(expression);
+
+    }
+
+    @Test
+    public void rpnSolver_columnarEvaluationTest() {
+        MathematicalExpressionSolver solver = new ReversePolishNotationSolver();
+        CompiledExpression compiledExpression = solver.compile("a*b+a/2");
+        int rows = 1000;
+        double[] a = new double[rows];
+        double[] b = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            a[i] = i;
+            b[i] = rows - i;
+        }
+        double[] results = new double[rows];
+
+        compiledExpression.evaluate(new double[][]{a, b}, results);
+
+        for (int i = 0; i < rows; i++) {
+            Assert.assertEquals(a[i] * b[i] + a[i] / 2, results[i], 0.001);
+        }
+
+    }
+
+    @Test
+    public void rpnSolver_constantSubexpressionsFoldedTest() {
+        MathematicalExpressionSolver solver = new ReversePolishNotationSolver();
+
+        CompiledExpression compiledExpression = solver.compile("x*(4-3)+(2*3+0)*y-0");
+
+        Assert.assertEquals(15, compiledExpression.getSourceInstructionCount());
+        Assert.assertEquals(5, compiledExpression.getInstructionCount());
+        Assert.assertEquals(14, compiledExpression.evaluate(2, 2), 0.001);
+
+    }
+
+    @Test(expected = SolverException.class)
+    public void rpnSolver_divisionByFoldedZeroAtCompileTimeTest() {
+        MathematicalExpressionSolver solver = new ReversePolishNotationSolver();
+
+        solver.compile("x/(5-5)");
+
+    }
+
+    @Test
+    public void rpnSolver_compiledSetSharesSubexpressionsTest() {
+        MathematicalExpressionSolver solver = new ReversePolishNotationSolver();
+        List<String> expressions = Arrays.asList("(rate*time+fee)*2", "(time*rate+fee)/4", "x-(rate*time+fee)");
+
+        CompiledExpressionSet compiledSet = solver.compileAll(expressions);
+        double[] results = compiledSet.evaluate(3, 4, 2, 100);
+
+        Assert.assertEquals(Arrays.asList("rate", "time", "fee", "x"), compiledSet.getVariables());
+        Assert.assertEquals(21, compiledSet.getSourceInstructionCount());
+        Assert.assertEquals(11, compiledSet.getNodeCount());
+        Assert.assertArrayEquals(new double[]{28, 3.5, 86}, results, 0.001);
+
+    }
+
+    @Test
+    public void rpnSolver_generatedBytecodeTest() {
+        MathematicalExpressionSolver solver = new ReversePolishNotationSolver();
+        CompiledExpression interpreted = solver.compile("(x+2)*y/3-1+(51/3)");
+
+        CompiledExpression generated = interpreted.withGeneratedBytecode();
+
+        Assert.assertTrue(generated.isBytecodeGenerated());
+        Assert.assertEquals(interpreted.evaluate(1, 2), generated.evaluate(1, 2), 0);
+
+    }
+
+    @Test(expected = SolverException.class)
+    public void rpnSolver_generatedBytecodeDivisionByZeroTest() {
+        MathematicalExpressionSolver solver = new ReversePolishNotationSolver();
+        CompiledExpression generated = solver.compile("x/y").withGeneratedBytecode();
+
+        generated.evaluate(1, 0);
+
+    }
+
+    @Test
+    public void rpnSolver_numericalLiteralsTest() {
+        Solver solver = new ReversePolishNotationSolver();
+
+        Assert.assertEquals(2, solver.solve("1.5 + .5"), 0);
+        Assert.assertEquals(6.02e23, solver.solve("6.02e23"), 0);
+        Assert.assertEquals(2e-9, solver.solve("1E-9*2"), 0);
+        Assert.assertEquals(-3, solver.solve("-1.5*2"), 0);
+        Assert.assertEquals(-6, solver.solve("2*-3"), 0);
+        Assert.assertEquals(5, solver.solve("2--3"), 0);
+        Assert.assertEquals(-0.5, solver.solve("(-.5)"), 0);
+        Assert.assertEquals(Math.PI, solver.solve("3.14159265358979323846264338327950288"), 0);
+        Assert.assertEquals(1e22, solver.solve("10000000000000000000000.000000000000001"), 0);
+        Assert.assertEquals(Double.POSITIVE_INFINITY, solver.solve("1e400"), 0);
+        Assert.assertEquals(Double.MIN_VALUE, solver.solve("4.9e-324"), 0);
+
+    }
+
+    @Test
+    public void rpnSolver_signOfLiteralBeforeTighterOperatorTest() {
+        Solver negating = new ReversePolishNotationSolver(
+                new OperatorRegistry().register(Operator.POWER).register(Operator.NEGATION));
+        Solver powering = new ReversePolishNotationSolver(new OperatorRegistry().register(Operator.POWER));
+
+        Assert.assertEquals(-4, negating.solve("-2^2"), 0);
+        Assert.assertEquals(-12, negating.solve("3*-2^2"), 0);
+        Assert.assertEquals(-6, powering.solve("-2*3"), 0);
+        Assert.assertEquals(0.25, powering.solve("2^-2"), 0);
+        Assert.assertThrows(ExpressionSyntaxException.class, () -> powering.solve("-2^2"));
+        Assert.assertThrows(ExpressionSyntaxException.class, () -> powering.solve("3*-2 ^ 2"));
+
+    }
+
+    @Test
+    public void rpnSolver_numericalLiteralsCorrectlyRoundedTest() {
+        Solver solver = new ReversePolishNotationSolver();
+        Random random = new Random(17);
+
+        for (int i = 0; i < 10_000; i++) {
+            String literal = random.nextInt(1_000_000) + "." + Math.abs(random.nextLong())
+                    + "e" + (random.nextInt(600) - 300);
+
+            Assert.assertEquals(literal, Double.parseDouble(literal), solver.solve(literal), 0);
+        }
+
+    }
+
+    @Test
+    public void rpnSolver_invalidNumericalLiteralsRejectedTest() {
+        Solver solver = new ReversePolishNotationSolver();
+        String[] expressions = {"1.", "1.2.3", "2e", "2e+", "- 1", "1/0.0", "1/-0"};
+
+        for (String expression : expressions) {
+            try {
+                solver.solve(expression);
+                Assert.fail(expression);
+            } catch (ExpressionSyntaxException ignored) {
+            }
+        }
+
+    }
+
+    @Test
+    public void rpnSolver_registeredOperatorsTest() {
+        OperatorRegistry operators = new OperatorRegistry()
+                .register(Operator.POWER)
+                .register(Operator.REMAINDER)
+                .register(Operator.MINIMUM)
+                .register(Operator.MAXIMUM)
+                .register(Operator.NEGATION);
+        Solver solver = new ReversePolishNotationSolver(operators);
+
+        Assert.assertEquals(512, solver.solve("2^3^2"), 0);
+        Assert.assertEquals(-4, solver.solve("-2^2"), 0);
+        Assert.assertEquals(0.125, solver.solve("2^-3"), 0);
+        Assert.assertEquals(-6, solver.solve("2*-3"), 0);
+        Assert.assertEquals(2, solver.solve("--2"), 0);
+        Assert.assertEquals(1, solver.solve("7%3*1"), 0);
+        Assert.assertEquals(3, solver.solve("1+2 <? 4 >? 3"), 0);
+
+    }
+
+    @Test
+    public void rpnSolver_customOperatorWithVariablesTest() {
+        OperatorRegistry operators = new OperatorRegistry()
+                .register(Operator.binary("**", 4, Operator.Associativity.RIGHT, Math::pow))
+                .register(Operator.NEGATION);
+        MathematicalExpressionSolver solver = new ReversePolishNotationSolver(operators);
+        CompiledExpression expression = solver.compile("-x**2*3");
+        double[][] columns = {{1, 2, 3}};
+        double[] results = new double[3];
+
+        expression.evaluate(columns, results);
+
+        Assert.assertFalse(expression.withGeneratedBytecode().isBytecodeGenerated());
+        Assert.assertEquals(-12, expression.evaluate(2), 0);
+        Assert.assertArrayEquals(new double[]{-3, -12, -27}, results, 0);
+        Assert.assertEquals(2, solver.compileAll(Arrays.asList("-x", "x**2-x")).evaluate(-1)[1], 0);
+
+    }
+
+    @Test
+    public void rpnSolver_unregisteredOperatorRejectedTest() {
+        Solver solver = new ReversePolishNotationSolver();
+        OperatorRegistry operators = new OperatorRegistry();
+
+        try {
+            solver.solve("2^2");
+            Assert.fail();
+        } catch (ExpressionSyntaxException e) {
+            Assert.assertEquals(1, e.getPosition());
+        }
+        try {
+            solver.solve("-x");
+            Assert.fail();
+        } catch (ExpressionSyntaxException e) {
+            Assert.assertEquals(0, e.getPosition());
+        }
+        Assert.assertThrows(IllegalArgumentException.class, () -> operators.register(Operator.binary("+", 1,
+                Operator.Associativity.LEFT, Double::sum)));
+        Assert.assertThrows(IllegalArgumentException.class, () -> Operator.prefix("(", 1, x -> x));
+
+    }
+
+    @Test
+    public void rpnSolver_standardFunctionsTest() {
+        MathematicalExpressionSolver solver = new ReversePolishNotationSolver();
+        CompiledExpression expression = solver.compile("sqrt(x*x + y*y) + abs(x - pow(y, 2)) - log(exp(1))");
+
+        double interpreted = expression.evaluate(3, 4);
+        double generated = expression.withGeneratedBytecode().evaluate(3, 4);
+
+        Assert.assertEquals(17, interpreted, 1e-9);
+        Assert.assertEquals(interpreted, generated, 0);
+        Assert.assertTrue(expression.withGeneratedBytecode().isBytecodeGenerated());
+        Assert.assertEquals(1, solver.compile("pow(2, 3) - sqrt(49)").getInstructionCount());
+
+    }
+
+    @Test
+    public void rpnSolver_registeredFunctionsTest() {
+        FunctionRegistry functions = new FunctionRegistry()
+                .register(MathFunction.of("answer", 0, (arguments, offset) -> 42))
+                .register(MathFunction.unary("twice", x -> 2 * x))
+                .register(MathFunction.of("sum3", 3,
+                        (arguments, offset) -> arguments[offset] + arguments[offset + 1] + arguments[offset + 2]));
+        MathematicalExpressionSolver solver = new ReversePolishNotationSolver(new OperatorRegistry(), functions);
+        CompiledExpression expression = solver.compile("sum3(x, twice(x + 1), answer()) * 2");
+        double[][] columns = {{0, 1, 2}};
+        double[] results = new double[3];
+
+        expression.evaluate(columns, results);
+
+        Assert.assertEquals(94, expression.evaluate(1), 0);
+        Assert.assertArrayEquals(new double[]{88, 94, 100}, results, 0);
+        Assert.assertFalse(expression.withGeneratedBytecode().isBytecodeGenerated());
+        Assert.assertArrayEquals(new double[]{4, 94}, solver.compileAll(
+                Arrays.asList("twice(x + 1)", "sum3(x, twice(x + 1), answer()) * 2")).evaluate(1), 0);
+
+    }
+
+    @Test
+    public void rpnSolver_invalidFunctionCallsRejectedTest() {
+        Solver solver = new ReversePolishNotationSolver();
+        String[] expressions = {"sqrt()", "sqrt(1, 2)", "pow(2)", "unknown(1)", "sqrt(1,)", "pow(,1)",
+                "1, 2", "(1, 2)", "sqrt(1", "sqrt 1"};
+
+        for (String expression : expressions) {
+            try {
+                solver.solve(expression);
+                Assert.fail(expression);
+            } catch (ExpressionSyntaxException ignored) {
+            }
+        }
+
+    }
+
+    @Test
+    public void rpnSolver_incrementalEvaluationTest() {
+        MathematicalExpressionSolver solver = new ReversePolishNotationSolver();
+        CompiledExpressionSet expressions = solver.compileAll(Arrays.asList("(a + b) * (c + d)", "a / (c - d)"));
+        IncrementalEvaluator evaluator = expressions.incremental(1, 2, 3, 4);
+
+        double first = evaluator.update("c", 5);
+        double second = evaluator.getResult(1);
+
+        Assert.assertEquals(27, first, 0);
+        Assert.assertEquals(1, second, 0);
+        Assert.assertArrayEquals(expressions.evaluate(1, 2, 5, 4),
+                new double[]{evaluator.getResult(0), evaluator.getResult(1)}, 0);
+        Assert.assertEquals(45, evaluator.update(evaluator.getVariableIndex("b"), 4), 0);
+
+    }
+
+    @Test
+    public void rpnSolver_incrementalEvaluationRecoversAfterFailureTest() {
+        MathematicalExpressionSolver solver = new ReversePolishNotationSolver();
+        IncrementalEvaluator evaluator = solver.compile("x / (y - 2) + z").incremental(6, 4, 1);
+
+        try {
+            evaluator.update("y", 2);
+            Assert.fail();
+        } catch (SolverException ignored) {
+        }
+        double result = evaluator.update("y", 5);
+
+        Assert.assertEquals(3, result, 0);
+        Assert.assertEquals(4, evaluator.update("z", 2), 0);
+
+    }
+
+    @Test
+    public void rpnSolver_exactEvaluationTest() {
+        ReversePolishNotationSolver solver = new ReversePolishNotationSolver();
+        ExactExpression expression = solver.compileExact("x + y * 3", MathContext.UNLIMITED);
+
+        BigDecimal result = expression.evaluate(new BigDecimal("0.1"), new BigDecimal("0.2"));
+        BigDecimal overflow = expression.evaluate(new BigDecimal("0.1"), new BigDecimal("1E+30"));
+
+        Assert.assertEquals(new BigDecimal("0.7"), result);
+        Assert.assertEquals(new BigDecimal("3000000000000000000000000000000.1"), overflow);
+        Assert.assertEquals(new BigDecimal("99999999999999999999999"),
+                solver.solveExact("99999999999999999999998 + 1", MathContext.UNLIMITED));
+        Assert.assertEquals(new BigDecimal("0.25"), solver.solveExact("1 / 4", MathContext.UNLIMITED));
+        Assert.assertEquals(new BigDecimal("0.3"), solver.solveExact("0.1 + 0.2", MathContext.UNLIMITED));
+        Assert.assertEquals(new BigDecimal("-1.5E+3"), solver.solveExact("-1.5e3", MathContext.UNLIMITED));
+        Assert.assertEquals(new BigDecimal("0.3333333333333333"), solver.solveExact("1 / 3", MathContext.DECIMAL64));
+        Assert.assertEquals(new BigDecimal("1.000000000000000E+17"),
+                solver.solveExact("99999999999999999 + 1", MathContext.DECIMAL64));
+
+    }
+
+    @Test
+    public void rpnSolver_exactEvaluationErrorsTest() {
+        ReversePolishNotationSolver solver = new ReversePolishNotationSolver(
+                new OperatorRegistry().register(Operator.POWER).register(Operator.REMAINDER));
+        String[] expressions = {"1 / 3", "1 / (2 - 2)", "2 ^ 3", "sqrt(4)"};
+
+        for (String expression : expressions) {
+            try {
+                solver.solveExact(expression, MathContext.UNLIMITED);
+                Assert.fail(expression);
+            } catch (SolverException ignored) {
+            }
+        }
+
+        Assert.assertEquals(new BigDecimal("1"), solver.solveExact("abs(7 % 3)", MathContext.UNLIMITED));
+        try {
+            solver.solveExact("1000 % 3", new MathContext(2));
+            Assert.fail();
+        } catch (SolverException ignored) {
+        }
+        try {
+            solver.solveExact("1 + 0.01", new MathContext(2, RoundingMode.UNNECESSARY));
+            Assert.fail();
+        } catch (SolverException ignored) {
+        }
+
+    }
+
+    @Test
+    public void fileSolver_solveFileTest() throws IOException {
+        ExpressionFileSolver solver = new ExpressionFileSolver(4, 16, ExpressionFileSolver.ErrorPolicy.REPORT);
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            content.append(i).append("*(2+3)").append(i % 2 == 0 ? "\n" : "\r\n");
+        }
+        content.append("lorem ipsum\n");
+        content.append("7/7");
+        Path input = Files.createTempFile("expressions", ".txt");
+        Path output = Files.createTempFile("results", ".txt");
+
+        try {
+            Files.writeString(input, content);
+            long lines = solver.solve(input, output);
+            List<String> results = Files.readAllLines(output);
+
+            Assert.assertEquals(102, lines);
+            Assert.assertEquals(102, results.size());
+            for (int i = 0; i < 100; i++) {
+                Assert.assertEquals(i * 5, Double.parseDouble(results.get(i)), 0.001);
+            }
+            Assert.assertEquals("NaN", results.get(100));
+            Assert.assertEquals(1, Double.parseDouble(results.get(101)), 0.001);
+        } finally {
+            Files.delete(input);
+            Files.delete(output);
+        }
+
+    }
+
+    @Test
+    public void fileSolver_failedLinesSkippedTest() throws IOException {
+        ExpressionFileSolver solver = new ExpressionFileSolver(2, 16, ExpressionFileSolver.ErrorPolicy.SKIP);
+        Path input = Files.createTempFile("expressions", ".txt");
+        Path output = Files.createTempFile("results", ".txt");
+
+        try {
+            Files.writeString(input, "1+1\n)\n1/0\n2*3\n");
+            solver.solve(input, output);
+            List<String> results = Files.readAllLines(output);
+
+            Assert.assertEquals(2, results.size());
+            Assert.assertEquals(2, Double.parseDouble(results.get(0)), 0);
+            Assert.assertEquals(6, Double.parseDouble(results.get(1)), 0);
+        } finally {
+            Files.delete(input);
+            Files.delete(output);
+        }
+
+    }
+
+    @Test
+    public void expressionArchive_writeAndLoadTest() throws IOException {
+        MathematicalExpressionSolver solver = new ReversePolishNotationSolver(
+                new OperatorRegistry().register(Operator.REMAINDER).register(Operator.POWER));
+        List<CompiledExpression> expressions = Arrays.asList(solver.compile("x ^ 2 % 7 + y"),
+                solver.compile("(51/3)+5/2-56+(2-4)"), solver.compile("pow(sqrt(z), 3) * 2"));
+        OperatorRegistry reorderedOperators = new OperatorRegistry().register(Operator.POWER)
+                .register(Operator.REMAINDER);
+        Path archive = Files.createTempFile("expressions", ".rpnx");
+
+        try {
+            ExpressionArchive.write(archive, expressions);
+            List<CompiledExpression> loaded = ExpressionArchive.load(archive, reorderedOperators,
+                    new FunctionRegistry());
+
+            Assert.assertEquals(3, loaded.size());
+            Assert.assertEquals(Arrays.asList("x", "y"), loaded.get(0).getVariables());
+            Assert.assertEquals(expressions.get(0).evaluate(4, 10), loaded.get(0).evaluate(4, 10), 0);
+            Assert.assertEquals(-38.5, loaded.get(1).evaluate(), 0.001);
+            Assert.assertEquals(expressions.get(1).getSourceInstructionCount(),
+                    loaded.get(1).getSourceInstructionCount());
+            Assert.assertEquals(16, loaded.get(2).evaluate(4), 0);
+        } finally {
+            Files.delete(archive);
+        }
+
+    }
+
+    @Test
+    public void expressionArchive_invalidArchiveRejectedTest() {
+        MathematicalExpressionSolver solver = new ReversePolishNotationSolver(
+                new OperatorRegistry().register(Operator.POWER));
+        byte[] archive = ExpressionArchive.toBytes(Collections.singletonList(solver.compile("x ^ 2")));
+        byte[] truncated = Arrays.copyOf(archive, archive.length - 1);
+        byte[] newerVersion = archive.clone();
+        newerVersion[5]++;
+        byte[] hugeCount = Arrays.copyOf(archive, 16);
+        // count of variables of the first expression is 2^31 - 1
+        hugeCount[11] = hugeCount[12] = hugeCount[13] = hugeCount[14] = -1;
+        hugeCount[15] = 7;
+        byte[][] invalidArchives = {truncated, newerVersion, hugeCount, "lorem ipsum".getBytes()};
+
+        for (byte[] invalidArchive : invalidArchives) {
+            try {
+                ExpressionArchive.load(ByteBuffer.wrap(invalidArchive), new OperatorRegistry()
+                        .register(Operator.POWER), new FunctionRegistry());
+                Assert.fail();
+            } catch (SolverException ignored) {
+            }
+        }
+        try {
+            ExpressionArchive.load(ByteBuffer.wrap(archive), new OperatorRegistry(), new FunctionRegistry());
+            Assert.fail();
+        } catch (SolverException ignored) {
+        }
+
+    }
+
+    @Test
+    public void offHeapStore_addAndEvaluateTest() {
+        MathematicalExpressionSolver solver = new ReversePolishNotationSolver(
+                new OperatorRegistry().register(Operator.REMAINDER).register(Operator.POWER));
+        OffHeapExpressionStore store = new OffHeapExpressionStore(solver, 1024);
+        String[] expressions = {"x ^ 2 % 7 + y", "(51/3)+5/2-56+(2-4)", "pow(sqrt(z), 3) * 2"};
+        int[] handles = new int[3000];
+
+        for (int i = 0; i < handles.length; i++) {
+            handles[i] = store.add(expressions[i % expressions.length]);
+        }
+
+        Assert.assertEquals(handles.length, store.size());
+        Assert.assertEquals(2999, handles[2999]);
+        Assert.assertEquals(Arrays.asList("x", "y"), store.getVariables(handles[2997]));
+        Assert.assertEquals(solver.compile(expressions[0]).evaluate(4, 10), store.evaluate(handles[2997], 4, 10), 0);
+        Assert.assertEquals(-38.5, store.evaluate(handles[1]), 0.001);
+        Assert.assertEquals(16, store.evaluate(handles[2], 4), 0);
+        Assert.assertTrue(store.getFootprint(handles[0]) > 0 && store.getFootprint(handles[0]) % 8 == 0);
+        Assert.assertTrue(store.getOffHeapSize() >= store.getAverageFootprint() * store.size());
+
+    }
+
+    @Test
+    public void offHeapStore_invalidUseRejectedTest() {
+        OffHeapExpressionStore store = new OffHeapExpressionStore();
+        int handle = store.add("x + 1");
+
+        try {
+            store.evaluate(handle);
+            Assert.fail();
+        } catch (SolverException ignored) {
+        }
+        try {
+            store.evaluate(handle + 1, 1);
+            Assert.fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+        try {
+            store.add(new ReversePolishNotationSolver(new OperatorRegistry().register(Operator.POWER))
+                    .compile("x ^ 2"));
+            store.add(new ReversePolishNotationSolver(new OperatorRegistry().register(Operator.REMAINDER))
+                    .compile("x % 2"));
+            Assert.fail();
+        } catch (SolverException ignored) {
+        }
+
+        Assert.assertEquals(2, store.evaluate(handle, 1), 0);
+        Assert.assertEquals(2, store.size());
+
+    }
+
+    @Test
+    public void rpnSolver_parallelEvaluationTest() {
+        ReversePolishNotationSolver solver = new ReversePolishNotationSolver();
+        String[] terms = {"x * 3", "(y - 1) / 4", "sqrt(x + 2)", "x * y * 0.5", "pow(y, 2) - x"};
+        StringBuilder expression = new StringBuilder("x");
+        for (int i = 0; i < 50_000; i++) {
+            expression.append(i % 3 == 0 ? " - " : " + ").append(terms[i % terms.length]);
+        }
+        CompiledExpression compiledExpression = solver.compile(expression.toString());
+
+        ParallelExpression parallelExpression = compiledExpression.parallel();
+        double result = parallelExpression.evaluate(2, 3);
+
+        Assert.assertTrue(parallelExpression.getParallelPartCount() > 0);
+        Assert.assertEquals(Arrays.asList("x", "y"), parallelExpression.getVariables());
+        double expected = compiledExpression.evaluate(2, 3);
+        Assert.assertEquals(expected, result, Math.abs(expected) * 1e-12);
+        Assert.assertEquals(-38.5, solver.solveParallel("(51/3)+5/2-56+(2-4)"), 0.001);
+
+    }
+
+    @Test
+    public void rpnSolver_parallelEvaluationOfDeepExpressionsTest() {
+        MathematicalExpressionSolver solver = new ReversePolishNotationSolver();
+        StringBuilder chain = new StringBuilder();
+        StringBuilder sumWithDivision = new StringBuilder("1 / (x - 1)");
+        for (int i = 0; i < 50_000; i++) {
+            chain.append('(');
+            sumWithDivision.append(" + x * ").append(i % 10);
+        }
+        chain.append('x');
+        for (int i = 0; i < 50_000; i++) {
+            chain.append(" + 1) * 0.5");
+        }
+        CompiledExpression chainExpression = solver.compile(chain.toString());
+        ParallelExpression sumExpression = solver.compile(sumWithDivision.toString()).parallel();
+
+        double result = chainExpression.parallel().evaluate(1);
+
+        Assert.assertEquals(chainExpression.evaluate(1), result, 0);
+        Assert.assertTrue(sumExpression.getParallelPartCount() > 0);
+        try {
+            sumExpression.evaluate(1);
+            Assert.fail();
+        } catch (SolverException ignored) {
+        }
+
+    }
+
+    @Test
+    public void rpnSolver_gradientTest() {
+        OperatorRegistry operators = new OperatorRegistry()
+                .register(Operator.POWER)
+                .register(Operator.NEGATION);
+        ReversePolishNotationSolver solver = new ReversePolishNotationSolver(operators);
+        CompiledExpression expression = solver.compile("x^2 * y - sqrt(x) / y + exp(-y) + pow(x, y)");
+
+        Gradient gradient = expression.gradient(4, 2);
+        Gradient partialGradient = expression.gradient(Collections.singletonList("y"), 4, 2);
+        Gradient solvedGradient = solver.solveWithGradient("abs(a - b) * 3 + c", -1, 2, 5);
+
+        Assert.assertEquals(expression.evaluate(4, 2), gradient.getValue(), 0);
+        Assert.assertEquals(23.875, gradient.getPartial("x"), 1e-12);
+        Assert.assertEquals(16.5 - Math.exp(-2) + 16 * Math.log(4), gradient.getPartial("y"), 1e-12);
+        Assert.assertEquals(gradient.getPartial("y"), partialGradient.getPartial(0), 0);
+        Assert.assertEquals(1, partialGradient.getPartials().length);
+        Assert.assertEquals(14, solvedGradient.getValue(), 0);
+        Assert.assertArrayEquals(new double[]{-3, 3, 1}, solvedGradient.getPartials(), 0);
+
+    }
+
+    @Test
+    public void rpnSolver_gradientOfNonDifferentiableExpressionTest() {
+        OperatorRegistry operators = new OperatorRegistry()
+                .register(Operator.binary("**", 4, Operator.Associativity.RIGHT, Math::pow));
+        FunctionRegistry functions = new FunctionRegistry()
+                .register(MathFunction.binary("hypot", Math::hypot,
+                        (x, y) -> x / Math.hypot(x, y), (x, y) -> y / Math.hypot(x, y)));
+        ReversePolishNotationSolver solver = new ReversePolishNotationSolver(operators, functions);
+
+        Gradient gradient = solver.solveWithGradient("hypot(x, 4) * 5", 3);
+
+        Assert.assertEquals(25, gradient.getValue(), 0);
+        Assert.assertEquals(3, gradient.getPartial("x"), 1e-12);
+        try {
+            solver.solveWithGradient("x ** 2", 3);
+            Assert.fail();
+        } catch (SolverException ignored) {
+        }
+        try {
+            solver.compile("x + 1").gradient(Collections.singletonList("y"), 3);
+            Assert.fail();
+        } catch (SolverException ignored) {
+        }
+
+    }
+
+    @Test
+    public void cachingSolver_repeatedExpressionTest() {
+        CachingExpressionSolver solver = new CachingExpressionSolver();
+        String expression = "(51/3)+5/2-56+(2-4)";
+
+        double firstResult = solver.solve(expression);
+        double secondResult = solver.solve(expression);
+
+        Assert.assertEquals(-38.5, firstResult, 0.001);
+        Assert.assertEquals(-38.5, secondResult, 0.001);
+        Assert.assertEquals(1, solver.getMissCount());
+        Assert.assertEquals(1, solver.getHitCount());
+
+    }
+
+    @Test
+    public void cachingSolver_invalidExpressionCachedTest() {
+        CachingExpressionSolver solver = new CachingExpressionSolver();
+        String expression = "(1/lorem ipsum)";
+
+        for (int i = 0; i < 3; i++) {
+            try {
+                solver.solve(expression);
+                Assert.fail();
+            } catch (SolverException ignored) {
+            }
+        }
+
+        Assert.assertEquals(1, solver.getMissCount());
+        Assert.assertEquals(2, solver.getHitCount());
+
+    }
+
+    @Test
+    public void cachingSolver_newExceptionThrownOnEachHitTest() {
+        CachingExpressionSolver solver = new CachingExpressionSolver();
+        String expression = "2 + (3";
+        List<SolverException> exceptions = new ArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            try {
+                solver.compile(expression);
+                Assert.fail();
+            } catch (SolverException e) {
+                exceptions.add(e);
+            }
+        }
+
+        Assert.assertNotSame(exceptions.get(1), exceptions.get(2));
+        for (SolverException exception : exceptions) {
+            Assert.assertTrue(exception instanceof ExpressionSyntaxException);
+            Assert.assertEquals(exceptions.get(0).getMessage(), exception.getMessage());
+            Assert.assertEquals(((ExpressionSyntaxException) exceptions.get(0)).getPosition(),
+                    ((ExpressionSyntaxException) exception).getPosition());
+        }
+
+    }
+
+    @Test
+    public void cachingSolver_leastRecentlyUsedEvictedTest() {
+        CachingExpressionSolver solver = new CachingExpressionSolver(new ReversePolishNotationSolver(), 1);
+
+        solver.solve("1+1");
+        solver.solve("2+2");
+        solver.solve("1+1");
+
+        Assert.assertEquals(3, solver.getMissCount());
+        Assert.assertEquals(2, solver.getEvictionCount());
+        Assert.assertEquals(1, solver.size());
+
+    }
+
+    @Test
+    public void cachingSolver_sizeBoundedByMaximumSizeTest() {
+        CachingExpressionSolver solver = new CachingExpressionSolver(new ReversePolishNotationSolver(), 17);
+
+        for (int i = 0; i < 1000; i++) {
+            solver.solve(i + "+1");
+        }
+
+        Assert.assertTrue(solver.size() <= 17);
+        Assert.assertEquals(1000, solver.getMissCount());
+        Assert.assertEquals(1000 - solver.size(), solver.getEvictionCount());
+
+    }
+
+    @Test
+    public void rpnSolver_solveAllTest() {
+        Solver solver = new ReversePolishNotationSolver();
+        List<String> expressions = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            expressions.add(i + "*2+1");
+        }
+
+        double[] results = solver.solveAll(expressions);
+
+        for (int i = 0; i < results.length; i++) {
+            Assert.assertEquals(i * 2 + 1, results[i], 0.001);
+        }
+
+    }
+
+    @Test
+    public void rpnSolver_solveAllCollectingErrorsTest() {
+        Solver solver = new ReversePolishNotationSolver();
+        List<String> expressions = Arrays.asList("2+2", "(51/(5-5))", "lorem", "6/3");
+
+        BatchSolution solution = solver.solveAllCollectingErrors(expressions);
+
+        Assert.assertEquals(2, solution.getErrorCount());
+        Assert.assertEquals(4, solution.getResult(0), 0.001);
+        Assert.assertEquals(2, solution.getResult(3), 0.001);
+        Assert.assertNotNull(solution.getError(1));
+        Assert.assertNotNull(solution.getError(2));
+        Assert.assertNull(solution.getError(3));
+
+    }
+
+    @Test
+    public void solver_solveAllIsolatesUnexpectedExceptionsTest() {
+        Solver solver = new Solver() {
+            @Override
+            public double solve(String task) {
+                return Double.parseDouble(task);
+            }
+
+            @Override
+            public double solve(String task, TaskValidator validator) {
+                return solve(task);
+            }
+        };
+        List<String> tasks = Arrays.asList("1.5", "lorem", "2.5");
+
+        double[] results = solver.solveAll(tasks);
+        BatchSolution solution = solver.solveAllCollectingErrors(tasks);
+
+        Assert.assertArrayEquals(new double[]{1.5, Double.NaN, 2.5}, results, 0);
+        Assert.assertEquals(1, solution.getErrorCount());
+        Assert.assertTrue(solution.getError(1).getCause() instanceof NumberFormatException);
+
+    }
+
     @Test
     public void solver_customSolverTestNoValidator() {
         Solver solver = new Solver() {
@@ -91,6 +91,82 @@ public class ValidationTest {
         Assert.assertTrue(result);
     }
 
+    @Test
+    public void mathematicalExpressionValidator_variables_true() {
+        TaskValidator validator = new MathematicalExpressionValidator();
+        String expression = "(price_1 - discount) * count";
+
+        boolean result = validator.validate(expression);
+
+        Assert.assertTrue(result);
+    }
+
+    @Test
+    public void mathematicalExpressionValidator_variableStartingFromDigit_false() {
+        TaskValidator validator = new MathematicalExpressionValidator();
+        String expression = "2x+5";
+
+        boolean result = validator.validate(expression);
+
+        Assert.assertFalse(result);
+    }
+
+    @Test
+    public void mathematicalExpressionValidator_operandsSeparatedBySpace_false() {
+        TaskValidator validator = new MathematicalExpressionValidator();
+        String expression = "12 34+x";
+
+        boolean result = validator.validate(expression);
+
+        Assert.assertFalse(result);
+    }
+
+    @Test
+    public void mathematicalExpressionValidator_numericalLiterals_true() {
+        TaskValidator validator = new MathematicalExpressionValidator();
+        String[] expressions = {"-1.5*2", "6.02e23 / .5", "2*-3", "(1E-9 + -4)", "pow(-2, 0.5)", "1/0.01"};
+
+        for (String expression : expressions) {
+            boolean result = validator.validate(expression);
+
+            Assert.assertTrue(expression, result);
+        }
+    }
+
+    @Test
+    public void mathematicalExpressionValidator_invalidNumericalLiterals_false() {
+        TaskValidator validator = new MathematicalExpressionValidator();
+        String[] expressions = {"1.", "1.2.3", "2e", "1.5x", "1/0.0", "1/-0", "--2"};
+
+        for (String expression : expressions) {
+            boolean result = validator.validate(expression);
+
+            Assert.assertFalse(expression, result);
+        }
+    }
+
+    @Test
+    public void mathematicalExpressionValidator_functionCalls_true() {
+        TaskValidator validator = new MathematicalExpressionValidator();
+        String expression = "sqrt(x*x + y*y) - pow(2, abs(z)) + now()";
+
+        boolean result = validator.validate(expression);
+
+        Assert.assertTrue(result);
+    }
+
+    @Test
+    public void mathematicalExpressionValidator_invalidFunctionCalls_false() {
+        TaskValidator validator = new MathematicalExpressionValidator();
+        String[] expressions = {"pow(2,)", "pow(,2)", "1,2", "2(3)", "()", "f(1,,2)"};
+
+        for (String expression : expressions) {
+            boolean result = validator.validate(expression);
+
+            Assert.assertFalse(expression, result);
+        }
+    }
+
     @Test
     public void customValidator_validString_true() {
         TaskValidator validator = new TaskValidator() {